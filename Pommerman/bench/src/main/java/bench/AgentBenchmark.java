@@ -0,0 +1,68 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import players.SimplePlayer;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import utils.Types;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of full agent decisions, on the observation of the first player alive. MCTS runs with a fixed number of
+ * iterations (the configuration of Run), so that its cost does not depend on the speed of the machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AgentBenchmark {
+
+    /**
+     * Index of the level seed in Types.PAPER_SEEDS.
+     */
+    @Param({"0", "1", "2", "3"})
+    public int seedIndex;
+
+    @Param({"40"})
+    public int ticks;
+
+    @Param({"200"})
+    public int mctsIterations;
+
+    private GameState observation;
+    private SimplePlayer simplePlayer;
+    private MCTSPlayer mctsPlayer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GameState state = BenchmarkStates.state(seedIndex, ticks);
+        int playerIdx = BenchmarkStates.firstAlivePlayer(state);
+        observation = BenchmarkStates.observation(state, playerIdx);
+        long seed = Types.PAPER_SEEDS[seedIndex];
+        int playerID = Types.TILETYPE.AGENT0.getKey() + playerIdx;
+
+        simplePlayer = new SimplePlayer(seed, playerID);
+
+        MCTSParams mctsParams = new MCTSParams();
+        mctsParams.stop_type = mctsParams.STOP_ITERATIONS;
+        mctsParams.num_iterations = mctsIterations;
+        mctsParams.rollout_depth = 12;
+        mctsParams.heuristic_method = mctsParams.CUSTOM_HEURISTIC;
+        mctsPlayer = new MCTSPlayer(seed, playerID, mctsParams);
+    }
+
+    @Benchmark
+    public Types.ACTIONS simplePlayer() {
+        return simplePlayer.act(observation);
+    }
+
+    @Benchmark
+    public Types.ACTIONS mctsPlayer() {
+        return mctsPlayer.act(observation);
+    }
+}
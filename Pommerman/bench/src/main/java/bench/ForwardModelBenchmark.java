@@ -0,0 +1,90 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import utils.Types;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the forward model: stepping, copying and parsing game states. States are taken from the levels of
+ * the paper (Types.PAPER_SEEDS), after playing a number of ticks with random actions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForwardModelBenchmark {
+
+    /**
+     * Index of the level seed in Types.PAPER_SEEDS.
+     */
+    @Param({"0", "1", "2", "3"})
+    public int seedIndex;
+
+    /**
+     * Ticks played before the benchmarked state, so that it has bombs and flames.
+     */
+    @Param({"40"})
+    public int ticks;
+
+    private GameState state;
+    private GameState work;
+    private GameState undoWork;
+    private GameState observation;
+    private String json;
+    private Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        state = BenchmarkStates.state(seedIndex, ticks);
+        work = state.copy();
+        undoWork = state.copy();
+        undoWork.setUndoEnabled(true);
+        observation = BenchmarkStates.observation(state, BenchmarkStates.firstAlivePlayer(state));
+        json = BenchmarkStates.toPythonJson(observation);
+        BenchmarkStates.randomActions(new Random(Types.PAPER_SEEDS[seedIndex]), actions);
+    }
+
+    /**
+     * GameState.next from the same state every time. The state is restored with copyInto, which is measured on its
+     * own by copyInto().
+     */
+    @Benchmark
+    public GameState next() {
+        state.copyInto(work);
+        work.next(actions);
+        return work;
+    }
+
+    /**
+     * GameState.next from the same state every time, restoring it with undo() instead of copyInto(): the make/unmake
+     * alternative to next().
+     */
+    @Benchmark
+    public GameState nextUndo() {
+        undoWork.next(actions);
+        undoWork.undo();
+        return undoWork;
+    }
+
+    @Benchmark
+    public GameState copy() {
+        return state.copy();
+    }
+
+    @Benchmark
+    public GameState copyInto() {
+        state.copyInto(work);
+        return work;
+    }
+
+    @Benchmark
+    public GameState parseJson() {
+        return new GameState(json);
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import players.heuristics.AdvancedHeuristic;
+import players.heuristics.CustomHeuristic;
+import utils.Types;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the state heuristics used by the statistical forward planning agents. Heuristics are built on the
+ * observation of the first player alive and evaluate the observation of that player a few ticks later, as at the end of a
+ * rollout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+
+    /**
+     * Index of the level seed in Types.PAPER_SEEDS.
+     */
+    @Param({"0", "1", "2", "3"})
+    public int seedIndex;
+
+    @Param({"40"})
+    public int ticks;
+
+    /**
+     * Ticks between the root state of the heuristic and the evaluated state.
+     */
+    @Param({"10"})
+    public int rolloutTicks;
+
+    private GameState evaluated;
+    private CustomHeuristic customHeuristic;
+    private AdvancedHeuristic advancedHeuristic;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GameState rootState = BenchmarkStates.state(seedIndex, ticks);
+        int playerIdx = BenchmarkStates.firstAlivePlayer(rootState);
+        GameState root = BenchmarkStates.observation(rootState, playerIdx);
+        customHeuristic = new CustomHeuristic(root);
+        advancedHeuristic = new AdvancedHeuristic(root, new Random(Types.PAPER_SEEDS[seedIndex]));
+        evaluated = BenchmarkStates.observation(BenchmarkStates.state(seedIndex, ticks + rolloutTicks), playerIdx);
+    }
+
+    @Benchmark
+    public double customHeuristic() {
+        return customHeuristic.evaluateState(evaluated);
+    }
+
+    @Benchmark
+    public double advancedHeuristic() {
+        return advancedHeuristic.evaluateState(evaluated);
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.Types;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the observations the game hands to agents on every tick: one copy of the true state per player,
+ * reduced to what that player can see.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObservationBenchmark {
+
+    /**
+     * Vision range of the agents, -1 for full observability.
+     */
+    @Param({"-1", "1", "2", "4"})
+    public int visionRange;
+
+    /**
+     * Whether the state runs on the bitboard engine.
+     */
+    @Param({"false", "true"})
+    public boolean bitBoard;
+
+    @Param({"0"})
+    public int seedIndex;
+
+    private GameState state;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int range = Types.DEFAULT_VISION_RANGE;
+        boolean engine = Types.BITBOARD_ENGINE;
+        Types.DEFAULT_VISION_RANGE = visionRange;
+        Types.BITBOARD_ENGINE = bitBoard;
+        try {
+            state = BenchmarkStates.state(seedIndex, 40);
+        } finally {
+            Types.DEFAULT_VISION_RANGE = range;
+            Types.BITBOARD_ENGINE = engine;
+        }
+    }
+
+    /**
+     * Observations of all players, as made by the game on every tick.
+     */
+    @Benchmark
+    public void allPlayers(Blackhole bh) {
+        for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+            bh.consume(BenchmarkStates.observation(state, i));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import utils.Types;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of MCTS iterations with the open-loop tree (MCTSParams.open_loop) against SingleTreeNode, with the
+ * same parameters otherwise: each operation is one iteration of a decision of ITERATIONS iterations, on the
+ * observation of the first player alive.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OpenLoopBenchmark {
+
+    private static final int ITERATIONS = 1000;
+
+    /**
+     * Index of the level seed in Types.PAPER_SEEDS.
+     */
+    @Param({"0", "1", "2", "3"})
+    public int seedIndex;
+
+    @Param({"40"})
+    public int ticks;
+
+    @Param({"false", "true"})
+    public boolean openLoop;
+
+    private GameState observation;
+    private MCTSPlayer player;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GameState state = BenchmarkStates.state(seedIndex, ticks);
+        int playerIdx = BenchmarkStates.firstAlivePlayer(state);
+        observation = BenchmarkStates.observation(state, playerIdx);
+
+        MCTSParams params = new MCTSParams();
+        params.stop_type = params.STOP_ITERATIONS;
+        params.num_iterations = ITERATIONS;
+        params.open_loop = openLoop;
+        player = new MCTSPlayer(Types.PAPER_SEEDS[seedIndex], Types.TILETYPE.AGENT0.getKey() + playerIdx, params);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Types.ACTIONS decision() {
+        return player.act(observation);
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import players.rollouts.RolloutPolicies;
+import players.rollouts.RolloutPolicy;
+import utils.Types;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rollout policies, on the observation of the first player alive: the cost of choosing the actions
+ * of all players for one tick, and of an MCTS decision with the policy playing both this player's moves in rollouts
+ * and the moves of the other players, to weigh the cost of a policy against the iterations it leaves for the search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RolloutPolicyBenchmark {
+
+    /**
+     * Index of the level seed in Types.PAPER_SEEDS.
+     */
+    @Param({"0", "1"})
+    public int seedIndex;
+
+    @Param({"40"})
+    public int ticks;
+
+    /**
+     * Name of the policy, as in RolloutPolicies.names().
+     */
+    @Param({"RANDOM", "SAFE_RANDOM", "AVOID_BLAST", "SIMPLE"})
+    public String policy;
+
+    @Param({"200"})
+    public int mctsIterations;
+
+    private GameState observation;
+    private RolloutPolicy rolloutPolicy;
+    private Random rnd;
+    private MCTSPlayer mctsPlayer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GameState state = BenchmarkStates.state(seedIndex, ticks);
+        int playerIdx = BenchmarkStates.firstAlivePlayer(state);
+        observation = BenchmarkStates.observation(state, playerIdx);
+        long seed = Types.PAPER_SEEDS[seedIndex];
+        rnd = new Random(seed);
+
+        int type = Arrays.asList(RolloutPolicies.names()).indexOf(policy);
+        rolloutPolicy = RolloutPolicies.create(type, rnd);
+
+        MCTSParams mctsParams = new MCTSParams();
+        mctsParams.stop_type = mctsParams.STOP_ITERATIONS;
+        mctsParams.num_iterations = mctsIterations;
+        mctsParams.rollout_depth = 12;
+        mctsParams.rollout_policy = type;
+        mctsParams.rollout_policy_near = type;
+        mctsParams.opponent_policy = type;
+        mctsParams.opponent_policy_near = type;
+        mctsPlayer = new MCTSPlayer(seed, Types.TILETYPE.AGENT0.getKey() + playerIdx, mctsParams);
+    }
+
+    /**
+     * Actions of all the players for one tick.
+     */
+    @Benchmark
+    public int jointAction() {
+        rolloutPolicy.prepare(observation);
+        int sum = 0;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+            sum += rolloutPolicy.act(observation, i, rnd).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Types.ACTIONS mctsPlayer() {
+        return mctsPlayer.act(observation);
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import core.BenchmarkStates;
+import core.GameState;
+import org.openjdk.jmh.annotations.*;
+import utils.Types;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of how the cost of stepping and copying game states grows with the area of the board and the number
+ * of players. Types.NUM_PLAYERS is a global setting, so it is set for the whole trial; JMH runs each parameter
+ * combination in its own fork.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScalingBenchmark {
+
+    @Param({"11", "21", "31"})
+    public int boardSize;
+
+    @Param({"4", "8"})
+    public int players;
+
+    /**
+     * Whether the states run on the bitboard engine.
+     */
+    @Param({"false", "true"})
+    public boolean bitBoard;
+
+    private GameState state;
+    private GameState work;
+    private Types.ACTIONS[] actions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Types.NUM_PLAYERS = players;
+        Types.BITBOARD_ENGINE = bitBoard;
+        state = BenchmarkStates.state(0, boardSize, 40);
+        work = state.copy();
+        actions = new Types.ACTIONS[players];
+        BenchmarkStates.randomActions(new Random(Types.PAPER_SEEDS[0]), actions);
+    }
+
+    /**
+     * GameState.next from the same state every time, restored with copyInto.
+     */
+    @Benchmark
+    public GameState next() {
+        state.copyInto(work);
+        work.next(actions);
+        return work;
+    }
+
+    @Benchmark
+    public GameState copy() {
+        return state.copy();
+    }
+}
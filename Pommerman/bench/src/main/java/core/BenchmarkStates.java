@@ -0,0 +1,119 @@
+package core;
+
+import utils.Types;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Reproducible game states for the benchmarks. It lives in the core package to reach the package-private parts of
+ * GameState (board initialisation and player observations), the same way the tests do.
+ */
+public final class BenchmarkStates {
+
+    private BenchmarkStates() {}
+
+    /**
+     * Creates the game state of a level from the paper, after playing some ticks with random actions. Actions are
+     * drawn from a generator seeded with the level seed, so the state only depends on the arguments. Random agents
+     * kill each other quickly, so bombs are only placed in the last ticks: just enough for the first ones to
+     * explode, leaving a state with bombs, flames and (usually) all agents alive.
+     * @param seedIndex index of the level seed in Types.PAPER_SEEDS.
+     * @param ticks number of ticks to play.
+     * @return the (true) game state.
+     */
+    public static GameState state(int seedIndex, int ticks) {
+        return state(seedIndex, Types.BOARD_SIZE, ticks);
+    }
+
+    /**
+     * Same as state(seedIndex, ticks), on a board of the given size. The number of players is Types.NUM_PLAYERS.
+     * @param seedIndex index of the level seed in Types.PAPER_SEEDS.
+     * @param size size of the board.
+     * @param ticks number of ticks to play.
+     * @return the (true) game state.
+     */
+    public static GameState state(int seedIndex, int size, int ticks) {
+        long seed = Types.PAPER_SEEDS[seedIndex];
+        GameState gs = new GameState(seed, size, Types.GAME_MODE.FFA, true);
+        gs.model.setTrueModel();
+        gs.init();
+
+        Random rnd = new Random(seed);
+        Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+        int firstBombTick = ticks - Types.BOMB_LIFE - 2;
+        for (int t = 0; t < ticks && !gs.isTerminal(); t++) {
+            randomActions(rnd, actions);
+            if (t < firstBombTick) {
+                for (int i = 0; i < actions.length; i++) {
+                    if (actions[i] == Types.ACTIONS.ACTION_BOMB)
+                        actions[i] = Types.ACTIONS.ACTION_STOP;
+                }
+            }
+            gs.next(actions);
+        }
+        return gs;
+    }
+
+    /**
+     * @return index of the first player still alive in the game, or 0 if all are dead.
+     */
+    public static int firstAlivePlayer(GameState gs) {
+        Types.TILETYPE[] alive = gs.getAliveAgentIDs();
+        return alive.length > 0 ? alive[0].getKey() - Types.TILETYPE.AGENT0.getKey() : 0;
+    }
+
+    /**
+     * @return the observation of the given player, as agents receive it from the game.
+     */
+    public static GameState observation(GameState gs, int playerIdx) {
+        return gs.copy(playerIdx);
+    }
+
+    /**
+     * Fills the array with random actions.
+     */
+    public static void randomActions(Random rnd, Types.ACTIONS[] actions) {
+        Types.ACTIONS[] all = Types.ACTIONS.values();
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = all[rnd.nextInt(all.length)];
+        }
+    }
+
+    /**
+     * Serialises the observation of a player in the JSON format sent by the Python environment, as parsed by
+     * GameState(String).
+     * @param obs observation of a player.
+     * @return JSON message with the observation and the action space.
+     */
+    public static String toPythonJson(GameState obs) {
+        Types.TILETYPE[][] board = obs.getBoard();
+        int[][] intBoard = new int[board.length][board.length];
+        for (int y = 0; y < board.length; y++) {
+            for (int x = 0; x < board.length; x++) {
+                intBoard[y][x] = board[y][x].getKey();
+            }
+        }
+
+        Types.TILETYPE[] aliveIds = obs.getAliveAgentIDs();
+        int[] alive = new int[aliveIds.length];
+        for (int i = 0; i < alive.length; i++) {
+            alive[i] = aliveIds[i].getKey();
+        }
+
+        int gameType = obs.getGameMode() == Types.GAME_MODE.FFA ? 1 : obs.getGameMode() == Types.GAME_MODE.TEAM ? 2 : 3;
+        return "{\"obs\": {"
+                + "\"alive\": " + Arrays.toString(alive)
+                + ", \"board\": " + Arrays.deepToString(intBoard)
+                + ", \"bomb_blast_strength\": " + Arrays.deepToString(obs.getBombBlastStrength())
+                + ", \"bomb_life\": " + Arrays.deepToString(obs.getBombLife())
+                + ", \"game_type\": " + gameType
+                + ", \"game_env\": \"pommerman.envs.v0:Pomme\""
+                + ", \"position\": [" + obs.getPosition().y + ", " + obs.getPosition().x + "]"
+                + ", \"blast_strength\": " + obs.getBlastStrength()
+                + ", \"can_kick\": " + obs.canKick()
+                + ", \"ammo\": " + obs.getAmmo()
+                + ", \"step_count\": " + obs.getTick()
+                + "}, \"action_space\": " + obs.nActions() + "}";
+    }
+}
@@ -0,0 +1,101 @@
+import core.Game;
+import core.GameState;
+import players.Player;
+import players.SimplePlayer;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import utils.Types;
+
+import java.util.ArrayList;
+
+/**
+ * Reports how the number of MCTS iterations per second scales with the number of threads, for the root and tree
+ * parallel modes of MCTSPlayer. Decisions are timed on game states recorded from a game between rule based agents.
+ */
+public class MCTSScaling {
+
+    private static void printHelp()
+    {
+        System.out.println("Usage: java MCTSScaling [args]");
+        System.out.println("\t [arg index = 0] Maximum number of threads. Default: number of available processors.");
+        System.out.println("\t [arg index = 1] Time per decision, in ms. Default: " + Types.DECISION_TIME_LIMIT);
+        System.out.println("\t [arg index = 2] Number of game states to decide on. Default: 20.");
+    }
+
+    public static void main(String[] args) {
+
+        if (args.length > 3) {
+            printHelp();
+            return;
+        }
+
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int decisionTime = args.length > 1 ? Integer.parseInt(args[1]) : Types.DECISION_TIME_LIMIT;
+        int nStates = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        ArrayList<GameState> states = recordStates(nStates);
+
+        // Threads beyond the number of processors only interleave: differences between those rows come from the cost
+        // of the iterations themselves (e.g. smaller trees per thread in root mode) and timing noise.
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("Mode\tThreads\tIterations/s\tSpeedup");
+        String[] modeNames = new String[]{"Root", "Tree"};
+        for (int mode = 0; mode < modeNames.length; mode++) {
+            double baseline = -1;
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                MCTSParams params = new MCTSParams();
+                params.stop_type = params.STOP_TIME;
+                params.num_time = decisionTime;
+                params.num_threads = threads;
+                params.parallel_mode = mode == 0 ? params.PARALLEL_ROOT : params.PARALLEL_TREE;
+                MCTSPlayer player = new MCTSPlayer(42, Types.TILETYPE.AGENT0.getKey(), params);
+
+                // Warm up on all the states, so that the first rows are not timed before the JIT compiles the search
+                for (GameState gs : states) {
+                    player.act(gs);
+                }
+
+                long iterations = 0;
+                long start = System.nanoTime();
+                for (GameState gs : states) {
+                    player.act(gs);
+                    iterations += player.getLastIterations();
+                }
+                double itersPerSecond = iterations / ((System.nanoTime() - start) / 1e9);
+                if (baseline < 0) {
+                    baseline = itersPerSecond;
+                }
+
+                System.out.println(String.format("%s\t%d\t%.0f\t%.2f", modeNames[mode], threads, itersPerSecond,
+                        itersPerSecond / baseline));
+            }
+        }
+    }
+
+    /**
+     * Plays a game between rule based agents, keeping the observations of the first one every few ticks.
+     */
+    private static ArrayList<GameState> recordStates(int nStates) {
+        ArrayList<GameState> states = new ArrayList<>();
+        long seed = 42;
+        Game game = new Game(seed, Types.BOARD_SIZE, Types.GAME_MODE.FFA, "");
+
+        ArrayList<Player> players = new ArrayList<>();
+        int playerID = Types.TILETYPE.AGENT0.getKey();
+        players.add(new SimplePlayer(seed, playerID++) {
+            @Override
+            public Types.ACTIONS act(GameState gs) {
+                if (states.size() < nStates && gs.getTick() % 5 == 0) {
+                    states.add(gs.copy());
+                }
+                return super.act(gs);
+            }
+        });
+        for (int i = 1; i < Types.NUM_PLAYERS; i++) {
+            players.add(new SimplePlayer(seed, playerID++));
+        }
+        game.setPlayers(players);
+        game.run(false);
+        return states;
+    }
+}
@@ -2,12 +2,19 @@ import core.Game;
 import players.*;
 import players.mcts.MCTSParams;
 import players.mcts.MCTSPlayer;
+import players.mcts.SimultaneousMCTSPlayer;
+import players.mcts.TranspositionMCTSPlayer;
 import players.rhea.RHEAPlayer;
 import players.rhea.utils.Constants;
 import players.rhea.utils.RHEAParams;
 import utils.*;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static utils.Types.VISUALS;
 
@@ -27,6 +34,9 @@ public class Run {
         System.out.println("\t\t 3 SimplePlayer");
         System.out.println("\t\t 4 RHEA 200 itereations, shift buffer, pop size 1, random init, length: 12");
         System.out.println("\t\t 5 MCTS 200 iterations, length: 12");
+        System.out.println("\t\t 6 MCTS with transposition table, 200 iterations, length: 12");
+        System.out.println("\t\t 7 Simultaneous-move MCTS (decoupled UCT), 200 iterations, length: 12");
+        System.out.println("\t [arg index = 8] (Optional) Number of games to run in parallel. Default: 1.");
     }
 
     public static void main(String[] args) {
@@ -35,7 +45,7 @@ public class Run {
         if(args.length == 0)
             args = new String[]{"0", "1", "1", "-1", "2", "3", "4", "5"};
 
-        if(args.length != 8) {
+        if(args.length != 8 && args.length != 9) {
             printHelp();
             return;
         }
@@ -62,8 +72,7 @@ public class Run {
             if (S == -1)
             {
                 //Special case, these seeds are fixed for the experiments in the paper:
-                seeds = new long[] {93988, 19067, 64416, 83884, 55636, 27599, 44350, 87872, 40815,
-                        11772, 58367, 17546, 75375, 75772, 58237, 30464, 27180, 23643, 67054, 19508};
+                seeds = Types.PAPER_SEEDS;
             }else
             {
                 if(S <= 0)
@@ -122,6 +131,26 @@ public class Run {
                         p = new MCTSPlayer(seed, playerID++, mctsParams);
                         playerStr[i-4] = "MCTS";
                         break;
+                    case 6:
+                        MCTSParams ttParams = new MCTSParams();
+                        ttParams.stop_type = ttParams.STOP_ITERATIONS;
+                        ttParams.num_iterations = 200;
+                        ttParams.rollout_depth = 12;
+
+                        ttParams.heuristic_method = ttParams.CUSTOM_HEURISTIC;
+                        p = new TranspositionMCTSPlayer(seed, playerID++, ttParams);
+                        playerStr[i-4] = "MCTS-TT";
+                        break;
+                    case 7:
+                        MCTSParams ductParams = new MCTSParams();
+                        ductParams.stop_type = ductParams.STOP_ITERATIONS;
+                        ductParams.num_iterations = 200;
+                        ductParams.rollout_depth = 12;
+
+                        ductParams.heuristic_method = ductParams.CUSTOM_HEURISTIC;
+                        p = new SimultaneousMCTSPlayer(seed, playerID++, ductParams);
+                        playerStr[i-4] = "MCTS-DUCT";
+                        break;
                     default:
                         System.out.println("WARNING: Invalid agent ID: " + agentType );
                 }
@@ -151,7 +180,11 @@ public class Run {
             }
             System.out.println("]");
 
-            runGames(game, seeds, N, false);
+            int nThreads = args.length == 9 ? Integer.parseInt(args[8]) : 1;
+            if (nThreads > 1)
+                runGamesParallel(game, seeds, N, nThreads);
+            else
+                runGames(game, seeds, N, false);
         } catch(Exception e) {
             e.printStackTrace();
             printHelp();
@@ -232,9 +265,114 @@ public class Run {
         }
 
         //Done, show stats
+        printStats(g.getPlayers(), totalNgames, winCount, tieCount, lossCount, overtimeCount);
+    }
+
+    /**
+     * Runs the same games as runGames, but several at a time, on a fixed pool of threads. Each game is played on
+     * its own copy of the game and players. Players are seeded from the level seed and the repetition index, so
+     * the result of each game does not depend on the number of threads or the order in which games finish (as
+     * long as the players don't use time budgets). Per game results are printed in order once all games are done (besides the line
+     * each game prints when it ends, in completion order).
+     * Note that game logs and event statistics, if enabled, are named after the static GameLog.REP and
+     * EventsStatistics.REP counters, which are not set per game here.
+     * @param g - game to copy for each game played, with its players.
+     * @param seeds - level generation seeds.
+     * @param repetitions - games to play on each level.
+     * @param nThreads - number of games to play in parallel.
+     */
+    public static void runGamesParallel(Game g, long seeds[], int repetitions, int nThreads){
+        int numPlayers = g.getPlayers().size();
+        AtomicIntegerArray winCount = new AtomicIntegerArray(numPlayers);
+        AtomicIntegerArray tieCount = new AtomicIntegerArray(numPlayers);
+        AtomicIntegerArray lossCount = new AtomicIntegerArray(numPlayers);
+        AtomicIntegerArray overtimeCount = new AtomicIntegerArray(numPlayers);
+
+        int numSeeds = seeds.length;
+        int totalNgames = numSeeds * repetitions;
+        Types.RESULT[][] gameResults = new Types.RESULT[totalNgames][];
+        int[][] gameOvertimes = new int[totalNgames][];
+        long[] playerSeeds = new long[totalNgames];
+
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        ArrayList<Future<?>> futures = new ArrayList<>(totalNgames);
+
+        for(int s = 0; s<numSeeds; s++) {
+            long seed = seeds[s];
+
+            for (int i = 0; i < repetitions; i++) {
+                int gameIdx = s * repetitions + i;
+                long playerSeed = seed * 31 + i;
+                playerSeeds[gameIdx] = playerSeed;
+
+                futures.add(executor.submit(() -> {
+                    Game game = g.copy();
+                    game.reset(seed);
+
+                    ArrayList<Player> players = game.getPlayers();
+                    for (int p = 0; p < game.nPlayers(); p++) {
+                        players.get(p).reset(playerSeed, p + Types.TILETYPE.AGENT0.getKey());
+                    }
+                    Types.RESULT[] results = game.run(false);
+                    gameResults[gameIdx] = results;
+
+                    for (int pIdx = 0; pIdx < numPlayers; pIdx++) {
+                        switch (results[pIdx]) {
+                            case WIN:
+                                winCount.incrementAndGet(pIdx);
+                                break;
+                            case TIE:
+                                tieCount.incrementAndGet(pIdx);
+                                break;
+                            case LOSS:
+                                lossCount.incrementAndGet(pIdx);
+                                break;
+                        }
+                    }
+
+                    int[] overtimes = game.getPlayerOvertimes();
+                    gameOvertimes[gameIdx] = overtimes.clone();
+                    for(int j = 0; j < overtimes.length; ++j)
+                        overtimeCount.addAndGet(j, overtimes[j]);
+                }));
+            }
+        }
+
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int gameIdx = 0; gameIdx < totalNgames; gameIdx++) {
+            System.out.println(playerSeeds[gameIdx] + ", " + seeds[gameIdx / repetitions] + ", " + gameIdx + "/"
+                    + totalNgames + ", " + Game.resultsString(gameResults[gameIdx], gameOvertimes[gameIdx]));
+        }
+
+        //Done, show stats
+        int[] wins = new int[numPlayers], ties = new int[numPlayers], losses = new int[numPlayers];
+        int[] overtimes = new int[numPlayers];
+        for (int pIdx = 0; pIdx < numPlayers; pIdx++) {
+            wins[pIdx] = winCount.get(pIdx);
+            ties[pIdx] = tieCount.get(pIdx);
+            losses[pIdx] = lossCount.get(pIdx);
+            overtimes[pIdx] = overtimeCount.get(pIdx);
+        }
+        printStats(g.getPlayers(), totalNgames, wins, ties, losses, overtimes);
+    }
+
+    private static void printStats(ArrayList<Player> players, int totalNgames, int[] winCount, int[] tieCount,
+                                   int[] lossCount, int[] overtimeCount) {
+        int numPlayers = players.size();
         System.out.println("N \tWin \tTie \tLoss \tPlayer (overtime average)");
         for (int pIdx = 0; pIdx < numPlayers; pIdx++) {
-            String player = g.getPlayers().get(pIdx).getClass().toString().replaceFirst("class ", "");
+            String player = players.get(pIdx).getClass().toString().replaceFirst("class ", "");
 
             double winPerc = winCount[pIdx] * 100.0 / (double)totalNgames;
             double tiePerc = tieCount[pIdx] * 100.0 / (double)totalNgames;
@@ -0,0 +1,261 @@
+package core;
+
+import utils.Types;
+
+import java.util.Arrays;
+
+/**
+ * Packed representation of the board, with one bit layer per tile type. Each layer is a bitset over the cells of
+ * the board, indexed as 'y * size + x' and stored in 64-bit words, so an 11x11 board fits in two longs per layer.
+ * It mirrors the TILETYPE[][] board of a ForwardModel (which remains the public view of the board) and is kept in
+ * sync through every board write made by the model, so queries such as "which cells of this ring hold bombs,
+ * flames or agents" become a handful of word operations. Only kept on the bitboard engine (Types.BITBOARD_ENGINE),
+ * which is off by default: keeping the layers in sync costs as much as these queries save.
+ */
+final class BitBoard {
+
+    // Number of tile types, one layer each.
+    private static final int NUM_TYPES = Types.TILETYPE.values().length;
+
+    // Tile types indexed by their key, to avoid calling values() (which allocates) in hot loops.
+    private static final Types.TILETYPE[] TYPES = Types.TILETYPE.values();
+
+    // Collapse ring masks, indexed by board size and collapse stage (see ringMask()). The table and its entries are
+    // never modified once published: a new size replaces the table with an extended copy.
+    private static volatile long[][][] ringMasks = new long[0][][];
+
+    // Size of the board (size x size cells) and number of 64 bit words per layer.
+    private final int size;
+    private final int words;
+
+    // Layers, flattened: the layer of tile type t occupies words [t * words, (t+1) * words).
+    private final long[] layers;
+
+    // Tile type key at each cell, used to clear the previous layer when a cell is overwritten.
+    private final byte[] cells;
+
+    /**
+     * Creates an empty bitboard, with no bit set on any layer.
+     * @param size size of the board.
+     */
+    BitBoard(int size) {
+        this.size = size;
+        this.words = wordsFor(size);
+        this.layers = new long[NUM_TYPES * words];
+        this.cells = new byte[size * size];
+        Arrays.fill(cells, (byte) -1);
+    }
+
+    /**
+     * Creates a bitboard mirroring the given board. Null cells are left out of every layer.
+     * @param board board to mirror.
+     */
+    BitBoard(Types.TILETYPE[][] board) {
+        this(board.length);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (board[y][x] != null) {
+                    set(x, y, board[y][x]);
+                }
+            }
+        }
+    }
+
+    private BitBoard(BitBoard other) {
+        this.size = other.size;
+        this.words = other.words;
+        this.layers = other.layers.clone();
+        this.cells = other.cells.clone();
+    }
+
+    /**
+     * @return a deep copy of this bitboard.
+     */
+    BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    /**
+     * Copies this bitboard into another one of the same size.
+     */
+    void copyInto(BitBoard target) {
+        System.arraycopy(layers, 0, target.layers, 0, layers.length);
+        System.arraycopy(cells, 0, target.cells, 0, cells.length);
+    }
+
+    /**
+     * Creates a bitboard mirroring this one on the visible cells, with fog on every other cell. This is the bitboard
+     * of a board reduced to the vision range of an agent (see ForwardModel.reduce()).
+     * @param visible mask of the visible cells.
+     * @return the reduced bitboard.
+     */
+    BitBoard reduce(long[] visible) {
+        BitBoard reduced = new BitBoard(this);
+        int fog = Types.TILETYPE.FOG.getKey();
+        for (int t = 0; t < NUM_TYPES; t++) {
+            for (int w = 0; w < words; w++) {
+                reduced.layers[t * words + w] &= visible[w];
+            }
+        }
+        int n = size * size;
+        for (int w = 0; w < words; w++) {
+            long hidden = ~visible[w];
+            if (w == words - 1 && (n & 63) != 0) {
+                hidden &= (1L << n) - 1;
+            }
+            reduced.layers[fog * words + w] |= hidden;
+            for (long bits = hidden; bits != 0; bits &= bits - 1) {
+                reduced.cells[(w << 6) + Long.numberOfTrailingZeros(bits)] = (byte) fog;
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Number of 64 bit words needed to hold one bit per cell for a board of the given size.
+     */
+    static int wordsFor(int size) {
+        return (size * size + 63) >>> 6;
+    }
+
+    /**
+     * Sets the tile type of a cell, clearing it from the layer of the type it had before.
+     * @param x x coordinate of the cell.
+     * @param y y coordinate of the cell.
+     * @param type new tile type of the cell.
+     */
+    void set(int x, int y, Types.TILETYPE type) {
+        int cell = y * size + x;
+        int previous = cells[cell];
+        if (previous >= 0) {
+            layers[previous * words + (cell >>> 6)] &= ~(1L << cell);
+        }
+        int key = type.getKey();
+        layers[key * words + (cell >>> 6)] |= 1L << cell;
+        cells[cell] = (byte) key;
+    }
+
+    /**
+     * @return the tile type at the given cell, or null if it was never set.
+     */
+    Types.TILETYPE get(int x, int y) {
+        int key = cells[y * size + x];
+        return key >= 0 ? TYPES[key] : null;
+    }
+
+    /**
+     * Checks if a cell is of the given tile type.
+     */
+    boolean is(int x, int y, Types.TILETYPE type) {
+        int cell = y * size + x;
+        return (layers[type.getKey() * words + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Fills the given mask with the union of the layers of the given tile types.
+     * @param mask mask to write to, of length wordsFor(size). Previous content is overwritten.
+     * @param types tile types to include.
+     */
+    void union(long[] mask, Types.TILETYPE... types) {
+        Arrays.fill(mask, 0L);
+        for (Types.TILETYPE t : types) {
+            int offset = t.getKey() * words;
+            for (int w = 0; w < words; w++) {
+                mask[w] |= layers[offset + w];
+            }
+        }
+    }
+
+    /**
+     * @return number of cells of the given tile type.
+     */
+    int count(Types.TILETYPE type) {
+        int offset = type.getKey() * words;
+        int n = 0;
+        for (int w = 0; w < words; w++) {
+            n += Long.bitCount(layers[offset + w]);
+        }
+        return n;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /* ----- Static helpers to work with plain masks over the cells of a board ----- */
+
+    static void setBit(long[] mask, int cell) {
+        mask[cell >>> 6] |= 1L << cell;
+    }
+
+    static boolean getBit(long[] mask, int cell) {
+        return (mask[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static void and(long[] mask, long[] other) {
+        for (int w = 0; w < mask.length; w++) {
+            mask[w] &= other[w];
+        }
+    }
+
+    /**
+     * Returns the index of the first bit set in the mask at or after the given cell, or -1 if there is none.
+     */
+    static int nextSetBit(long[] mask, int from) {
+        int w = from >>> 6;
+        if (w >= mask.length) return -1;
+        long word = mask[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == mask.length) return -1;
+            word = mask[w];
+        }
+    }
+
+    /**
+     * Mask of the cells collapsed at the given stage: the square ring at distance 'stage' from the border of the
+     * board. Masks are computed once per board size, and read without locking afterwards. The returned array must
+     * not be modified.
+     * @param size size of the board.
+     * @param stage collapse stage, 0 being the outer ring.
+     * @return mask of the ring, or an empty mask if the stage goes beyond the center of the board.
+     */
+    static long[] ringMask(int size, int stage) {
+        long[][][] table = ringMasks;
+        long[][] masks = size < table.length ? table[size] : null;
+        if (masks == null)
+            masks = addRingMasks(size);
+        return masks[Math.min(stage, masks.length - 1)];
+    }
+
+    /**
+     * Computes the ring masks of a board size and publishes them in a copy of the table, unless another thread did
+     * it first.
+     * @return masks of all collapse stages, followed by an empty mask.
+     */
+    private static synchronized long[][] addRingMasks(int size) {
+        long[][][] table = ringMasks;
+        if (size < table.length && table[size] != null)
+            return table[size];
+
+        int stages = (size + 1) / 2;
+        long[][] masks = new long[stages + 1][];
+        for (int s = 0; s < stages; s++) {
+            long[] mask = new long[wordsFor(size)];
+            int min = s, max = size - s - 1;
+            for (int i = min; i <= max; i++) {
+                setBit(mask, min * size + i);
+                setBit(mask, max * size + i);
+                setBit(mask, i * size + min);
+                setBit(mask, i * size + max);
+            }
+            masks[s] = mask;
+        }
+        masks[stages] = new long[wordsFor(size)];
+
+        table = Arrays.copyOf(table, Math.max(table.length, size + 1));
+        table[size] = masks;
+        ringMasks = table;
+        return masks;
+    }
+}
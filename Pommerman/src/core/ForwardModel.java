@@ -38,6 +38,63 @@ public class ForwardModel {
     // Current bombs in the game. They explode!
     private ArrayList<GameObject> bombs;
 
+    // Types a kicked bomb can't move into on the tick it is kicked: walls and agents.
+    private static final ArrayList<Types.TILETYPE> KICK_COLLISIONS = new ArrayList<>();
+
+    // Types of the objects killed by the collapse of a ring of the board: bombs, flames and agents.
+    private static final Types.TILETYPE[] COLLAPSE_TYPES = new Types.TILETYPE[2 + MAX_PLAYERS];
+
+    static {
+        KICK_COLLISIONS.add(Types.TILETYPE.RIGID);
+        KICK_COLLISIONS.add(Types.TILETYPE.WOOD);
+        COLLAPSE_TYPES[0] = Types.TILETYPE.BOMB;
+        COLLAPSE_TYPES[1] = Types.TILETYPE.FLAMES;
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            KICK_COLLISIONS.add(Types.TILETYPE.agent(i));
+            COLLAPSE_TYPES[2 + i] = Types.TILETYPE.agent(i);
+        }
+    }
+
+    // Packed bit layers of the board, only kept when running on the bitboard engine (Types.BITBOARD_ENGINE).
+    private BitBoard bitBoard;
+
+    // Zobrist hashes of the board and of the hidden power-ups, updated on every write (see hash64()).
+    private long boardHash;
+    private long powerUpHash;
+
+    // Copy-on-write bookkeeping (see copyOnWrite()). Rows of the board and power-ups arrays, the bomb arrays, the bit
+    // layers and the flame and bomb lists may be shared with other models. Shared structures are cloned by the
+    // first model that writes to them. Copies also defer the information hiding applied to flames and bombs
+    // (see reduce()) until their lists are cloned.
+    private boolean[] boardRowShared;
+    private boolean[] powerupRowShared;
+    private boolean bombArraysShared;
+    private boolean bitBoardShared;
+    private boolean objectsShared;
+    private boolean hideSharedObjects;
+
+    // Scratch grids for the explosion step, indexed 'y * size + x' and reused across ticks: number of flames at
+    // each cell, and bombs at each cell (first bomb index per cell, chained through bombCellNext). bombPass holds
+    // the chain reaction pass in which each bomb is to be checked (see handleBombExplosions()).
+    private int[] flameCount;
+    private int[] bombCellHead;
+    private int[] bombCellNext;
+    private int[] bombPass;
+
+    // Scratch bit masks of the bitboard engine, reused across ticks: cells with flames on this tick (see
+    // handleBombExplosions()), and cells of a collapsing ring that need processing (see collapseRing()).
+    private long[] flameBits;
+    private long[] collapseBits;
+
+    // Changes made by each tick, to be able to undo them (see undo()). Null unless undo is enabled for this model.
+    // Changes are only recorded while next() runs.
+    private UndoLog undoLog;
+    private boolean recordingUndo;
+
+    // Flame and bomb objects no longer in use by this model, kept to be reused by copyInto().
+    private final ArrayList<GameObject> flamePool = new ArrayList<>();
+    private final ArrayList<GameObject> bombPool = new ArrayList<>();
+
     // Size of the board.
     private int size;
 
@@ -136,16 +193,15 @@ public class ForwardModel {
             }
         }
 
-        HashSet<TILETYPE> agentTypes = Types.TILETYPE.getAgentTypes();
         // Reduce power-ups and board arrays
         for (int x = 0; x < size; x++) {
             for (int y = 0; y < size; y++) {
-                Types.TILETYPE type = utils.Types.TILETYPE.values()[intBoard[y][x]];
+                Types.TILETYPE type = Types.TILETYPE.fromKey(intBoard[y][x]);
                 if (type == Types.TILETYPE.BOMB){
                     addBomb(x, y, bombBlastStrength[y][x], bombLife[y][x], -1, true);
                 } else if (type == Types.TILETYPE.FLAMES){
                     addFlame(x, y, FLAME_LIFE);
-                } else if (agentTypes.contains(type)){
+                } else if (Types.TILETYPE.isAgent(type)){
                     addAgent(x, y, type.getKey()-10);
                 }
 
@@ -180,6 +236,12 @@ public class ForwardModel {
     void init(long seed, int size, Types.GAME_MODE gameMode, int[][] intBoard, int[] alive) {
         flames = new ArrayList<>();
         bombs = new ArrayList<>();
+        bitBoard = null;
+        clearSharing();
+        if (undoLog != null)
+            undoLog.clear();
+        boardHash = 0;
+        powerUpHash = 0;
 
         boolean noBoard = false;
         if (intBoard == null) {
@@ -193,10 +255,9 @@ public class ForwardModel {
         bombBlastStrength = new int[size][size];
         bombLife = new int[size][size];
 
-        HashSet<Types.TILETYPE> agentTypes = Types.TILETYPE.getAgentTypes();
-        agents = new GameObject[agentTypes.size()];
-        for (Types.TILETYPE type : agentTypes) {
-            agents[type.getKey() - Types.TILETYPE.AGENT0.getKey()] = new Avatar(type.getKey(), gameMode);
+        agents = new GameObject[NUM_PLAYERS];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = new Avatar(Types.TILETYPE.AGENT0.getKey() + i, gameMode);
         }
 
         for (GameObject agent : agents){
@@ -219,9 +280,12 @@ public class ForwardModel {
         else
             generateBoard(intBoard, seed);
 
+        if (BITBOARD_ENGINE)
+            bitBoard = new BitBoard(board);
+
         if(trueModel && LOGGING_STATISTICS){
             tick = 0;
-            isAgentStuck = new boolean[]{false, false, false, false};
+            isAgentStuck = new boolean[NUM_PLAYERS];
             es = new EventsStatistics();
         }
     }
@@ -244,6 +308,9 @@ public class ForwardModel {
     ArrayList<GameObject> getAliveAgents() {
         return aliveAgents;
     }
+    BitBoard getBitBoard() {
+        return bitBoard;
+    }
 
     /**
      * Creates a copy of this model
@@ -256,6 +323,263 @@ public class ForwardModel {
         return copy;
     }
 
+    /**
+     * Creates a copy-on-write copy of this model. The copy shares the rows of the board and power-up arrays, the
+     * bomb arrays, the bit layers and the flame and bomb lists with this model, and only the agents are copied
+     * straight away. Any of the shared structures is cloned by whichever model (this one or the copy) modifies it
+     * first, normally inside next(). The copy is equal to copy(-1). This model must not be modified from another
+     * thread while the copy is made. If this model has ticks that may be undone, undo() restores flame and bomb
+     * objects in place, so these are copied straight away instead of shared.
+     * @return a copy-on-write copy of this model.
+     */
+    ForwardModel copyOnWrite() {
+        ForwardModel copy = new ForwardModel(size, game_mode);
+        copy.trueModel = false;
+        boolean shareObjects = undoLog == null || undoLog.depth() == 0;
+
+        if (boardRowShared == null) {
+            boardRowShared = new boolean[size];
+            powerupRowShared = new boolean[size];
+        }
+        Arrays.fill(boardRowShared, true);
+        Arrays.fill(powerupRowShared, true);
+        bombArraysShared = true;
+        bitBoardShared = bitBoard != null;
+        objectsShared |= shareObjects;
+
+        copy.board = board.clone();
+        copy.powerups = powerups.clone();
+        copy.boardRowShared = boardRowShared.clone();
+        copy.powerupRowShared = powerupRowShared.clone();
+        copy.bombBlastStrength = bombBlastStrength;
+        copy.bombLife = bombLife;
+        copy.bombArraysShared = true;
+        copy.bitBoard = bitBoard;
+        copy.bitBoardShared = bitBoardShared;
+        if (shareObjects) {
+            copy.flames = flames;
+            copy.bombs = bombs;
+            copy.objectsShared = true;
+            copy.hideSharedObjects = true;
+        } else {
+            copy.flames = new ArrayList<>(flames.size());
+            copy.bombs = new ArrayList<>(bombs.size());
+            _reduceHiddenList(flames, copy.flames, null, -1);
+            _reduceHiddenList(bombs, copy.bombs, null, -1);
+        }
+
+        copy.agents = deepCopy(agents);
+        copy.aliveAgents = findAliveAgents(copy.agents);
+        copy.boardHash = boardHash;
+        copy.powerUpHash = powerUpHash;
+        return copy;
+    }
+
+    /**
+     * Forgets any structure shared with other models, without cloning it. Used when the structures are about to be
+     * replaced.
+     */
+    private void clearSharing() {
+        boardRowShared = null;
+        powerupRowShared = null;
+        bombArraysShared = false;
+        bitBoardShared = false;
+        objectsShared = false;
+        hideSharedObjects = false;
+    }
+
+    /**
+     * Clones the given board row if it is shared with another model.
+     */
+    private void ownBoardRow(int y) {
+        if (boardRowShared != null && boardRowShared[y]) {
+            board[y] = board[y].clone();
+            boardRowShared[y] = false;
+        }
+    }
+
+    /**
+     * Clones the given power-ups row if it is shared with another model.
+     */
+    private void ownPowerUpRow(int y) {
+        if (powerupRowShared != null && powerupRowShared[y]) {
+            powerups[y] = powerups[y].clone();
+            powerupRowShared[y] = false;
+        }
+    }
+
+    /**
+     * Clones the bit layers if they are shared with another model.
+     */
+    private void ownBitBoard() {
+        if (bitBoardShared) {
+            bitBoard = bitBoard.copy();
+            bitBoardShared = false;
+        }
+    }
+
+    /**
+     * Clones the bomb blast strength and life arrays if they are shared with another model.
+     */
+    private void ownBombArrays() {
+        if (bombArraysShared) {
+            int[][] blast = new int[size][], life = new int[size][];
+            for (int y = 0; y < size; y++) {
+                blast[y] = bombBlastStrength[y].clone();
+                life[y] = bombLife[y].clone();
+            }
+            bombBlastStrength = blast;
+            bombLife = life;
+            bombArraysShared = false;
+        }
+    }
+
+    /**
+     * Clones the lists of flames and bombs (and the objects in them) if they are shared with another model.
+     */
+    private void ownObjects() {
+        if (objectsShared) {
+            ArrayList<GameObject> sharedFlames = flames, sharedBombs = bombs;
+            flames = new ArrayList<>(sharedFlames.size());
+            bombs = new ArrayList<>(sharedBombs.size());
+            if (hideSharedObjects) {
+                _reduceHiddenList(sharedFlames, flames, null, -1);
+                _reduceHiddenList(sharedBombs, bombs, null, -1);
+            } else {
+                for (GameObject f : sharedFlames) flames.add(f.copy());
+                for (GameObject b : sharedBombs) bombs.add(b.copy());
+            }
+            objectsShared = false;
+            hideSharedObjects = false;
+        }
+    }
+
+    /**
+     * Copies this model into another one, reusing the arrays, lists and game objects of the target instead of
+     * allocating new ones. The result is equal to copy(-1), and the target must not be the true model of the game.
+     * @param target model to copy into. Anything it held before is overwritten.
+     */
+    void copyInto(ForwardModel target) {
+        // Structures the target shares with other models can't be overwritten in place
+        if (target.boardRowShared != null) {
+            target.board = null;
+            target.powerups = null;
+        }
+        if (target.bombArraysShared)
+            target.bombBlastStrength = null;
+        if (target.bitBoardShared)
+            target.bitBoard = null;
+        if (target.objectsShared) {
+            target.flames = null;
+            target.bombs = null;
+        }
+        target.clearSharing();
+        if (target.undoLog != null)
+            target.undoLog.clear();
+
+        target.trueModel = false;
+        target.game_mode = game_mode;
+        target.size = size;
+
+        target.board = copyBoard(board, target.board);
+        target.powerups = copyBoard(powerups, target.powerups);
+        target.boardHash = boardHash;
+        target.powerUpHash = powerUpHash;
+
+        // Agents are copied into the target's own avatars
+        if (target.agents == null || target.agents.length != agents.length) {
+            target.agents = deepCopy(agents);
+        } else {
+            for (int i = 0; i < agents.length; i++) {
+                agents[i].copyInto(target.agents[i]);
+            }
+        }
+        if (target.aliveAgents == null)
+            target.aliveAgents = new ArrayList<>(agents.length);
+        target.aliveAgents.clear();
+        for (GameObject a : target.agents) {
+            if (((Avatar) a).getWinner() == RESULT.INCOMPLETE) {
+                target.aliveAgents.add(a);
+            }
+        }
+
+        // Flames and bombs, with the same information hiding as reduce() applies to copies
+        if (target.flames == null)
+            target.flames = new ArrayList<>();
+        if (target.bombs == null)
+            target.bombs = new ArrayList<>();
+        copyList(flames, target.flames, target.flamePool);
+        copyList(bombs, target.bombs, target.bombPool);
+        for (GameObject f : target.flames) {
+            f.setLife(FLAME_LIFE);
+        }
+
+        if (target.bombBlastStrength == null || target.bombBlastStrength.length != size) {
+            target.bombBlastStrength = new int[size][size];
+            target.bombLife = new int[size][size];
+        } else {
+            for (int y = 0; y < size; y++) {
+                Arrays.fill(target.bombBlastStrength[y], 0);
+                Arrays.fill(target.bombLife[y], 0);
+            }
+        }
+        for (GameObject bombObject : target.bombs) {
+            Bomb bomb = (Bomb) bombObject;
+            bomb.setVelocity(Vector2d.of(0, 0));
+            bomb.setPlayerIdx(-1);
+            Vector2d position = bomb.getPosition();
+            target.bombBlastStrength[position.y][position.x] = bomb.getBlastStrength();
+            target.bombLife[position.y][position.x] = bomb.getLife();
+        }
+
+        if (bitBoard == null) {
+            target.bitBoard = null;
+        } else if (target.bitBoard == null || target.bitBoard.getSize() != size) {
+            target.bitBoard = bitBoard.copy();
+        } else {
+            bitBoard.copyInto(target.bitBoard);
+        }
+    }
+
+    /**
+     * Copies a board into another one of the same size, or into a new one if the target can't be reused.
+     */
+    private static Types.TILETYPE[][] copyBoard(Types.TILETYPE[][] source, Types.TILETYPE[][] target) {
+        if (target == null || target.length != source.length) {
+            target = new Types.TILETYPE[source.length][source.length];
+        }
+        for (int i = 0; i < source.length; i++) {
+            System.arraycopy(source[i], 0, target[i], 0, source[i].length);
+        }
+        return target;
+    }
+
+    /**
+     * Copies a list of game objects into another list, reusing the objects in it. Objects left over in the target
+     * are kept in the given spare list, so they can be reused by later copies.
+     * @param source list to copy from.
+     * @param target list to copy into.
+     * @param spare spare objects available for reuse, of the same class as those in the source list.
+     */
+    private static void copyList(ArrayList<GameObject> source, ArrayList<GameObject> target,
+                                 ArrayList<GameObject> spare) {
+        while (target.size() > source.size()) {
+            spare.add(target.remove(target.size() - 1));
+        }
+        for (int i = 0; i < source.size(); i++) {
+            GameObject original = source.get(i);
+            if (i < target.size()) {
+                original.copyInto(target.get(i));
+            } else if (!spare.isEmpty()) {
+                GameObject copy = spare.remove(spare.size() - 1);
+                original.copyInto(copy);
+                target.add(copy);
+            } else {
+                target.add(original.copy());
+            }
+        }
+    }
+
     /**
      * ROLLS the MODEL FORWARD, applying the actions received as parameters,
      * and executing all passive events
@@ -268,6 +592,16 @@ public class ForwardModel {
             System.out.println();
         }
 
+        // Flames and bombs are modified on every tick, so take ownership of them if shared with another model
+        ownObjects();
+
+        // Record the state at the start of this tick, so that it can be undone
+        if (undoLog != null) {
+            undoLog.push(boardHash, powerUpHash, bombBlastStrength, bombLife, bombArraysShared,
+                    flames, bombs, agents, aliveAgents);
+            recordingUndo = true;
+        }
+
         // 1. Put actions into effect
         translatePlayerActions(playerActions);
 
@@ -295,7 +629,7 @@ public class ForwardModel {
 
             // Wrap around board size, don't let bombs outside of game area, check collisions with walls.
             if (!setDesiredCoordinate(b, b.getDesiredCoordinate(), board))
-                ((Bomb)b).setVelocity(new Vector2d());
+                ((Bomb)b).setVelocity(Vector2d.of(0, 0));
         }
 
         // 5. Position swap:
@@ -343,8 +677,13 @@ public class ForwardModel {
             }
         }
 
-        // 10. Explode bombs
-        HashMap<Vector2d, Integer> flameOccupancy = handleBombExplosions();
+        // 10. Explode bombs. The bitboard engine tracks flame positions in a bit mask instead of a map.
+        long[] flameMask = null;
+        if (bitBoard != null) {
+            flameMask = flameBits = scratchMask(flameBits);
+            Arrays.fill(flameMask, 0L);
+        }
+        handleBombExplosions(flameMask);
 
         // 11. Resolve flame on death effects
         for (GameObject f : deadFlames) {
@@ -354,11 +693,11 @@ public class ForwardModel {
 
                 // If there is a power-up at that position, add it to the board
                 if (powerups[y][x] != null) {
-                    board[y][x] = powerups[y][x];
-                    powerups[y][x] = null;
+                    setTile(x, y, powerups[y][x]);
+                    setPowerUp(x, y, null);
                     // If no power-up, add a passage to the board
                 } else {
-                    board[y][x] = Types.TILETYPE.PASSAGE;
+                    setTile(x, y, Types.TILETYPE.PASSAGE);
                 }
             }
         }
@@ -371,12 +710,12 @@ public class ForwardModel {
             int y = f.getDesiredCoordinate().y;
             if (board[y][x] != Types.TILETYPE.FLAMES) {
                 f.setPosition(f.getDesiredCoordinate());
-                board[y][x] = f.getType();
+                setTile(x, y, f.getType());
             }
         }
 
         // 13. Kill agents on flames. Otherwise, update position on board.
-        ArrayList<GameObject> deadAgentsThisTick = handleAgentKilling(flameOccupancy);
+        ArrayList<GameObject> deadAgentsThisTick = handleAgentKilling(flameMask);
 
         // 14. Check for terminated agents
         if(deadAgentsThisTick.size() > 0) {
@@ -386,6 +725,7 @@ public class ForwardModel {
         // 15. Update observable board grids of item types, bomb blast strengths, bomb lives
         bombBlastStrength = new int[size][size];
         bombLife = new int[size][size];
+        bombArraysShared = false;
 
         for(GameObject bombObject : bombs){
             Bomb bomb = (Bomb) bombObject;
@@ -405,14 +745,18 @@ public class ForwardModel {
 
                 ArrayList<GameObject> collapsedAgents = new ArrayList<>();
 
-                for (int x = ring_min; x <= ring_max; x++) {
-                    if (x == ring_min || x == ring_max) {
-                        for (int y = ring_min + 1; y <= ring_max - 1; y++) {
-                            collapseTile(x, y, collapsedAgents);
+                if (bitBoard != null) {
+                    collapseRing(ring_min, ring_max, collapsedAgents);
+                } else {
+                    for (int x = ring_min; x <= ring_max; x++) {
+                        if (x == ring_min || x == ring_max) {
+                            for (int y = ring_min + 1; y <= ring_max - 1; y++) {
+                                collapseTile(x, y, collapsedAgents);
+                            }
                         }
+                        collapseTile(x, ring_min, collapsedAgents);
+                        collapseTile(x, ring_max, collapsedAgents);
                     }
-                    collapseTile(x, ring_min, collapsedAgents);
-                    collapseTile(x, ring_max, collapsedAgents);
                 }
 
                 // Kill agents.
@@ -437,6 +781,70 @@ public class ForwardModel {
             }
             tick++;
         }
+
+        recordingUndo = false;
+    }
+
+    /**
+     * Enables or disables undo() for this model. While enabled, every call to next() records the changes it makes,
+     * until they are undone or the model is overwritten (by init() or by copying another model into it). Disabling
+     * undo discards all recorded ticks. Copies of this model never record ticks.
+     * @param enabled true to record ticks so that they can be undone.
+     */
+    void setUndoEnabled(boolean enabled) {
+        if (enabled && undoLog == null) {
+            undoLog = new UndoLog();
+        } else if (!enabled) {
+            undoLog = null;
+        }
+    }
+
+    /**
+     * @return number of ticks that can be undone.
+     */
+    int undoDepth() {
+        return undoLog == null ? 0 : undoLog.depth();
+    }
+
+    /**
+     * Rolls the model back to the state it had before the last recorded call to next(). The result is equal to the
+     * model as it was then. Event statistics of the true model are not rolled back.
+     * @return true if a tick was undone, false if there was none to undo.
+     */
+    boolean undo() {
+        if (undoLog == null || undoLog.depth() == 0)
+            return false;
+
+        // Cells are restored in the reverse order they were written, ending with the value they had at the start
+        for (int i = undoLog.cellCount() - 1; i >= undoLog.firstCell(); i--) {
+            int cell = undoLog.cell(i);
+            Types.TILETYPE type = undoLog.cellType(i);
+            if (cell >= 0) {
+                int x = cell % size, y = cell / size;
+                ownBoardRow(y);
+                board[y][x] = type;
+                if (bitBoard != null) {
+                    ownBitBoard();
+                    bitBoard.set(x, y, type);
+                }
+            } else {
+                cell = ~cell;
+                int y = cell / size;
+                ownPowerUpRow(y);
+                powerups[y][cell % size] = type;
+            }
+        }
+        boardHash = undoLog.boardHash();
+        powerUpHash = undoLog.powerUpHash();
+
+        // The bomb arrays of the previous tick were replaced, not modified, by next()
+        bombBlastStrength = undoLog.bombBlastStrength();
+        bombLife = undoLog.bombLife();
+        bombArraysShared = undoLog.bombArraysShared();
+
+        undoLog.restoreObjects(flames, bombs, agents, aliveAgents);
+        undoLog.pop();
+        return true;
     }
 
     private void collapseTile(int x, int y, ArrayList<GameObject> collapsedAgents){
@@ -445,7 +853,7 @@ public class ForwardModel {
         Types.TILETYPE tiletype = board[y][x];
 
         if(tiletype == Types.TILETYPE.BOMB){
-            Vector2d pos = new Vector2d(x, y);
+            Vector2d pos = Vector2d.of(x, y);
             ArrayList<GameObject> gos = findObjectInList(pos, bombs);
             for (GameObject go: gos) {
                 bombs.remove(go);
@@ -459,24 +867,159 @@ public class ForwardModel {
             bombBlastStrength[y][x] = 0;
         }
         else if(tiletype == Types.TILETYPE.FLAMES){
-            Vector2d pos = new Vector2d(x, y);
+            Vector2d pos = Vector2d.of(x, y);
             ArrayList<GameObject> gos = findObjectInList(pos, flames);
             for (GameObject go: gos) {
                 flames.remove(go);
             }
         }
-        else if(tiletype == Types.TILETYPE.AGENT0 ||
-                tiletype == Types.TILETYPE.AGENT1 ||
-                tiletype == Types.TILETYPE.AGENT2 ||
-                tiletype == Types.TILETYPE.AGENT3){
+        else if(Types.TILETYPE.isAgent(tiletype)){
 
-            Vector2d pos = new Vector2d(x, y);
+            Vector2d pos = Vector2d.of(x, y);
             ArrayList<GameObject> gos = findObjectInList(pos, aliveAgents);
             for (GameObject go: gos) {
                 collapsedAgents.add(go);
             }
         }
-        board[y][x] = Types.TILETYPE.RIGID;
+        setTile(x, y, Types.TILETYPE.RIGID);
+    }
+
+    /**
+     * Sets the tile type of a position in the board. All writes to the board made by the model go through here, so
+     * that the bit layers of the bitboard engine are kept in sync with it.
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @param type new type of the tile
+     */
+    private void setTile(int x, int y, Types.TILETYPE type) {
+        ownBoardRow(y);
+        int cell = y * size + x;
+        if (recordingUndo)
+            undoLog.tile(cell, board[y][x]);
+        boardHash ^= Zobrist.tile(cell, board[y][x]) ^ Zobrist.tile(cell, type);
+        board[y][x] = type;
+        if (bitBoard != null) {
+            ownBitBoard();
+            bitBoard.set(x, y, type);
+        }
+    }
+
+    /**
+     * Sets the hidden power-up at a position of the board. All writes to the power-ups array go through here.
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @param type power-up type, or null for no power-up
+     */
+    private void setPowerUp(int x, int y, Types.TILETYPE type) {
+        ownPowerUpRow(y);
+        int cell = y * size + x;
+        if (recordingUndo)
+            undoLog.powerUp(cell, powerups[y][x]);
+        powerUpHash ^= Zobrist.powerUp(cell, powerups[y][x]) ^ Zobrist.powerUp(cell, type);
+        powerups[y][x] = type;
+    }
+
+    /**
+     * XOR of the hash keys of the board tiles in the cross reached by an explosion at (x, y).
+     * @param reach number of tiles reached in each direction, not counting the center.
+     */
+    private long crossHash(int x, int y, int reach) {
+        long h = Zobrist.tile(y * size + x, board[y][x]);
+        for (int i = 1; i <= reach; i++) {
+            if (x + i < size) h ^= Zobrist.tile(y * size + x + i, board[y][x + i]);
+            if (x - i >= 0) h ^= Zobrist.tile(y * size + x - i, board[y][x - i]);
+            if (y + i < size) h ^= Zobrist.tile((y + i) * size + x, board[y + i][x]);
+            if (y - i >= 0) h ^= Zobrist.tile((y - i) * size + x, board[y - i][x]);
+        }
+        return h;
+    }
+
+    /**
+     * Records the board tiles in the cross reached by an explosion at (x, y) in the undo log, as the bomb writes its
+     * flames straight into the board.
+     * @param reach number of tiles reached in each direction, not counting the center.
+     */
+    private void recordCross(int x, int y, int reach) {
+        undoLog.tile(y * size + x, board[y][x]);
+        for (int i = 1; i <= reach; i++) {
+            if (x + i < size) undoLog.tile(y * size + x + i, board[y][x + i]);
+            if (x - i >= 0) undoLog.tile(y * size + x - i, board[y][x - i]);
+            if (y + i < size) undoLog.tile((y + i) * size + x, board[y + i][x]);
+            if (y - i >= 0) undoLog.tile((y - i) * size + x, board[y - i][x]);
+        }
+    }
+
+    /**
+     * Recomputes the board and power-up hashes from scratch. Needed after filling the board without setTile().
+     */
+    void recomputeHashes() {
+        boardHash = 0;
+        powerUpHash = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boardHash ^= Zobrist.tile(y * size + x, board[y][x]);
+                powerUpHash ^= Zobrist.powerUp(y * size + x, powerups[y][x]);
+            }
+        }
+    }
+
+    /**
+     * 64-bit Zobrist hash of this model: board tiles, hidden power-ups, bombs (position, life, blast strength and
+     * velocity) and agents (position, ammo, kick, blast strength and game result). The board and power-up terms are
+     * maintained incrementally on every write; bomb and agent terms are folded in here, as bomb lives change on
+     * every tick anyway. Equal models have equal hashes.
+     * @return hash of this model.
+     */
+    long hash64() {
+        long h = boardHash ^ powerUpHash;
+        for (GameObject o : bombs) {
+            Bomb b = (Bomb) o;
+            Vector2d pos = b.getPosition();
+            Vector2d vel = b.getVelocity();
+            // Velocities of bombs shared with a copy are hidden from it (see reduce())
+            int vx = hideSharedObjects ? 0 : vel.x;
+            int vy = hideSharedObjects ? 0 : vel.y;
+            h ^= Zobrist.bomb(pos.y * size + pos.x, b.getLife(), b.getBlastStrength(), vx, vy);
+        }
+        for (int i = 0; i < agents.length; i++) {
+            Avatar a = (Avatar) agents[i];
+            Vector2d pos = a.getPosition();
+            int cell = pos == null ? -1 : pos.y * size + pos.x;
+            h ^= Zobrist.agent(i, cell, a.getAmmo(), a.canKick(), a.getBlastStrength(), a.getWinner());
+        }
+        return h;
+    }
+
+    /**
+     * Collapses a ring of the board using the bit layers: only tiles holding bombs, flames or agents need any
+     * processing beyond becoming a wall.
+     * @param ring_min first row and column of the ring
+     * @param ring_max last row and column of the ring
+     * @param collapsedAgents list of agents killed by the collapse, to be filled in
+     */
+    private void collapseRing(int ring_min, int ring_max, ArrayList<GameObject> collapsedAgents) {
+        long[] occupied = collapseBits = scratchMask(collapseBits);
+        bitBoard.union(occupied, COLLAPSE_TYPES);
+        BitBoard.and(occupied, BitBoard.ringMask(size, ring_min));
+
+        for (int cell = BitBoard.nextSetBit(occupied, 0); cell >= 0; cell = BitBoard.nextSetBit(occupied, cell + 1)) {
+            collapseTile(cell % size, cell / size, collapsedAgents);
+        }
+
+        for (int i = ring_min; i <= ring_max; i++) {
+            setTile(i, ring_min, Types.TILETYPE.RIGID);
+            setTile(i, ring_max, Types.TILETYPE.RIGID);
+            setTile(ring_min, i, Types.TILETYPE.RIGID);
+            setTile(ring_max, i, Types.TILETYPE.RIGID);
+        }
+    }
+
+    /**
+     * @return the given scratch mask, or a new one if it is null or does not fit the board.
+     */
+    private long[] scratchMask(long[] mask) {
+        int words = BitBoard.wordsFor(size);
+        return mask != null && mask.length == words ? mask : new long[words];
     }
 
     /**
@@ -491,7 +1034,7 @@ public class ForwardModel {
 
 
                     if (b.getDesiredCoordinate().equals(b.getPosition())) {
-                        ((Bomb) b).setVelocity(new Vector2d());
+                        ((Bomb) b).setVelocity(Vector2d.of(0, 0));
                     }
                     if (p.getDesiredCoordinate().equals(b.getDesiredCoordinate())) {
                         // Agent tried to move onto bomb OR bomb tried to move onto agent, check if agent can kick
@@ -502,11 +1045,6 @@ public class ForwardModel {
 
                             // First bomb move on the same tick as the kick happened. Do not move into players or walls.
                             // If bomb couldn't move, reset its velocity
-                            ArrayList<Types.TILETYPE> collisions = new ArrayList<>();
-                            collisions.add(Types.TILETYPE.RIGID);
-                            collisions.add(Types.TILETYPE.WOOD);
-                            collisions.addAll(Types.TILETYPE.getAgentTypes());
-
                             if (velocity.mag() == 0) {
                                 // They can be on same position only if agent just dropped bomb
                                 // Move agent back if they moved & the bomb didn't move when the kick was attempted
@@ -517,8 +1055,8 @@ public class ForwardModel {
                                     setDesiredCoordinate(p, p.getPosition(), board);
                                 }
                             } else {
-                                if (!setDesiredCoordinate(b, b.getDesiredCoordinate().add(velocity), board, collisions)) {
-                                    ((Bomb) b).setVelocity(new Vector2d());
+                                if (!setDesiredCoordinate(b, b.getDesiredCoordinate().add(velocity), board, KICK_COLLISIONS)) {
+                                    ((Bomb) b).setVelocity(Vector2d.of(0, 0));
                                 }
                             }
                         } else {
@@ -544,25 +1082,61 @@ public class ForwardModel {
 
     /**
      * Handles bomb explosions, creating the flame objects that destroy things.
-     * @return the set of positions occupied by flames.
+     * Bombs explode when their life reaches 0, or when a flame reaches them, which may chain into further
+     * explosions. Bombs are checked in passes over the bomb list: the first pass checks all bombs, in order. A bomb
+     * reached by a flame is checked again later in the same pass if it comes after the bomb that exploded, or in
+     * the next pass otherwise. Bombs are found through a grid of cell indices, so only the bombs actually reached
+     * by flames are checked again.
+     * @param flameMask if not null, flame positions are marked in this mask instead of being counted in the
+     *                  flameCount grid.
      */
-    private HashMap<Vector2d, Integer> handleBombExplosions()
+    private void handleBombExplosions(long[] flameMask)
     {
-        boolean newExplosions = true;
+        int cells = size * size;
+        if (flameCount == null || flameCount.length != cells) {
+            flameCount = new int[cells];
+            bombCellHead = new int[cells];
+        }
+        int nBombs = bombs.size();
+        if (bombCellNext == null || bombCellNext.length < nBombs) {
+            bombCellNext = new int[Math.max(nBombs, 16)];
+            bombPass = new int[bombCellNext.length];
+        }
 
         // Get positions of flames
-        HashMap<Vector2d, Integer> flameOccupancy = checkOccupancy(flames);
+        if (flameMask != null) {
+            markFlames(flames, flameMask);
+        } else {
+            Arrays.fill(flameCount, 0);
+            countFlames(flames);
+        }
 
-        while (newExplosions) {
-            // Use this flag to chain explosions. If new flames are added, then we need to check all bombs again
-            newExplosions = false;
+        // Bombs at each cell, all to be checked in the first pass. Chained in reverse, so that the chain of a cell
+        // lists its bombs in order.
+        Arrays.fill(bombCellHead, -1);
+        for (int i = nBombs - 1; i >= 0; i--) {
+            Vector2d pos = bombs.get(i).getPosition();
+            int cell = pos.y * size + pos.x;
+            bombCellNext[i] = bombCellHead[cell];
+            bombCellHead[cell] = i;
+            bombPass[i] = 1;
+        }
+
+        ArrayList<GameObject> deadBombs = null;
+        int pass = 1;
+        boolean nextPass = nBombs > 0;
+        while (nextPass) {
+            nextPass = false;
 
-            ArrayList<GameObject> deadBombs = new ArrayList<>();
-            for (GameObject b : bombs) {
+            for (int i = 0; i < nBombs; i++) {
+                if (bombPass[i] != pass) {
+                    continue;
+                }
+                bombPass[i] = 0;
+                GameObject b = bombs.get(i);
 
                 // Force this bomb to explode if there is a flame at this position.
-                boolean forceExplosion = false;
-                if (flameOccupancy.get(b.getPosition()) != null) forceExplosion = true;
+                boolean forceExplosion = isFlameAt(b.getPosition(), flameMask);
 
                 // Find the flame owners who triggered the explosion
                 if(trueModel && LOGGING_STATISTICS) {
@@ -591,15 +1165,36 @@ public class ForwardModel {
 
                 // TODO: Wood removals happen here, but within Bomb class, what's the best way of doing this? (to count them)
 
-                // This bomb will explode and create new flames if life reached 0, or forced to explode
+                // This bomb will explode and create new flames if life reached 0, or forced to explode.
+                if (b.getLife() != 0 && !forceExplosion) {
+                    continue;
+                }
+
+                // Flames are written straight into the board by the bomb, so take ownership of the rows it reaches,
+                // and take the tiles it reaches out of the board hash until they are updated.
+                int reach = ((Bomb) b).getBlastStrength() - 1;
+                if (boardRowShared != null) {
+                    int fromRow = Math.max(0, b.getPosition().y - reach);
+                    int toRow = Math.min(size - 1, b.getPosition().y + reach);
+                    for (int y = fromRow; y <= toRow; y++) {
+                        ownBoardRow(y);
+                    }
+                }
+                boardHash ^= crossHash(b.getPosition().x, b.getPosition().y, reach);
+                if (recordingUndo)
+                    recordCross(b.getPosition().x, b.getPosition().y, reach);
                 ArrayList<GameObject> newFlames = ((Bomb) b).explode(forceExplosion, board, powerups);
+                boardHash ^= crossHash(b.getPosition().x, b.getPosition().y, reach);
+
                 if (newFlames != null && newFlames.size() > 0) {
 
                     flames.addAll(newFlames);
-                    newExplosions = true;
 
                     // Remove this bomb from the list of bombs
+                    if (deadBombs == null)
+                        deadBombs = new ArrayList<>();
                     deadBombs.add(b);
+                    bombPass[i] = -1;
 
                     // Give the player 1 ammo back for this bomb
                     int pIdx = ((Bomb) b).getPlayerIdx();
@@ -607,32 +1202,86 @@ public class ForwardModel {
                         ((Avatar)agents[pIdx]).addAmmo();
                     }
 
-                    // Add new flame positions to the map
-                    HashMap<Vector2d, Integer> newOccupancy = checkOccupancy(newFlames);
-                    for (Map.Entry<Vector2d, Integer> e : newOccupancy.entrySet()) {
-                        flameOccupancy.merge(e.getKey(), e.getValue(), (a, b1) -> b1 + a);
+                    // Add new flame positions
+                    if (flameMask != null) {
+                        markFlames(newFlames, flameMask);
+                        // Flames were written straight into the board by the bomb, mirror them in the bit layers
+                        ownBitBoard();
+                        for (GameObject f : newFlames) {
+                            bitBoard.set(f.getPosition().x, f.getPosition().y, Types.TILETYPE.FLAMES);
+                        }
+                    } else {
+                        countFlames(newFlames);
+                    }
+
+                    // Bombs reached by the new flames are checked again
+                    for (GameObject f : newFlames) {
+                        Vector2d pos = f.getDesiredCoordinate();
+                        for (int j = bombCellHead[pos.y * size + pos.x]; j >= 0; j = bombCellNext[j]) {
+                            if (bombPass[j] < 0 || bombPass[j] == pass) {
+                                continue;
+                            }
+                            if (j > i) {
+                                bombPass[j] = pass;
+                            } else {
+                                bombPass[j] = pass + 1;
+                                nextPass = true;
+                            }
+                        }
                     }
                 }
             }
+            pass++;
+        }
+
+        if (deadBombs != null)
             bombs.removeAll(deadBombs);
+    }
+
+    /**
+     * Marks the desired coordinates of the given flames in a bit mask of the board.
+     */
+    private void markFlames(ArrayList<GameObject> flameList, long[] flameMask) {
+        for (GameObject f : flameList) {
+            Vector2d pos = f.getDesiredCoordinate();
+            BitBoard.setBit(flameMask, pos.y * size + pos.x);
+        }
+    }
+
+    /**
+     * Counts the desired coordinates of the given flames in the flameCount grid.
+     */
+    private void countFlames(ArrayList<GameObject> flameList) {
+        for (GameObject f : flameList) {
+            Vector2d pos = f.getDesiredCoordinate();
+            flameCount[pos.y * size + pos.x]++;
         }
+    }
 
-        return flameOccupancy;
+    /**
+     * Checks if there is a flame at the given position, using the flame mask if available, or the flameCount grid
+     * otherwise.
+     */
+    private boolean isFlameAt(Vector2d pos, long[] flameMask) {
+        if (flameMask != null)
+            return BitBoard.getBit(flameMask, pos.y * size + pos.x);
+        return flameCount[pos.y * size + pos.x] > 0;
     }
 
     /**
      * Handles killing agents with flames in the board.
-     * @param flameOccupancy location of the flames on this tick.
+     * @param flameMask location of the flames on this tick, as a bit mask (bitboard engine only). If null, the
+     *                  flameCount grid is used.
      * @return list of agents killed on this tick
      */
-    private ArrayList<GameObject> handleAgentKilling(HashMap<Vector2d, Integer> flameOccupancy)
+    private ArrayList<GameObject> handleAgentKilling(long[] flameMask)
     {
         ArrayList<GameObject> deadAgentsThisTick = new ArrayList<>();
         for (GameObject p : aliveAgents) {
             Vector2d nextPos = p.getDesiredCoordinate();
             Vector2d currPos = p.getPosition();
 
-            if (nextPos != null && currPos != null && flameOccupancy.containsKey(nextPos)) {
+            if (nextPos != null && currPos != null && isFlameAt(nextPos, flameMask)) {
                 // This agent was killed by a flame, remove from list
                 p.setLife(0);
                 deadAgentsThisTick.add(p);
@@ -666,7 +1315,7 @@ public class ForwardModel {
 
                 if (board[currPos.y][currPos.x] != Types.TILETYPE.BOMB
                         && board[currPos.y][currPos.x] != Types.TILETYPE.FLAMES) {
-                    board[currPos.y][currPos.x] = Types.TILETYPE.PASSAGE;
+                    setTile(currPos.x, currPos.y, Types.TILETYPE.PASSAGE);
                 }
             } else {
                 move(p);
@@ -698,42 +1347,39 @@ public class ForwardModel {
                     }
                     o.setPosition(nextPos.copy());
 
-                    HashSet<Types.TILETYPE> powerUpTypes = Types.TILETYPE.getPowerUpTypes();
-                    HashSet<Types.TILETYPE> agentTypes = TILETYPE.getAgentTypes();
-
-                    // Set up sprites that cannot be replaced with a passage when current sprite moves from its square.
-                    HashSet<Types.TILETYPE> illegalOverwriteTypes = new HashSet<>(powerUpTypes);
-                    illegalOverwriteTypes.add(Types.TILETYPE.FLAMES);  // We don't remove flames
-                    illegalOverwriteTypes.addAll(agentTypes);  // We don't remove other agents...
-                    illegalOverwriteTypes.remove(o.getType()); // Unless this agent is the current object
-
-                    // Bombs don't leave traces of bombs behind them, and other sprites do not remove bombs from the board
-                    if (o.getType() != Types.TILETYPE.BOMB) {
-                        illegalOverwriteTypes.add(Types.TILETYPE.BOMB);
-                    } else {
+                    if (o.getType() == Types.TILETYPE.BOMB) {
                         // Check if next is a powerup, we should put it back in the powerup array before removing it from
                         // the board (unless it's an avatar collecting it).
-                        if (!agentTypes.contains(o.getType()) && powerUpTypes.contains(nextType)) {
-                            powerups[nextPos.y][nextPos.x] = board[nextPos.y][nextPos.x];
+                        if (Types.TILETYPE.isPowerUp(nextType)) {
+                            setPowerUp(nextPos.x, nextPos.y, board[nextPos.y][nextPos.x]);
                         }
                     }
 
+                    // Sprites that cannot be replaced with a passage when current sprite moves from its square:
+                    // power-ups, flames and other agents (but not this agent if it's the current object). Bombs
+                    // don't leave traces of bombs behind them, and other sprites do not remove bombs from the board.
+                    Types.TILETYPE currentType = board[currentPos.y][currentPos.x];
+                    boolean canOverwrite = !Types.TILETYPE.isPowerUp(currentType)
+                            && currentType != Types.TILETYPE.FLAMES
+                            && !(Types.TILETYPE.isAgent(currentType) && currentType != o.getType())
+                            && !(currentType == Types.TILETYPE.BOMB && o.getType() != Types.TILETYPE.BOMB);
+
                     // Update current position
                     // Only update current position if the object there can be overwritten
                     // Replace with passage if there isn't a power-up there that should be added back in
-                    if (canOverwrite(currentPos, board, illegalOverwriteTypes)) {
+                    if (canOverwrite) {
                         if (powerups[currentPos.y][currentPos.x] != null) {
-                            board[currentPos.y][currentPos.x] = powerups[currentPos.y][currentPos.x];
-                            powerups[currentPos.y][currentPos.x] = null;
+                            setTile(currentPos.x, currentPos.y, powerups[currentPos.y][currentPos.x]);
+                            setPowerUp(currentPos.x, currentPos.y, null);
                         } else {
-                            board[currentPos.y][currentPos.x] = Types.TILETYPE.PASSAGE;
+                            setTile(currentPos.x, currentPos.y, Types.TILETYPE.PASSAGE);
                         }
                     }
                 }
             }
 
             // Update next position. The order is bombs, avatars, so avatars would overwrite bombs.
-            board[nextPos.y][nextPos.x] = o.getType();
+            setTile(nextPos.x, nextPos.y, o.getType());
         }
     }
 
@@ -840,7 +1486,8 @@ public class ForwardModel {
      * It uses Types.BOARD_* to decide number of rigid blocks, wood, items, etc.
      */
     private void generateBoard(long seed) {
-        int[][] intBoard = LevelGenerator.makeBoard(seed, size, Types.BOARD_NUM_RIGID, Types.BOARD_NUM_WOOD, agents);
+        int[][] intBoard = LevelGenerator.makeBoard(seed, size, LevelGenerator.scaleToBoard(Types.BOARD_NUM_RIGID, size),
+                LevelGenerator.scaleToBoard(Types.BOARD_NUM_WOOD, size), agents);
         generateBoard(intBoard, seed);
     }
 
@@ -848,7 +1495,7 @@ public class ForwardModel {
      * Generates the game board given an intBoard that will be translated.
      */
     private void generateBoard(int[][] intBoard, long seed) {
-        int[][] intPowerups = LevelGenerator.makeItems(intBoard, Types.BOARD_NUM_ITEMS, seed);
+        int[][] intPowerups = LevelGenerator.makeItems(intBoard, LevelGenerator.scaleToBoard(Types.BOARD_NUM_ITEMS, size), seed);
         translate(intBoard, true);
         translate(intPowerups, false);
     }
@@ -867,15 +1514,15 @@ public class ForwardModel {
                 board[i] = new Types.TILETYPE[size];
 
                 for (int j = 0; j < intBoard[i].length; j++) {
-                    Types.TILETYPE type = utils.Types.TILETYPE.values()[intBoard[i][j]];
+                    Types.TILETYPE type = Types.TILETYPE.fromKey(intBoard[i][j]);
                     if (type == Types.TILETYPE.BOMB) {
                         addBomb(j, i, DEFAULT_BOMB_BLAST, BOMB_LIFE, -1, true);
                     } else if (type == Types.TILETYPE.FLAMES) {
                         addFlame(j, i, FLAME_LIFE);
-                    } else if (Types.TILETYPE.getAgentTypes().contains(type)) {
+                    } else if (Types.TILETYPE.isAgent(type)) {
                         int idx = type.getKey() - 10;
                         addAgent(j, i, idx);
-                    } else if (Types.TILETYPE.getPowerUpTypes().contains(type)) {
+                    } else if (Types.TILETYPE.isPowerUp(type)) {
                         addPowerUp(j, i, type, true);
                     } else {
                         // All other objects are simply added: walls, passage, fog
@@ -888,7 +1535,7 @@ public class ForwardModel {
             for (int i = 0; i < intBoard.length; i++) {
                 powerups[i] = new Types.TILETYPE[size];
                 for (int j = 0; j < intBoard[i].length; j++) {
-                    Types.TILETYPE type = utils.Types.TILETYPE.values()[intBoard[i][j]];
+                    Types.TILETYPE type = Types.TILETYPE.fromKey(intBoard[i][j]);
                     addPowerUp(j, i, type, false);
                 }
             }
@@ -898,22 +1545,24 @@ public class ForwardModel {
     // add* methods can be used by agents to insert things into the model
 
     void addBomb(int x, int y, int blastStrength, int bombLife, int playerIdx, boolean addToBoard) {
+        ownObjects();
         Bomb bomb = new Bomb(blastStrength, bombLife, playerIdx);
-        bomb.setPosition(new Vector2d(x, y));
-        setDesiredCoordinate(bomb, new Vector2d(x, y), board);
+        bomb.setPosition(Vector2d.of(x, y));
+        setDesiredCoordinate(bomb, Vector2d.of(x, y), board);
         bombs.add(bomb);
         if (addToBoard) {
-            board[y][x] = Types.TILETYPE.BOMB;
+            setTile(x, y, Types.TILETYPE.BOMB);
         }
     }
 
     void addFlame(int x, int y, int life) {
+        ownObjects();
         Flame flame = new Flame();
         flame.setLife(life);
-        setDesiredCoordinate(flame, new Vector2d(x, y), board);
+        setDesiredCoordinate(flame, Vector2d.of(x, y), board);
         flame.setPosition(flame.getDesiredCoordinate());
         flames.add(flame);
-        board[y][x] = Types.TILETYPE.FLAMES;
+        setTile(x, y, Types.TILETYPE.FLAMES);
     }
 
     void addPowerUp(int x, int y, Types.TILETYPE type, boolean visible) {
@@ -933,9 +1582,9 @@ public class ForwardModel {
     void addAgent(int x, int y, int idx) {
         GameObject agent = agents[idx];
         ((Avatar)agent).setWinner(Types.RESULT.INCOMPLETE);
-        agent.setPosition(new Vector2d(x, y));
-        setDesiredCoordinate(agent, new Vector2d(x, y), board);
-        board[y][x] = agent.getType();
+        agent.setPosition(Vector2d.of(x, y));
+        setDesiredCoordinate(agent, Vector2d.of(x, y), board);
+        setTile(x, y, agent.getType());
     }
 
     void removePowerUp(int x, int y, Types.TILETYPE type) {
@@ -948,16 +1597,24 @@ public class ForwardModel {
 
     private void addObject(int x, int y, Types.TILETYPE type, Types.TILETYPE[][] targetArray) {
         GameObject object = new GameObject(type);
-        object.setPosition(new Vector2d(x, y));
-        setDesiredCoordinate(object, new Vector2d(x, y), targetArray);
-        targetArray[y][x] = type;
+        object.setPosition(Vector2d.of(x, y));
+        setDesiredCoordinate(object, Vector2d.of(x, y), targetArray);
+        if (targetArray == board)
+            setTile(x, y, type);
+        else
+            setPowerUp(x, y, type);
     }
 
     private void removeObject(int x, int y, Types.TILETYPE type, Types.TILETYPE[][] targetArray, boolean onlyBoard) {
-        Vector2d pos = new Vector2d(x, y);
-        targetArray[y][x] = TILETYPE.PASSAGE;
+        Vector2d pos = Vector2d.of(x, y);
+        if (targetArray == board)
+            setTile(x, y, TILETYPE.PASSAGE);
+        else
+            setPowerUp(x, y, TILETYPE.PASSAGE);
 
         if (!onlyBoard) {
+            ownObjects();
+            ownBombArrays();
             if (type == TILETYPE.BOMB) {
                 ArrayList<GameObject> gos = findObjectInList(pos, bombs);
                 for (GameObject go: gos) {
@@ -970,12 +1627,12 @@ public class ForwardModel {
                 for (GameObject go: gos) {
                     flames.remove(go);
                 }
-            } else if (TILETYPE.getAgentTypes().contains(type)) {
+            } else if (TILETYPE.isAgent(type)) {
                 GameObject ob = agents[type.getKey() - 10];
                 ((Avatar)ob).setWinner(RESULT.LOSS);
                 aliveAgents.remove(ob);
-            } else if (TILETYPE.getPowerUpTypes().contains(type)) {
-                powerups[y][x] = null;
+            } else if (TILETYPE.isPowerUp(type)) {
+                setPowerUp(x, y, null);
             }
         }
     }
@@ -983,7 +1640,7 @@ public class ForwardModel {
     // Sets properties of agent, identified by player ID
     void setAgent(int playerIdx, int x, int y, boolean canKick, int ammo, int blastStrength) {
         Avatar a = (Avatar)agents[playerIdx];
-        a.setPosition(new Vector2d(x, y));
+        a.setPosition(Vector2d.of(x, y));
         if (canKick) a.setCanKick();
         a.setAmmo(ammo);
         a.setBlastStrength(blastStrength);
@@ -991,7 +1648,8 @@ public class ForwardModel {
 
     // Sets properties of bomb, identified by position
     void setBomb(int x, int y, int playerIdx, Vector2d velocity) {
-        Vector2d pos = new Vector2d(x, y);
+        ownObjects();
+        Vector2d pos = Vector2d.of(x, y);
         ArrayList<GameObject> gos = findObjectInList(pos, bombs);
         for (GameObject go: gos) {
             Bomb bomb = (Bomb)go;
@@ -1002,7 +1660,8 @@ public class ForwardModel {
 
     // Sets properties of flame, identified by position
     void setFlame(int x, int y, int life) {
-        Vector2d pos = new Vector2d(x, y);
+        ownObjects();
+        Vector2d pos = Vector2d.of(x, y);
         ArrayList<GameObject> flame = findObjectInList(pos, flames);
         for (GameObject f : flame) {
             f.setLife(life);
@@ -1022,6 +1681,7 @@ public class ForwardModel {
                 board[i][i1] = Types.TILETYPE.PASSAGE;
             }
         }
+        recomputeHashes();
 
         // Add players in the corners
         addAgent(1, 1, 0);
@@ -1046,14 +1706,8 @@ public class ForwardModel {
                 else {
                     if (type == Types.TILETYPE.PASSAGE)
                         stringBuilder.append(" ");
-                    else if (type == Types.TILETYPE.AGENT0)
-                        stringBuilder.append("a");
-                    else if (type == Types.TILETYPE.AGENT1)
-                        stringBuilder.append("b");
-                    else if (type == Types.TILETYPE.AGENT2)
-                        stringBuilder.append("c");
-                    else if (type == Types.TILETYPE.AGENT3)
-                        stringBuilder.append("d");
+                    else if (Types.TILETYPE.isAgent(type))
+                        stringBuilder.append((char) ('a' + type.getKey() - Types.TILETYPE.AGENT0.getKey()));
                     else
                         stringBuilder.append("-");
                 }
@@ -1111,17 +1765,44 @@ public class ForwardModel {
             }
         }
 
-        // Reduce power-ups and board arrays
-        for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                if (range == -1 || avatarPosition != null && avatarPosition.custom_dist(x, y) <= range) {
-                    copy.board[y][x] = board[y][x];
-                    if (range == -1)
-                        copy.powerups[y][x] = powerups[y][x];
-                } else {
-                    copy.board[y][x] = Types.TILETYPE.FOG;
+        // Reduce power-ups and board arrays. The visible cells are the square within vision range of the avatar
+        // (custom_dist is the Chebyshev distance), so each visible row is a single span copied over the fog, and
+        // the hash of the reduced board is the hash of a fogged board with the visible cells swapped in.
+        if (range == -1) {
+            for (int y = 0; y < size; y++) {
+                System.arraycopy(board[y], 0, copy.board[y], 0, size);
+                System.arraycopy(powerups[y], 0, copy.powerups[y], 0, size);
+            }
+            copy.boardHash = boardHash;
+            copy.powerUpHash = powerUpHash;
+            if (bitBoard != null) {
+                copy.bitBoard = bitBoard.copy();
+            }
+        } else {
+            Visibility visibility = Visibility.of(size, range);
+            long hash = visibility.fogHash;
+            for (int y = 0; y < size; y++) {
+                Arrays.fill(copy.board[y], Types.TILETYPE.FOG);
+            }
+            if (avatarPosition != null) {
+                int x0 = Math.max(0, avatarPosition.x - range), x1 = Math.min(size - 1, avatarPosition.x + range);
+                int y0 = Math.max(0, avatarPosition.y - range), y1 = Math.min(size - 1, avatarPosition.y + range);
+                for (int y = y0; y <= y1; y++) {
+                    System.arraycopy(board[y], x0, copy.board[y], x0, x1 - x0 + 1);
+                    for (int x = x0; x <= x1; x++) {
+                        int cell = y * size + x;
+                        hash ^= Zobrist.tile(cell, Types.TILETYPE.FOG) ^ Zobrist.tile(cell, board[y][x]);
+                    }
                 }
             }
+            copy.boardHash = hash;
+            copy.powerUpHash = 0;
+
+            // Mirror the reduced board in bit layers if running on the bitboard engine
+            if (bitBoard != null) {
+                copy.bitBoard = bitBoard.reduce(avatarPosition == null ? visibility.mask(-1, -1)
+                        : visibility.mask(avatarPosition.x, avatarPosition.y));
+            }
         }
 
         // Reduce arraylists of flames and bombs
@@ -1149,6 +1830,10 @@ public class ForwardModel {
         }
         ForwardModel fm = (ForwardModel)o;
 
+        // Copies apply pending information hiding to shared flames and bombs when taking ownership of them
+        ownObjects();
+        fm.ownObjects();
+
         if (size != fm.size)
             return false;
         if (!Types.TILETYPE.boardEquals(powerups, fm.powerups))
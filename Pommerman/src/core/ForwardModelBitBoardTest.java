@@ -0,0 +1,25 @@
+package core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import utils.Types;
+
+/**
+ * Runs all the tests of ForwardModelTest again on the bitboard engine (Types.BITBOARD_ENGINE). Tests that compare
+ * both engines set the flag themselves and restore it afterwards.
+ */
+class ForwardModelBitBoardTest extends ForwardModelTest {
+
+    private boolean engine;
+
+    @BeforeEach
+    void useBitBoardEngine() {
+        engine = Types.BITBOARD_ENGINE;
+        Types.BITBOARD_ENGINE = true;
+    }
+
+    @AfterEach
+    void restoreEngine() {
+        Types.BITBOARD_ENGINE = engine;
+    }
+}
@@ -1,16 +1,19 @@
 package core;
 
 import objects.Avatar;
+import objects.GameObject;
 import org.junit.jupiter.api.Test;
 import players.DoNothingPlayer;
 import players.Player;
 import players.SimonSaysPlayer;
 import utils.Types;
+import utils.Vector2d;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Queue;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static utils.Types.VERBOSE;
@@ -1159,4 +1162,140 @@ class ForwardModelTest {
     }
 
 
-}
\ No newline at end of file
+
+    /**
+     * The bitboard engine produces exactly the same states as the default engine, tick by tick, over full games
+     * (including board collapse), and its bit layers always mirror the board.
+     */
+    @Test
+    void bitBoardEngineMatchesDefault() {
+        boolean engine = Types.BITBOARD_ENGINE;
+        try {
+            for (long gameSeed = 0; gameSeed < 10; gameSeed++) {
+                Types.BITBOARD_ENGINE = false;
+                GameState defaultState = new GameState(gameSeed, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+                Types.BITBOARD_ENGINE = true;
+                GameState bitBoardState = new GameState(gameSeed, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+
+                Random rnd = new Random(gameSeed);
+                Types.ACTIONS[] allActions = Types.ACTIONS.values();
+                while (defaultState.getTick() < Types.MAX_GAME_TICKS) {
+                    Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                    for (int i = 0; i < actions.length; i++) {
+                        actions[i] = allActions[rnd.nextInt(allActions.length)];
+                    }
+                    defaultState.next(actions);
+                    bitBoardState.next(actions);
+
+                    assertEquals(defaultState, bitBoardState);
+                    assertEquals(defaultState.copy(1), bitBoardState.copy(1));
+
+                    Types.TILETYPE[][] board = bitBoardState.getBoard();
+                    BitBoard bits = bitBoardState.model.getBitBoard();
+                    for (int y = 0; y < board.length; y++) {
+                        for (int x = 0; x < board.length; x++) {
+                            assertEquals(board[y][x], bits.get(x, y));
+                        }
+                    }
+                }
+            }
+        } finally {
+            Types.BITBOARD_ENGINE = engine;
+        }
+    }
+
+    /**
+     * Observations reduced to a vision range show the true board on the cells within range of the observer and fog
+     * everywhere else, on both engines, with bit layers mirroring the reduced board and hashes matching it.
+     */
+    @Test
+    void reducedObservationsMatchVisionRange() {
+        boolean engine = Types.BITBOARD_ENGINE;
+        int visionRange = Types.DEFAULT_VISION_RANGE;
+        try {
+            for (int range : new int[]{1, 2, 4}) {
+                for (boolean bitBoardEngine : new boolean[]{false, true}) {
+                    Types.BITBOARD_ENGINE = bitBoardEngine;
+                    Types.DEFAULT_VISION_RANGE = range;
+                    GameState gs = new GameState(seed + range, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+
+                    Random rnd = new Random(range);
+                    Types.ACTIONS[] allActions = Types.ACTIONS.values();
+                    for (int tick = 0; tick < 200 && !gs.isTerminal(); tick++) {
+                        Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                        for (int i = 0; i < actions.length; i++) {
+                            actions[i] = allActions[rnd.nextInt(allActions.length)];
+                        }
+                        gs.next(actions);
+
+                        Types.TILETYPE[][] board = gs.getBoard();
+                        for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+                            GameState obs = gs.copy(p);
+                            Types.TILETYPE[][] reduced = obs.getBoard();
+                            Vector2d position = gs.getAgents()[p].getPosition();
+                            for (int y = 0; y < board.length; y++) {
+                                for (int x = 0; x < board.length; x++) {
+                                    boolean visible = position != null && position.custom_dist(x, y) <= range;
+                                    assertEquals(visible ? board[y][x] : Types.TILETYPE.FOG, reduced[y][x]);
+                                    if (bitBoardEngine) {
+                                        for (Types.TILETYPE type : Types.TILETYPE.values()) {
+                                            assertEquals(reduced[y][x] == type, obs.model.getBitBoard().is(x, y, type));
+                                        }
+                                    }
+                                }
+                            }
+
+                            long hash = obs.model.hash64();
+                            obs.model.recomputeHashes();
+                            assertEquals(obs.model.hash64(), hash);
+                        }
+                    }
+                }
+            }
+        } finally {
+            Types.BITBOARD_ENGINE = engine;
+            Types.DEFAULT_VISION_RANGE = visionRange;
+        }
+    }
+
+    /**
+     * Games with eight players on larger boards run on both engines to the end, with the agents placed on free
+     * cells, every agent tile type in use and both engines producing the same states.
+     */
+    @Test
+    void eightPlayerGamesOnLargeBoards() {
+        boolean engine = Types.BITBOARD_ENGINE;
+        int nPlayers = Types.NUM_PLAYERS;
+        try {
+            Types.NUM_PLAYERS = 8;
+            for (int size : new int[]{15, 21}) {
+                Types.BITBOARD_ENGINE = false;
+                GameState defaultState = new GameState(seed + size, size, Types.GAME_MODE.FFA);
+                Types.BITBOARD_ENGINE = true;
+                GameState bitBoardState = new GameState(seed + size, size, Types.GAME_MODE.FFA);
+
+                Types.TILETYPE[][] board = defaultState.getBoard();
+                for (GameObject agent : defaultState.getAgents()) {
+                    Vector2d position = agent.getPosition();
+                    assertEquals(agent.getType(), board[position.y][position.x]);
+                }
+                assertEquals(8, defaultState.getAliveAgentIDs().length);
+
+                Random rnd = new Random(size);
+                Types.ACTIONS[] allActions = Types.ACTIONS.values();
+                while (!defaultState.isTerminal()) {
+                    Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                    for (int i = 0; i < actions.length; i++) {
+                        actions[i] = allActions[rnd.nextInt(allActions.length)];
+                    }
+                    defaultState.next(actions);
+                    bitBoardState.next(actions);
+                    assertEquals(defaultState, bitBoardState);
+                }
+            }
+        } finally {
+            Types.BITBOARD_ENGINE = engine;
+            Types.NUM_PLAYERS = nPlayers;
+        }
+    }
+}
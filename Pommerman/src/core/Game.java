@@ -7,6 +7,7 @@ import players.SimonSaysPlayer;
 import utils.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static utils.Types.*;
 import static utils.Types.VISUALS;
@@ -42,9 +43,11 @@ public class Game {
     public static boolean LOG_GAME = false;
     public static boolean LOG_GAME_JSON = false; // If the game is being logged, should it be saved to json
 
-    // Variables for multi-threaded run 
+    // Variables for multi-threaded run: one thread per player, kept for the whole game, and the decision each
+    // player is working on (which may outlive the tick it was requested in, if the player goes overtime).
     private Actor[] actors = new Actor[NUM_PLAYERS];
-    private Thread[] threads = new Thread[NUM_PLAYERS];
+    private ExecutorService executor;
+    private Future<?>[] decisions = new Future<?>[NUM_PLAYERS];
 
     //Counts how many time a player did overtime
     private int[] playerOvertimes = new int[NUM_PLAYERS];
@@ -74,7 +77,7 @@ public class Game {
         this.seed = seed;
         this.gs = state.copy();
         this.gs.model.setTrueModel();
-        this.size = state.model.getBoard().length;
+        this.size = state.getBoard().length;
         updateAssignedGameStates();
     }
 
@@ -101,7 +104,7 @@ public class Game {
         this.gs = gs.copy();
         this.gameMode = gs.gameMode;
         this.seed = gs.getSeed();
-        this.size = gs.model.getBoard().length;
+        this.size = gs.getBoard().length;
         this.gs.model.setTrueModel();
         updateAssignedGameStates();
     }
@@ -151,6 +154,7 @@ public class Game {
         }
         if (gameLog != null)
             copy.gameLog = gameLog.copy();
+        copy.gameIdStr = gameIdStr;
         return copy;
     }
 
@@ -177,7 +181,17 @@ public class Game {
      * @return the game state.
      */
     private GameState getGameState(int playerIdx) {
-        return gs.copy(playerIdx);
+        return gs.observation(playerIdx);
+    }
+
+    /**
+     * Checks if a player is still in the game. Read from the true game state, so that the observation of the
+     * player doesn't need to be reduced for this.
+     * @param playerIdx index of the player.
+     * @return true if the game is not over for this player.
+     */
+    private boolean isPlaying(int playerIdx) {
+        return ((Avatar) gs.getAgents()[playerIdx]).getWinner() == RESULT.INCOMPLETE;
     }
 
     /**
@@ -217,6 +231,8 @@ public class Game {
             // Check end of game
             if (firstEnd && isEnded()) {
                 firstEnd = false;
+                if (separateThreads)
+                    awaitDecisions();
                 results = terminate();
 
                 if (!VISUALS) {
@@ -238,6 +254,8 @@ public class Game {
 
         // The loop may have been broken out of before the game ended. Handle end-of-game:
         if (firstEnd) {
+            if (separateThreads)
+                awaitDecisions();
             results = terminate();
         }
 
@@ -250,13 +268,9 @@ public class Game {
             }
         }
 
-        // Collect and kill all threads
+        // Kill all threads, their decisions were collected before terminating
         if (separateThreads) {
-            try {
-                killThreads();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            killThreads();
         }
 
         return results;
@@ -308,7 +322,8 @@ public class Game {
             Player p = players.get(i);
 
             // Check if this player is still playing
-            if (gameStateObservations[i].winner() == Types.RESULT.INCOMPLETE) {
+            if (isPlaying(i)) {
+                p.stopPondering();
 
                 ElapsedCpuTimer ect = new ElapsedCpuTimer();
                 ect.setMaxTimeMillis(Types.DECISION_TIME_LIMIT);
@@ -324,9 +339,12 @@ public class Game {
                     playerOvertimes[i]++;
                 }
 
+                // Think in the background while the game advances and the other players decide.
+                p.ponder(gameStateObservations[i]);
 
             } else {
                 // This player is dead and action will be ignored
+                p.stopPondering();
                 actions[i] = Types.ACTIONS.ACTION_STOP;
             }
         }
@@ -335,52 +353,103 @@ public class Game {
 
     /**
      * Get player actions, 1 for each avatar still in the game, using separate threads. Called at every frame.
+     * All players decide concurrently. If CHECK_DECISION_TIME is set, players that don't return an action within
+     * DECISION_TIME_LIMIT ms (wall time) execute ACTION_STOP and get an overtime. A player still busy with the
+     * decision of a previous tick is not asked again (it executes ACTION_STOP and gets an overtime as well), so
+     * act() is never called on a player from two threads at the same time.
      */
     private Types.ACTIONS[] getAvatarActionsInSeparateThreads() throws InterruptedException {
-        //
         Types.ACTIONS[] actions = new Types.ACTIONS[NUM_PLAYERS];
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DECISION_TIME_LIMIT);
         for (int i = 0; i < NUM_PLAYERS; i++) {
             Player p = players.get(i);
 
             // Check if this player is still playing
-            if (gameStateObservations[i].winner() == Types.RESULT.INCOMPLETE) {
-                actors[i].player = p;
-                actors[i].gamestate = gameStateObservations[i];
-                threads[i] = new Thread(actors[i]);
-                threads[i].start();
+            if (isPlaying(i)) {
+                if (decisions[i] == null || decisions[i].isDone()) {
+                    actors[i].player = p;
+                    actors[i].gamestate = gameStateObservations[i];
+                    decisions[i] = executor.submit(actors[i]);
+                } else {
+                    // Still thinking about an earlier tick
+                    actions[i] = ACTIONS.ACTION_STOP;
+                    playerOvertimes[i]++;
+                }
             } else {
-                threads[i] = null;
                 // This player is dead and action will be ignored
+                p.stopPondering();
                 actions[i] = Types.ACTIONS.ACTION_STOP;
             }
         }
 
-        killThreads();
-
         for (int i = 0; i < NUM_PLAYERS; i++) {
-            if (threads[i] != null)
+            if (actions[i] != null)
+                continue;
+            try {
+                if (CHECK_DECISION_TIME) {
+                    decisions[i].get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } else {
+                    decisions[i].get();
+                }
                 actions[i] = actors[i].getValue();
+            } catch (TimeoutException e) {
+                if(VERBOSE)
+                    System.out.println("Player " + players.get(i).getPlayerID() + " used more time than allowed (" + DECISION_TIME_LIMIT + "ms). Executing action STOP.");
+                actions[i] = ACTIONS.ACTION_STOP;
+                playerOvertimes[i]++;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
         }
 
         return actions;
     }
 
     /**
-     * Creates actor objects for the players.
+     * Creates actor objects for the players, and the threads they run on.
      */
     public void createActors() {
-        for (int i = 0; i < NUM_PLAYERS; i++)
+        for (int i = 0; i < NUM_PLAYERS; i++) {
             actors[i] = new Actor();
+            decisions[i] = null;
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(NUM_PLAYERS, r -> {
+                Thread thread = new Thread(r, "Game-Actor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     /**
-     * Kills all threads.
-     * @throws InterruptedException if threads could not be killed
+     * Waits for the decisions still in progress (players going overtime on the last ticks), so that no player is
+     * still acting on its own thread when the game calls its result() method.
      */
-    private void killThreads() throws InterruptedException {
+    private void awaitDecisions() {
         for (int i = 0; i < NUM_PLAYERS; i++) {
-            if (threads[i] != null && threads[i].isAlive())
-                threads[i].join();
+            if (decisions[i] != null) {
+                try {
+                    decisions[i].get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // The action is not needed anymore
+                }
+                decisions[i] = null;
+            }
+            // A player going overtime on the last tick may have started pondering after the game ended.
+            players.get(i).stopPondering();
+        }
+    }
+
+    /**
+     * Stops the threads of the players. Their decisions must have been awaited (see awaitDecisions()).
+     */
+    private void killThreads() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
         }
     }
 
@@ -415,7 +484,7 @@ public class Game {
         if (gameMode.equals(GAME_MODE.TEAM_RADIO)){
             for (int i = 0; i < NUM_PLAYERS; i++) {
                 int teammateIdx = getGameConfig().getTeammates(GAME_MODE.TEAM_RADIO, i + TILETYPE.AGENT0.getKey())[0].getKey() - TILETYPE.AGENT0.getKey();
-                if (gameStateObservations[teammateIdx].winner() == RESULT.INCOMPLETE)
+                if (isPlaying(teammateIdx))
                     gs.setMessage(i, players.get(teammateIdx).getMessage());
                 else
                     gs.setMessage(i, new int[MESSAGE_LENGTH]); // default case
@@ -441,6 +510,7 @@ public class Game {
         double[] finalRewards = getGameConfig().getRewards(getTick(), results);
         for (int i = 0; i < NUM_PLAYERS; i++) {
             Player p = players.get(i);
+            p.stopPondering();
             p.result(finalRewards[i]);
         }
 
@@ -451,20 +521,27 @@ public class Game {
 //        System.out.println("GameOver: " + Arrays.toString(results));
 //        System.out.println(Arrays.toString(results));
 
-        System.out.print("[");
-        for(int i = 0; i < results.length; ++i)
-        {
-            System.out.print(results[i] + (" (" + playerOvertimes[i] + ")"));
-            if(i == results.length-1)
-                System.out.println("]");
-            else
-                System.out.print(", ");
-        }
+        // Printed as a single line, so that it is not interleaved with the output of games running in parallel.
+        System.out.println(resultsString(results, playerOvertimes));
 
 //        }
         return results;
     }
 
+    /**
+     * @return the results of a game and the overtimes of each player, as printed at the end of the game.
+     */
+    public static String resultsString(Types.RESULT[] results, int[] overtimes) {
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < results.length; ++i)
+        {
+            sb.append(results[i]).append(" (").append(overtimes[i]).append(")");
+            if(i != results.length-1)
+                sb.append(", ");
+        }
+        return sb.append("]").toString();
+    }
+
     /**
      * Prints the board to console.
      */
@@ -501,7 +578,7 @@ public class Game {
      */
     public ArrayList<GameObject> getAliveAvatars(int pIdx) {
         if (pIdx >= 0 && gameStateObservations[pIdx] != null) {
-            return gameStateObservations[pIdx].model.getAliveAgents();
+            return gameStateObservations[pIdx].getAliveAgents();
         }
         return gs.model.getAliveAgents();
     }
@@ -529,7 +606,7 @@ public class Game {
      */
     public GameObject[] getAvatars(int pIdx) {
         if (pIdx >= 0 && gameStateObservations[pIdx] != null) {
-            return gameStateObservations[pIdx].model.getAgents();
+            return gameStateObservations[pIdx].getAgents();
         }
         return gs.model.getAgents();
     }
@@ -633,7 +710,9 @@ public class Game {
 
         @Override
         public void run() {
+            player.stopPondering();
             action = player.act(this.gamestate);
+            player.ponder(this.gamestate);
         }
 
         public Types.ACTIONS getValue() {
@@ -19,8 +19,9 @@ public class GameState {
     // Number of actions available to agents - invariable
     private int nActions = NUM_ACTIONS;
 
-    // Forward model for the game.
-    ForwardModel model;
+    // Forward model for the game. Volatile, as observations are reduced lazily (see reducePendingModel()) and may
+    // be first read on an agent thread: a thread that sees it set also sees the model and avatar fully built.
+    volatile ForwardModel model;
 
     // Message
     private int[][] message;
@@ -43,6 +44,10 @@ public class GameState {
     // Game mode being played
     Types.GAME_MODE gameMode;
 
+    // Observations made by observation() are reduced lazily: until first needed, model and avatar are null and
+    // this holds a copy-on-write snapshot of the true game model, to be reduced to what playerIdx can see.
+    private ForwardModel pendingModel;
+
     /**
      * Constructor, first thing to call. Creates a GameState object with some information.
      * @param seed - random seed to be used in generating the board.
@@ -110,7 +115,7 @@ public class GameState {
      * @return the agents of the game
      */
     GameObject[] getAgents() {
-        return model.getAgents();
+        return model().getAgents();
     }
 
     /**
@@ -118,7 +123,7 @@ public class GameState {
      * @return the alive agents of the game
      */
     ArrayList<GameObject> getAliveAgents() {
-        return model.getAliveAgents();
+        return model().getAliveAgents();
     }
 
     /**
@@ -153,7 +158,7 @@ public class GameState {
         }
 
         GameState copy = new GameState(seed, size, gameMode, false);
-        copy.model = model.copy(playerIdx);  // Use given playerIdx to reduce state (-1 in copies of copies)
+        copy.model = model().copy(playerIdx);  // Use given playerIdx to reduce state (-1 in copies of copies)
         copy.tick = tick;
 
         // Use this copy's player idx as determined earlier to update copy playerIdx and its assigned avatar.
@@ -168,6 +173,55 @@ public class GameState {
         return copy;
     }
 
+    /**
+     * Creates the observation of this state for a player, equal to copy(playerIdx), but only reduced to what the
+     * player can see when first needed: the first call to any method that reads or advances it. Taking an
+     * observation costs a copy-on-write snapshot of the model, so observations of agents that never look at them
+     * (or that are not asked to act) are almost free.
+     * @param playerIdx index of the player the observation is for.
+     * @return the observation of this state.
+     */
+    GameState observation(int playerIdx) {
+        GameState obs = new GameState(seed, size, gameMode, false);
+        obs.pendingModel = model().copyOnWrite();
+        obs.tick = tick;
+        obs.playerIdx = playerIdx;
+        if (gameMode.equals(GAME_MODE.FFA) && message != null)
+            obs.message = message.clone();
+        return obs;
+    }
+
+    /**
+     * @return the model of this state, reducing it first if this is an observation that has not been used yet.
+     */
+    private ForwardModel model() {
+        ForwardModel m = model;
+        return m != null ? m : reducePendingModel();
+    }
+
+    /**
+     * @return the avatar of the player in control of this state, reducing the model first if needed.
+     */
+    private Avatar avatar() {
+        if (model == null) {
+            reducePendingModel();
+        }
+        return avatar;
+    }
+
+    // Synchronized, as observations handed to agents running on their own threads may be read by the game as well.
+    // The avatar is set before the model is published, so readers seeing the model set also see the avatar.
+    private synchronized ForwardModel reducePendingModel() {
+        ForwardModel m = model;
+        if (m == null) {
+            m = pendingModel.copy(playerIdx);
+            avatar = (Avatar) m.getAgents()[playerIdx];
+            pendingModel = null;
+            model = m;
+        }
+        return m;
+    }
+
     /**
      * @return the random seed of this state
      */
@@ -186,7 +240,7 @@ public class GameState {
 
         if (tick < Types.MAX_GAME_TICKS)
         {
-            model.next(actions, tick);
+            model().next(actions, tick);
             tick++;
             if (tick == Types.MAX_GAME_TICKS)
                 Types.getGameConfig().processTimeout(gameMode, getAgents(), getAliveAgents());
@@ -196,6 +250,38 @@ public class GameState {
 
         return false;
     }
+
+    /**
+     * Enables or disables undo() for this state. While enabled, every call to next() that advances the state records
+     * the changes it makes, so that a search can walk down a tree by calling next() and back up by calling undo(),
+     * instead of copying a root state on every iteration. Recorded ticks are discarded when undo is disabled, or
+     * when another state is copied into this one. Copies of this state don't record ticks.
+     * @param enabled true to record ticks so that they can be undone.
+     */
+    public void setUndoEnabled(boolean enabled) {
+        model().setUndoEnabled(enabled);
+    }
+
+    /**
+     * Rolls this state back to how it was before the last call to next() that advanced it. The state is then equal
+     * to what it was at that point.
+     * @return true if a tick was undone, false if undo is not enabled or there are no ticks to undo.
+     */
+    public boolean undo() {
+        if (model().undo()) {
+            tick--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of ticks that can currently be undone.
+     */
+    public int undoDepth() {
+        return model().undoDepth();
+    }
+
     /**
      * @return a copy of the current game state.
      */
@@ -203,53 +289,147 @@ public class GameState {
         return copy(-1);  // No reduction happening if no index specified
     }
 
+
+    /**
+     * Creates a copy-on-write copy of this game state, equal to copy(). The board, power-ups, bombs and flames are
+     * shared with this state and only cloned (row by row for the board) when either state modifies them, normally
+     * when next() is called on it, so copies that are only read, or that change few board rows, are much cheaper
+     * than full copies. Arrays returned by getBoard(), getBombBlastStrength() and getBombLife() may be shared with
+     * other states, and must not be modified by the caller.
+     * @return a copy-on-write copy of this state.
+     */
+    public GameState copyOnWrite() {
+        GameState copy = new GameState(seed, size, gameMode, false);
+        copy.model = model().copyOnWrite();
+        copy.tick = tick;
+        copy.playerIdx = playerIdx;
+        if (playerIdx >= 0) {
+            copy.avatar = (Avatar) copy.model.getAgents()[playerIdx];
+            if (gameMode.equals(GAME_MODE.FFA) && message != null)
+                copy.message = message.clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Copies this game state into another one, reusing the board arrays, lists and game objects held by the target.
+     * The result is equal to copy(), but once the target has been used for a copy of a state of the same size,
+     * copying into it again creates no new objects. Use together with GameStatePool to avoid producing garbage
+     * when states are copied repeatedly, as in tree search iterations.
+     * @param target state to copy into. Anything it held before is overwritten.
+     */
+    public void copyInto(GameState target) {
+        target.seed = seed;
+        target.size = size;
+        target.gameMode = gameMode;
+        target.nActions = nActions;
+        target.tick = tick;
+        target.playerIdx = playerIdx;
+
+        if (target.model == null) {
+            target.model = new ForwardModel(size, gameMode);
+        }
+        model().copyInto(target.model);
+
+        if (playerIdx >= 0) {
+            target.avatar = (Avatar) target.model.getAgents()[playerIdx];
+        } else {
+            target.avatar = null;
+        }
+
+        // Messages as in copy(): cleared in TEAM_RADIO, kept by the copies of a player's state in FFA.
+        if (gameMode.equals(Types.GAME_MODE.TEAM_RADIO)) {
+            if (target.message == null) {
+                target.message = new int[NUM_PLAYERS][MESSAGE_LENGTH];
+            } else {
+                for (int[] m : target.message) {
+                    Arrays.fill(m, 0);
+                }
+            }
+        } else if (playerIdx >= 0 && message != null) {
+            target.message = copyMessages(message, target.message);
+        } else {
+            target.message = null;
+        }
+    }
+
+    /**
+     * Copies messages into the given array, reusing it and its rows where they have the same length.
+     * @return the array holding the copy.
+     */
+    private static int[][] copyMessages(int[][] from, int[][] to) {
+        if (to == null || to.length != from.length) {
+            to = new int[from.length][];
+        }
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] == null) {
+                to[i] = null;
+            } else if (to[i] != null && to[i].length == from[i].length) {
+                System.arraycopy(from[i], 0, to[i], 0, from[i].length);
+            } else {
+                to[i] = from[i].clone();
+            }
+        }
+        return to;
+    }
+
+    /**
+     * 64-bit Zobrist hash of this game state, covering the board, hidden power-ups, bombs, agents and the game tick.
+     * Equal states have equal hashes, and the hash is maintained incrementally by the forward model, so this is
+     * much cheaper than equals(). Useful as a key for transposition tables or to detect repeated states.
+     * @return hash of this game state.
+     */
+    public long hash64() {
+        return model().hash64() ^ Zobrist.tick(tick);
+    }
+
     /** GETTERS AND SETTERES **/
 
 
     public Types.TILETYPE[][] getBoard() {
-        return model.getBoard();
+        return model().getBoard();
     }
 
     public int[][] getBombBlastStrength() {
-        return model.getBombBlastStrength();
+        return model().getBombBlastStrength();
     }
 
     public int[][] getBombLife() {
-        return model.getBombLife();
+        return model().getBombLife();
     }
 
-    public int getTeam(){ return avatar.getTeam(); }
+    public int getTeam(){ return avatar().getTeam(); }
 
-    public Types.TILETYPE[] getTeammates(){ return avatar.getTeammates(); }
+    public Types.TILETYPE[] getTeammates(){ return avatar().getTeammates(); }
 
-    public Types.TILETYPE[] getEnemies(){ return avatar.getEnemies(); }
+    public Types.TILETYPE[] getEnemies(){ return avatar().getEnemies(); }
 
     public int nActions() {
         return nActions;
     }
 
     public Types.RESULT winner() {
-        return avatar != null? avatar.getWinner() : Types.RESULT.INCOMPLETE;
+        return avatar() != null? avatar().getWinner() : Types.RESULT.INCOMPLETE;
     }
 
     public int getBlastStrength() {
-        return avatar != null? avatar.getBlastStrength() : -1;
+        return avatar() != null? avatar().getBlastStrength() : -1;
     }
 
     public int getPlayerId() {
-        return avatar.getPlayerID();
+        return avatar().getPlayerID();
     }
 
     public int getAmmo() {
-        return avatar != null? avatar.getAmmo() : -1;
+        return avatar() != null? avatar().getAmmo() : -1;
     }
 
     public boolean canKick() {
-        return avatar != null? avatar.canKick() : false;
+        return avatar() != null? avatar().canKick() : false;
     }
 
     public Vector2d getPosition() {
-        return avatar.getPosition();
+        return avatar().getPosition();
     }
 
     public Types.GAME_MODE getGameMode() {
@@ -273,7 +453,7 @@ public class GameState {
      */
     public ArrayList<Types.TILETYPE> getAliveTeammateIDs(){
         List<Types.TILETYPE> aliveAgents = Arrays.asList(getAliveAgentIDs()); // Doesn't include AGENTDUMMY
-        Types.TILETYPE[] teammateIDs = avatar.getTeammates(); // May include AGENTDUMMY (if FFA)
+        Types.TILETYPE[] teammateIDs = avatar().getTeammates(); // May include AGENTDUMMY (if FFA)
         return trimAliveList(aliveAgents, teammateIDs);
     }
 
@@ -282,7 +462,7 @@ public class GameState {
      */
     public ArrayList<Types.TILETYPE> getAliveEnemyIDs(){
         List<Types.TILETYPE> aliveAgents = Arrays.asList(getAliveAgentIDs()); // Doesn't include AGENTDUMMY
-        Types.TILETYPE[] enemyIDs = avatar.getEnemies(); // May include AGENTDUMMY (if Team Mode)
+        Types.TILETYPE[] enemyIDs = avatar().getEnemies(); // May include AGENTDUMMY (if Team Mode)
         return trimAliveList(aliveAgents, enemyIDs);
     }
 
@@ -310,7 +490,7 @@ public class GameState {
     {
         if (tick >= Types.MAX_GAME_TICKS)
             return true;
-        if (avatar != null)
+        if (avatar() != null)
             return this.winner() != Types.RESULT.INCOMPLETE;
         for (GameObject aliveAgent : getAliveAgents()) {
             Avatar agent = (Avatar) aliveAgent;
@@ -329,43 +509,43 @@ public class GameState {
     /* ----- Methods to insert or remove observations into the game model ----- */
 
     public void addBomb(int x, int y, int blastStrength, int bombLife, int playerIdx, boolean addToBoard) {
-        model.addBomb(x, y, blastStrength, bombLife, playerIdx, addToBoard);
+        model().addBomb(x, y, blastStrength, bombLife, playerIdx, addToBoard);
     }
 
     public void addFlame(int x, int y, int life) {
-        model.addFlame(x, y, life);
+        model().addFlame(x, y, life);
     }
 
     public void addPowerUp(int x, int y, Types.TILETYPE type, boolean visible) {
-        model.addPowerUp(x, y, type, visible);
+        model().addPowerUp(x, y, type, visible);
     }
 
     public void addObject(int x, int y, Types.TILETYPE type) {
-        model.addObject(x, y, type);
+        model().addObject(x, y, type);
     }
 
     public void removeObject(int x, int y, Types.TILETYPE type, boolean onlyBoard) {
-        model.removeObject(x, y, type, onlyBoard);
+        model().removeObject(x, y, type, onlyBoard);
     }
 
     public void removePowerUp(int x, int y, Types.TILETYPE type) {
-        model.removePowerUp(x, y, type);
+        model().removePowerUp(x, y, type);
     }
 
     public void addAgent(int x, int y, int idx) {
-        model.addAgent(x, y, idx);
+        model().addAgent(x, y, idx);
     }
 
     public void setAgent(int playerIdx, int x, int y, boolean canKick, int ammo, int blastStrength) {
-        model.setAgent(playerIdx, x, y, canKick, ammo, blastStrength);
+        model().setAgent(playerIdx, x, y, canKick, ammo, blastStrength);
     }
 
     public void setBomb(int x, int y, int playerIdx, Vector2d velocity) {
-        model.setBomb(x, y, playerIdx, velocity);
+        model().setBomb(x, y, playerIdx, velocity);
     }
 
     public void setFlame(int x, int y, int life) {
-        model.setFlame(x, y, life);
+        model().setFlame(x, y, life);
     }
 
     public int[] getMessage(){
@@ -384,7 +564,7 @@ public class GameState {
 
     @Override
     public String toString() {
-        return model.toString();
+        return model().toString();
     }
 
     @Override
@@ -400,17 +580,17 @@ public class GameState {
             return false;
         if (size != gs.size)
             return false;
-        if (!model.equals(gs.model))
+        if (!model().equals(gs.model()))
             return false;
         if (!gameMode.equals(gs.gameMode))
             return false;
         if (playerIdx != gs.playerIdx)
             return false;
-        if ((avatar == null) || (gs.avatar == null)) {
-            if ((avatar == null) != (gs.avatar == null))
+        if ((avatar() == null) || (gs.avatar() == null)) {
+            if ((avatar() == null) != (gs.avatar() == null))
                 return false;
         }
-        else if (!avatar.equals(gs.avatar))
+        else if (!avatar().equals(gs.avatar()))
             return false;
         return true;
     }
@@ -504,17 +684,17 @@ public class GameState {
     public String toJson(){
         SerializableGameState serialisableGameState = new SerializableGameState(
                 getAliveAgentIDs(),
-                model.getBoard(),
-                model.getBombBlastStrength(),
-                model.getBombLife(),
+                model().getBoard(),
+                model().getBombBlastStrength(),
+                model().getBombLife(),
                 gameMode,
                 Types.getGameConfig().getEnvironmentName(),
-                avatar.getPosition(),
-                avatar.getBlastStrength(),
-                avatar.canKick(),
-                avatar.getTeammates(),
-                avatar.getAmmo(),
-                avatar.getEnemies(),
+                avatar().getPosition(),
+                avatar().getBlastStrength(),
+                avatar().canKick(),
+                avatar().getTeammates(),
+                avatar().getAmmo(),
+                avatar().getEnemies(),
                 getTick());
 
         // TODO: These may be initialised only once to improve performance
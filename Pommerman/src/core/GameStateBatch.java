@@ -0,0 +1,160 @@
+package core;
+
+import utils.Types;
+
+import static utils.Types.NUM_PLAYERS;
+
+/**
+ * A batch of game states that are advanced together, one tick per call, from a single flat matrix of actions.
+ * Planners that roll many sequences forward from the same root (the Monte Carlo rollouts of RHEA, or several
+ * rollouts from the same tree leaf) can keep one batch per search and step all of its slots in lockstep: the states
+ * in the slots are reused through copyInto(), actions are passed as ints instead of arrays of ACTIONS, and which
+ * slots are finished is kept in a flat array, so a batch step creates no objects beyond those the forward model
+ * itself creates. Each slot is advanced by the regular forward model, so stepping a slot in a batch gives exactly
+ * the same state as calling GameState.next() on it.
+ * A batch is not thread safe; use one per thread.
+ */
+public class GameStateBatch {
+
+    // Actions indexed by their ordinal, to avoid calling values() (which allocates) on every step.
+    private static final Types.ACTIONS[] ACTIONS = Types.ACTIONS.values();
+
+    // States held in each slot. Only the first 'size' slots are in use.
+    private final GameState[] states;
+
+    // Whether the state in each slot is terminal. Terminal slots are not advanced any further.
+    private final boolean[] terminal;
+
+    // Actions of the slot being advanced, reused for every slot and every step.
+    private final Types.ACTIONS[] actionBuffer = new Types.ACTIONS[NUM_PLAYERS];
+
+    // Number of slots in use, and how many of them are not terminal.
+    private int size;
+    private int active;
+
+    /**
+     * Creates an empty batch.
+     * @param capacity maximum number of states in this batch.
+     */
+    public GameStateBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive, got " + capacity);
+        }
+        states = new GameState[capacity];
+        terminal = new boolean[capacity];
+    }
+
+    /**
+     * Fills the first n slots of the batch with copies of the given state, discarding what they held before.
+     * @param root state to copy into every slot.
+     * @param n number of slots to use, at most the capacity of the batch.
+     */
+    public void reset(GameState root, int n) {
+        if (n < 0 || n > states.length) {
+            throw new IllegalArgumentException("Cannot use " + n + " slots in a batch of capacity " + states.length);
+        }
+        size = n;
+        active = 0;
+        for (int i = 0; i < n; i++) {
+            terminal[i] = true;  // Not counted as active until set() sees the new state
+            set(i, root);
+        }
+    }
+
+    /**
+     * Copies a state into one of the slots in use, replacing the state held there.
+     * @param slot index of the slot, smaller than size().
+     * @param source state to copy.
+     */
+    public void set(int slot, GameState source) {
+        checkSlot(slot);
+        if (states[slot] == null) {
+            states[slot] = new GameState(source.getSeed(), source.getBoard().length, source.getGameMode(), false);
+        }
+        source.copyInto(states[slot]);
+
+        boolean wasActive = !terminal[slot];
+        terminal[slot] = states[slot].isTerminal();
+        if (wasActive && terminal[slot]) {
+            active--;
+        } else if (!wasActive && !terminal[slot]) {
+            active++;
+        }
+    }
+
+    /**
+     * Advances every slot in use that is not terminal by one tick. Actions are given as a flat matrix with one row
+     * per slot, in which the action of player p in slot s is at index 's * NUM_PLAYERS + p' and is the ordinal of
+     * a Types.ACTIONS value. Rows of terminal slots are ignored.
+     * @param actions action matrix of at least size() * NUM_PLAYERS entries.
+     * @return number of slots that are not terminal after this step.
+     */
+    public int next(int[] actions) {
+        if (actions.length < size * NUM_PLAYERS) {
+            throw new IllegalArgumentException("Expected " + size * NUM_PLAYERS + " actions, got " + actions.length);
+        }
+        for (int s = 0; s < size; s++) {
+            if (terminal[s]) {
+                continue;
+            }
+            int row = s * NUM_PLAYERS;
+            for (int p = 0; p < NUM_PLAYERS; p++) {
+                actionBuffer[p] = ACTIONS[actions[row + p]];
+            }
+            GameState gs = states[s];
+            gs.next(actionBuffer);
+            if (gs.isTerminal()) {
+                terminal[s] = true;
+                active--;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Gives access to the state in a slot. The state belongs to the batch: it is overwritten by reset() and set(),
+     * and advanced by next(), so it must be copied if it needs to be kept.
+     * @param slot index of the slot, smaller than size().
+     * @return the state in the slot.
+     */
+    public GameState get(int slot) {
+        checkSlot(slot);
+        return states[slot];
+    }
+
+    /**
+     * @param slot index of the slot, smaller than size().
+     * @return true if the state in the slot is terminal, and therefore no longer advanced.
+     */
+    public boolean isTerminal(int slot) {
+        checkSlot(slot);
+        return terminal[slot];
+    }
+
+    /**
+     * @return number of slots in use.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of slots in use that are not terminal.
+     */
+    public int active() {
+        return active;
+    }
+
+    /**
+     * @return maximum number of slots of this batch.
+     */
+    public int capacity() {
+        return states.length;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of " + size + " slots in use");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package core;
+
+import java.util.ArrayDeque;
+
+/**
+ * Per-thread pool of game states, to be used as targets of GameState.copyInto(). A search that copies its root
+ * state on every iteration can acquire a state once and copy into it over and over, and return it to the pool when
+ * done, so states (and the buffers inside them) are reused across searches instead of being garbage collected.
+ * Each thread has its own pool, so no synchronization is needed. States must be released by the same thread that
+ * acquired them, and must not be used after being released.
+ */
+public final class GameStatePool {
+
+    // Maximum number of states kept per thread. States released beyond this are left to the garbage collector.
+    private static final int MAX_POOLED_STATES = 64;
+
+    private static final ThreadLocal<ArrayDeque<GameState>> pool = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private GameStatePool() {}
+
+    /**
+     * Takes a state from this thread's pool (or creates one if the pool is empty) and copies the given state into it.
+     * @param source state to copy.
+     * @return a state equal to source.copy().
+     */
+    public static GameState acquire(GameState source) {
+        GameState gs = pool.get().pollFirst();
+        if (gs == null) {
+            gs = new GameState(source.getSeed(), source.getBoard().length, source.getGameMode(), false);
+        }
+        source.copyInto(gs);
+        return gs;
+    }
+
+    /**
+     * Returns a state to this thread's pool.
+     * @param gs state no longer in use.
+     */
+    public static void release(GameState gs) {
+        ArrayDeque<GameState> states = pool.get();
+        if (states.size() < MAX_POOLED_STATES) {
+            states.addFirst(gs);
+        }
+    }
+
+    /**
+     * @return number of states currently available in this thread's pool.
+     */
+    public static int available() {
+        return pool.get().size();
+    }
+}
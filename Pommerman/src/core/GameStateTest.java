@@ -1,7 +1,13 @@
 package core;
 
+import objects.Avatar;
 import utils.Types;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 class GameStateTest {
 
     @org.junit.jupiter.api.Test
@@ -10,4 +16,296 @@ class GameStateTest {
         gs.init();
         System.out.println(gs.model);
     }
-}
\ No newline at end of file
+
+    @org.junit.jupiter.api.Test
+    void copyIntoMatchesCopy() {
+        for (Types.GAME_MODE mode : new Types.GAME_MODE[]{Types.GAME_MODE.FFA, Types.GAME_MODE.TEAM_RADIO}) {
+            Random rnd = new Random(1234);
+            Types.ACTIONS[] allActions = Types.ACTIONS.values();
+            GameState gs = new GameState(1234, Types.BOARD_SIZE, mode);
+            GameState target = GameStatePool.acquire(gs);
+            GameState observationTarget = GameStatePool.acquire(gs);
+
+            while (!gs.isTerminal()) {
+                Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                for (int i = 0; i < actions.length; i++) {
+                    actions[i] = allActions[rnd.nextInt(allActions.length)];
+                }
+
+                // The reused target is equal to a fresh copy, messages included, and both evolve in the same way
+                GameState copy = gs.copy();
+                GameState snapshot = gs.copy();
+                gs.copyInto(target);
+                assertEquals(copy, target);
+                assertSameMessages(copy, target);
+                copy.next(actions);
+                target.next(actions);
+                assertEquals(copy, target);
+
+                // Same for the state of a player, copied into a target holding messages from earlier copies
+                GameState observation = gs.copy(gs.getTick() % Types.NUM_PLAYERS);
+                if (mode == Types.GAME_MODE.TEAM_RADIO) {
+                    int[] msg = new int[Types.MESSAGE_LENGTH];
+                    Arrays.fill(msg, gs.getTick());
+                    observation.setMessage((gs.getTick() + 1) % Types.NUM_PLAYERS, msg);
+                }
+                GameState observationCopy = observation.copy();
+                observation.copyInto(observationTarget);
+                assertEquals(observationCopy, observationTarget);
+                assertSameMessages(observationCopy, observationTarget);
+
+                // Advancing the target did not modify the state it was copied from
+                assertEquals(snapshot, gs.copy());
+                gs.next(actions);
+            }
+            GameStatePool.release(observationTarget);
+            GameStatePool.release(target);
+            assertSame(target, GameStatePool.acquire(gs));
+        }
+    }
+
+    /**
+     * Checks that two states hold the same messages. Only TEAM_RADIO states have messages.
+     */
+    private static void assertSameMessages(GameState expected, GameState actual) {
+        if (expected.getGameMode() != Types.GAME_MODE.TEAM_RADIO)
+            return;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+            assertArrayEquals(expected.getMessage(i), actual.getMessage(i));
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void copyOnWriteMatchesCopy() {
+        Random rnd = new Random(4321);
+        Types.ACTIONS[] allActions = Types.ACTIONS.values();
+        GameState gs = new GameState(4321, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+
+        while (!gs.isTerminal()) {
+            GameState snapshot = gs.copy();
+            GameState copy = gs.copy();
+            GameState cow = gs.copyOnWrite();
+            GameState cowOfCow = cow.copyOnWrite();
+            assertEquals(copy, cow);
+            assertEquals(copy, cowOfCow);
+
+            // Copies evolve as full copies do, without affecting the state they were made from or each other
+            for (int t = 0; t < 3; t++) {
+                Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                for (int i = 0; i < actions.length; i++) {
+                    actions[i] = allActions[rnd.nextInt(allActions.length)];
+                }
+                copy.next(actions);
+                cow.next(actions);
+                assertEquals(copy, cow);
+            }
+            assertEquals(snapshot, cowOfCow);
+            assertEquals(snapshot, gs.copy());
+
+            Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = allActions[rnd.nextInt(allActions.length)];
+            }
+            gs.next(actions);
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void hash64IsConsistent() {
+        Random rnd = new Random(99);
+        Types.ACTIONS[] allActions = Types.ACTIONS.values();
+        GameState gs = new GameState(99, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+        GameState target = GameStatePool.acquire(gs);
+
+        while (gs.getTick() < Types.MAX_GAME_TICKS) {
+            // The incrementally maintained hash matches a hash computed from scratch
+            long hash = gs.hash64();
+            gs.model.recomputeHashes();
+            assertEquals(hash, gs.hash64());
+
+            // Equal states have equal hashes
+            GameState copy = gs.copy();
+            gs.copyInto(target);
+            assertEquals(copy.hash64(), gs.copyOnWrite().hash64());
+            assertEquals(copy.hash64(), target.hash64());
+
+            Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = allActions[rnd.nextInt(allActions.length)];
+            }
+            gs.next(actions);
+            assertNotEquals(hash, gs.hash64());
+        }
+        GameStatePool.release(target);
+    }
+
+    @org.junit.jupiter.api.Test
+    void batchMatchesSingleStates() {
+        Random rnd = new Random(777);
+        int n = 5;
+        GameState root = new GameState(777, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+        GameState[] singles = new GameState[n];
+        for (int k = 0; k < n; k++) {
+            singles[k] = root.copy();
+        }
+        GameStateBatch batch = new GameStateBatch(n);
+        batch.reset(root, n);
+        assertEquals(n, batch.active());
+
+        // Every slot evolves as a single state given the same actions, and stops once terminal
+        int[] actions = new int[n * Types.NUM_PLAYERS];
+        Types.ACTIONS[] single = new Types.ACTIONS[Types.NUM_PLAYERS];
+        while (batch.active() > 0) {
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = rnd.nextInt(Types.NUM_ACTIONS);
+            }
+            int active = 0;
+            for (int k = 0; k < n; k++) {
+                if (!singles[k].isTerminal()) {
+                    for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+                        single[p] = Types.ACTIONS.values()[actions[k * Types.NUM_PLAYERS + p]];
+                    }
+                    singles[k].next(single);
+                }
+                if (!singles[k].isTerminal()) {
+                    active++;
+                }
+            }
+            assertEquals(active, batch.next(actions));
+            for (int k = 0; k < n; k++) {
+                assertEquals(singles[k], batch.get(k));
+                assertEquals(singles[k].isTerminal(), batch.isTerminal(k));
+            }
+        }
+
+        // Slots can be refilled with a new state
+        batch.reset(root, 2);
+        assertEquals(2, batch.size());
+        assertEquals(2, batch.active());
+        assertEquals(root, batch.get(1));
+    }
+
+    @org.junit.jupiter.api.Test
+    void undoRestoresPreviousTicks() {
+        boolean engine = Types.BITBOARD_ENGINE;
+        try {
+            for (int run = 0; run < 4; run++) {
+                Types.BITBOARD_ENGINE = run % 2 == 1;
+                Types.GAME_MODE mode = run < 2 ? Types.GAME_MODE.FFA : Types.GAME_MODE.TEAM;
+                Random rnd = new Random(run);
+                GameState gs = new GameState(run, Types.BOARD_SIZE, mode);
+                gs.setUndoEnabled(true);
+
+                // Agents can kick, so that bombs move too
+                for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+                    Avatar a = (Avatar) gs.getAgents()[i];
+                    gs.setAgent(i, a.getPosition().x, a.getPosition().y, true, a.getAmmo(), a.getBlastStrength());
+                }
+
+                // Copies and hashes of every tick played and the actions played on it, to compare with after undoing.
+                // Copies hide bomb velocities and flame lives, hashes of the state itself cover bomb velocities.
+                java.util.ArrayList<GameState> snapshots = new java.util.ArrayList<>();
+                java.util.ArrayList<Long> hashes = new java.util.ArrayList<>();
+                java.util.ArrayList<Types.ACTIONS[]> played = new java.util.ArrayList<>();
+                snapshots.add(gs.copy());
+                hashes.add(gs.hash64());
+                while (gs.getTick() < Types.MAX_GAME_TICKS) {
+                    Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                    for (int i = 0; i < actions.length; i++) {
+                        actions[i] = Types.ACTIONS.values()[rnd.nextInt(Types.NUM_ACTIONS)];
+                    }
+                    gs.next(actions);
+                    played.add(actions);
+                    snapshots.add(gs.copy());
+                    hashes.add(gs.hash64());
+                    assertEquals(played.size(), gs.undoDepth());
+
+                    // Every now and then, walk a few ticks back and replay them, with a copy-on-write copy around.
+                    // Replaying checks the information copies hide was restored too.
+                    if (rnd.nextInt(10) == 0) {
+                        GameState cow = gs.copyOnWrite();
+                        int back = 1 + rnd.nextInt(Math.min(5, gs.undoDepth()));
+                        for (int k = 1; k <= back; k++) {
+                            assertTrue(gs.undo());
+                            GameState expected = snapshots.get(snapshots.size() - 1 - k);
+                            assertEquals(expected, gs.copy());
+                            assertEquals(hashes.get(hashes.size() - 1 - k), gs.hash64());
+                        }
+                        for (int k = back; k >= 1; k--) {
+                            gs.next(played.get(played.size() - k));
+                            assertEquals(snapshots.get(snapshots.size() - k), gs.copy());
+                        }
+                        assertEquals(snapshots.get(snapshots.size() - 1), cow);
+                    }
+                }
+
+                // All the way back to the start of the game
+                while (gs.undoDepth() > 0) {
+                    snapshots.remove(snapshots.size() - 1);
+                    hashes.remove(hashes.size() - 1);
+                    assertTrue(gs.undo());
+                    assertEquals(snapshots.get(snapshots.size() - 1), gs.copy());
+                    assertEquals(hashes.get(hashes.size() - 1), gs.hash64());
+                }
+                assertFalse(gs.undo());
+                assertEquals(0, gs.getTick());
+            }
+        } finally {
+            Types.BITBOARD_ENGINE = engine;
+        }
+    }
+
+    /**
+     * Lazy observations are equal to the reduced copies taken at the same tick, even when they are first read after
+     * the true state has moved on.
+     */
+    @org.junit.jupiter.api.Test
+    void observationsMatchCopies() {
+        int visionRange = Types.DEFAULT_VISION_RANGE;
+        try {
+            for (int range : new int[]{-1, 2}) {
+                Types.DEFAULT_VISION_RANGE = range;
+                Random rnd = new Random(42);
+                Types.ACTIONS[] allActions = Types.ACTIONS.values();
+                GameState gs = new GameState(42, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+
+                while (!gs.isTerminal()) {
+                    GameState[] copies = new GameState[Types.NUM_PLAYERS];
+                    GameState[] observations = new GameState[Types.NUM_PLAYERS];
+                    for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+                        copies[i] = gs.copy(i);
+                        observations[i] = gs.observation(i);
+                    }
+
+                    Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+                    for (int i = 0; i < actions.length; i++) {
+                        actions[i] = allActions[rnd.nextInt(allActions.length)];
+                    }
+                    gs.next(actions);
+
+                    for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+                        assertEquals(copies[i], observations[i]);
+                        assertEquals(copies[i].hash64(), observations[i].hash64());
+                        assertEquals(copies[i].winner(), observations[i].winner());
+                    }
+                }
+            }
+        } finally {
+            Types.DEFAULT_VISION_RANGE = visionRange;
+        }
+    }
+
+    /**
+     * Games can be started from observations not reduced yet, which have no model until first used.
+     */
+    @org.junit.jupiter.api.Test
+    void gameFromObservation() {
+        GameState gs = new GameState(7, Types.BOARD_SIZE, Types.GAME_MODE.FFA);
+
+        Game fromState = new Game(gs.observation(0));
+        assertEquals(Types.BOARD_SIZE, fromState.getBoard(0).length);
+
+        Game fromSeedAndState = new Game(7, gs.observation(1), Types.GAME_MODE.FFA);
+        assertEquals(Types.BOARD_SIZE, fromSeedAndState.getBoard(1).length);
+    }
+}
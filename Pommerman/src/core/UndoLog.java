@@ -0,0 +1,251 @@
+package core;
+
+import objects.Avatar;
+import objects.Bomb;
+import objects.GameObject;
+import utils.Types;
+import utils.Vector2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Log of the changes made by each call to ForwardModel.next(), so that the model can be rolled back one tick at a
+ * time (see ForwardModel.undo()). Each tick is recorded as a frame holding:
+ *  - the board and power-up cells written during the tick, with their previous tile types;
+ *  - the contents of the flame, bomb and alive agent lists at the start of the tick, and the state of every flame,
+ *    bomb and agent in them (life, coordinates, bomb velocity, agent stats and result);
+ *  - the hashes and bomb arrays the model had before the tick (next() replaces the bomb arrays, so the old ones
+ *    are kept as they were).
+ * All frames share a few flat journals that grow as needed and are reused once frames are undone, so recording
+ * a tick allocates nothing after the first few ticks.
+ */
+final class UndoLog {
+
+    // Number of frames recorded, and per frame: the first entry of the cell and object journals, hashes, bomb
+    // arrays and their sharing flag, and the number of flames, bombs and alive agents.
+    private int depth;
+    private int[] cellStart = new int[16];
+    private int[] objectStart = new int[16];
+    private long[] boardHash = new long[16];
+    private long[] powerUpHash = new long[16];
+    private int[][][] bombBlastStrength = new int[16][][];
+    private int[][][] bombLife = new int[16][][];
+    private boolean[] bombArraysShared = new boolean[16];
+    private int[] nFlames = new int[16];
+    private int[] nBombs = new int[16];
+    private int[] nAlive = new int[16];
+
+    // Cell journal: index of the cell written ('y * size + x' for the board, its complement for the power-ups),
+    // and the tile type it held before.
+    private int nCells;
+    private int[] cells = new int[64];
+    private Types.TILETYPE[] cellTypes = new Types.TILETYPE[64];
+
+    // Object journal. For each frame: its flames, its bombs, all agents and then the alive agents, in list order.
+    // Object state is only kept for the first three groups.
+    private int nObjects;
+    private GameObject[] objects = new GameObject[64];
+    private int[] life = new int[64];
+    private Vector2d[] position = new Vector2d[64];
+    private Vector2d[] desired = new Vector2d[64];
+    private Vector2d[] velocity = new Vector2d[64];
+    private int[] ammo = new int[64];
+    private int[] blastStrength = new int[64];
+    private boolean[] canKick = new boolean[64];
+    private Types.RESULT[] winner = new Types.RESULT[64];
+
+    /**
+     * Starts a new frame, saving the state of the model objects at the start of the tick.
+     */
+    void push(long boardHash, long powerUpHash, int[][] bombBlastStrength, int[][] bombLife, boolean bombArraysShared,
+              ArrayList<GameObject> flames, ArrayList<GameObject> bombs, GameObject[] agents,
+              ArrayList<GameObject> aliveAgents) {
+        if (depth == cellStart.length) {
+            growFrames();
+        }
+        int f = depth++;
+        cellStart[f] = nCells;
+        objectStart[f] = nObjects;
+        this.boardHash[f] = boardHash;
+        this.powerUpHash[f] = powerUpHash;
+        this.bombBlastStrength[f] = bombBlastStrength;
+        this.bombLife[f] = bombLife;
+        this.bombArraysShared[f] = bombArraysShared;
+        nFlames[f] = flames.size();
+        nBombs[f] = bombs.size();
+        nAlive[f] = aliveAgents.size();
+
+        for (GameObject o : flames) saveObject(o);
+        for (GameObject o : bombs) saveObject(o);
+        for (GameObject o : agents) saveObject(o);
+        for (GameObject o : aliveAgents) {
+            ensureObjects(nObjects + 1);
+            objects[nObjects++] = o;
+        }
+    }
+
+    /**
+     * Records that a board cell is about to be written.
+     * @param cell index of the cell, 'y * size + x'
+     * @param previous tile type held by the cell before the write
+     */
+    void tile(int cell, Types.TILETYPE previous) {
+        saveCell(cell, previous);
+    }
+
+    /**
+     * Records that a cell of the power-ups array is about to be written.
+     * @param cell index of the cell, 'y * size + x'
+     * @param previous power-up held by the cell before the write
+     */
+    void powerUp(int cell, Types.TILETYPE previous) {
+        saveCell(~cell, previous);
+    }
+
+    /**
+     * @return number of frames recorded.
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Discards all frames.
+     */
+    void clear() {
+        while (depth > 0) {
+            pop();
+        }
+    }
+
+    // Accessors for the last frame, used by ForwardModel.undo().
+
+    int firstCell() { return cellStart[depth - 1]; }
+    int cellCount() { return nCells; }
+    int cell(int i) { return cells[i]; }
+    Types.TILETYPE cellType(int i) { return cellTypes[i]; }
+    long boardHash() { return boardHash[depth - 1]; }
+    long powerUpHash() { return powerUpHash[depth - 1]; }
+    int[][] bombBlastStrength() { return bombBlastStrength[depth - 1]; }
+    int[][] bombLife() { return bombLife[depth - 1]; }
+    boolean bombArraysShared() { return bombArraysShared[depth - 1]; }
+
+    /**
+     * Restores the lists of the model and the state of the objects in them to the start of the last frame.
+     */
+    void restoreObjects(ArrayList<GameObject> flames, ArrayList<GameObject> bombs, GameObject[] agents,
+                        ArrayList<GameObject> aliveAgents) {
+        int f = depth - 1;
+        int i = objectStart[f];
+
+        flames.clear();
+        for (int n = 0; n < nFlames[f]; n++, i++) {
+            flames.add(restoreObject(i));
+        }
+        bombs.clear();
+        for (int n = 0; n < nBombs[f]; n++, i++) {
+            bombs.add(restoreObject(i));
+        }
+        for (int n = 0; n < agents.length; n++, i++) {
+            restoreObject(i);
+        }
+        aliveAgents.clear();
+        for (int n = 0; n < nAlive[f]; n++, i++) {
+            aliveAgents.add(objects[i]);
+        }
+    }
+
+    /**
+     * Discards the last frame.
+     */
+    void pop() {
+        int f = --depth;
+        nCells = cellStart[f];
+        int end = nObjects;
+        nObjects = objectStart[f];
+        Arrays.fill(objects, nObjects, end, null);
+        Arrays.fill(position, nObjects, end, null);
+        Arrays.fill(desired, nObjects, end, null);
+        Arrays.fill(velocity, nObjects, end, null);
+        bombBlastStrength[f] = null;
+        bombLife[f] = null;
+    }
+
+    private void saveCell(int cell, Types.TILETYPE previous) {
+        if (nCells == cells.length) {
+            cells = Arrays.copyOf(cells, nCells * 2);
+            cellTypes = Arrays.copyOf(cellTypes, nCells * 2);
+        }
+        cells[nCells] = cell;
+        cellTypes[nCells] = previous;
+        nCells++;
+    }
+
+    private void saveObject(GameObject o) {
+        ensureObjects(nObjects + 1);
+        int i = nObjects++;
+        objects[i] = o;
+        life[i] = o.getLife();
+        position[i] = o.getPosition();
+        desired[i] = o.getDesiredCoordinate();
+        if (o instanceof Bomb) {
+            velocity[i] = ((Bomb) o).getVelocity();
+        } else if (o instanceof Avatar) {
+            Avatar a = (Avatar) o;
+            ammo[i] = a.getAmmo();
+            blastStrength[i] = a.getBlastStrength();
+            canKick[i] = a.canKick();
+            winner[i] = a.getWinner();
+        }
+    }
+
+    private GameObject restoreObject(int i) {
+        GameObject o = objects[i];
+        o.setLife(life[i]);
+        if (position[i] != null) o.setPosition(position[i]);
+        else o.setPositionNull();
+        if (desired[i] != null) o.setDesiredCoordinate(desired[i]);
+        else o.setDesiredCoordinateNull();
+        if (o instanceof Bomb) {
+            ((Bomb) o).setVelocity(velocity[i]);
+        } else if (o instanceof Avatar) {
+            Avatar a = (Avatar) o;
+            a.setAmmo(ammo[i]);
+            a.setBlastStrength(blastStrength[i]);
+            a.setCanKick(canKick[i]);
+            a.setWinner(winner[i]);
+        }
+        return o;
+    }
+
+    private void ensureObjects(int n) {
+        if (n <= objects.length) {
+            return;
+        }
+        int capacity = Math.max(n, objects.length * 2);
+        objects = Arrays.copyOf(objects, capacity);
+        life = Arrays.copyOf(life, capacity);
+        position = Arrays.copyOf(position, capacity);
+        desired = Arrays.copyOf(desired, capacity);
+        velocity = Arrays.copyOf(velocity, capacity);
+        ammo = Arrays.copyOf(ammo, capacity);
+        blastStrength = Arrays.copyOf(blastStrength, capacity);
+        canKick = Arrays.copyOf(canKick, capacity);
+        winner = Arrays.copyOf(winner, capacity);
+    }
+
+    private void growFrames() {
+        int capacity = depth * 2;
+        cellStart = Arrays.copyOf(cellStart, capacity);
+        objectStart = Arrays.copyOf(objectStart, capacity);
+        boardHash = Arrays.copyOf(boardHash, capacity);
+        powerUpHash = Arrays.copyOf(powerUpHash, capacity);
+        bombBlastStrength = Arrays.copyOf(bombBlastStrength, capacity);
+        bombLife = Arrays.copyOf(bombLife, capacity);
+        bombArraysShared = Arrays.copyOf(bombArraysShared, capacity);
+        nFlames = Arrays.copyOf(nFlames, capacity);
+        nBombs = Arrays.copyOf(nBombs, capacity);
+        nAlive = Arrays.copyOf(nAlive, capacity);
+    }
+}
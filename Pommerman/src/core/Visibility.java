@@ -0,0 +1,97 @@
+package core;
+
+import utils.Types;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed data to reduce game states to what an agent can see (see ForwardModel.reduce()), for one board size
+ * and vision range. Agents see the square of cells within their vision range (custom_dist is the Chebyshev
+ * distance), so the visible part of a row is a single span; for the bitboard engine, the visible cells from each
+ * position of the board are kept as bit masks. The hash of a board covered in fog is kept as well, so the hash of
+ * a reduced board only needs the visible cells.
+ * Instances are immutable, and cached per board size and vision range (see of()).
+ */
+final class Visibility {
+
+    // Instances, indexed by board size and vision range. The table and its rows are never modified once published:
+    // a new instance replaces the table with an extended copy.
+    private static volatile Visibility[][] cache = new Visibility[0][];
+
+    final int size;
+    final int range;
+
+    // XOR of the Zobrist keys of fog on every cell of the board.
+    final long fogHash;
+
+    // Visible cells from each cell of the board, indexed 'y * size + x', and an empty mask for unknown positions.
+    private final long[][] masks;
+    private final long[] none;
+
+    private Visibility(int size, int range) {
+        this.size = size;
+        this.range = range;
+
+        long hash = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            hash ^= Zobrist.tile(cell, Types.TILETYPE.FOG);
+        }
+        fogHash = hash;
+
+        int words = BitBoard.wordsFor(size);
+        masks = new long[size * size][];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                long[] mask = new long[words];
+                for (int vy = Math.max(0, y - range); vy <= Math.min(size - 1, y + range); vy++) {
+                    for (int vx = Math.max(0, x - range); vx <= Math.min(size - 1, x + range); vx++) {
+                        BitBoard.setBit(mask, vy * size + vx);
+                    }
+                }
+                masks[y * size + x] = mask;
+            }
+        }
+        none = new long[words];
+    }
+
+    /**
+     * @return visibility data for the given board size and vision range. Instances are created once per size and
+     * range, and read without locking afterwards. Ranges of size or more all see the whole board, and share one.
+     */
+    static Visibility of(int size, int range) {
+        range = Math.min(range, size);
+        Visibility[][] table = cache;
+        Visibility v = size < table.length && table[size] != null && range < table[size].length
+                ? table[size][range] : null;
+        return v != null ? v : add(size, range);
+    }
+
+    /**
+     * Creates the instance of a board size and vision range and publishes it in a copy of the table, unless another
+     * thread did it first.
+     */
+    private static synchronized Visibility add(int size, int range) {
+        Visibility[][] table = cache;
+        Visibility[] row = size < table.length && table[size] != null ? table[size] : new Visibility[0];
+        if (range < row.length && row[range] != null)
+            return row[range];
+
+        Visibility v = new Visibility(size, range);
+        row = Arrays.copyOf(row, Math.max(row.length, range + 1));
+        row[range] = v;
+        table = Arrays.copyOf(table, Math.max(table.length, size + 1));
+        table[size] = row;
+        cache = table;
+        return v;
+    }
+
+    /**
+     * Mask of the cells visible from a position. The returned array must not be modified.
+     * @param x x coordinate of the position, or -1 if the position is unknown.
+     * @param y y coordinate of the position.
+     * @return mask of the visible cells, empty if the position is unknown.
+     */
+    long[] mask(int x, int y) {
+        return x < 0 ? none : masks[y * size + x];
+    }
+}
@@ -0,0 +1,72 @@
+package core;
+
+import utils.Types;
+
+/**
+ * Zobrist keys used to hash game states. Each component of a state (a tile of the board, a hidden power-up, a bomb,
+ * an agent or the game tick) has a pseudo-random 64-bit key, and the hash of a state is the XOR of the keys of all
+ * its components, so it can be updated incrementally when a single component changes.
+ * Keys are derived from the component with the SplitMix64 finalizer instead of being drawn from random tables, so
+ * they are the same in every run, for boards of any size.
+ */
+final class Zobrist {
+
+    // Seeds for the different kinds of components, so that equal values in different kinds get different keys.
+    private static final long BOARD_SEED = 0x3C6EF372FE94F82BL;
+    private static final long POWERUP_SEED = 0xA54FF53A5F1D36F1L;
+    private static final long BOMB_SEED = 0x510E527FADE682D1L;
+    private static final long AGENT_SEED = 0x9B05688C2B3E6C1FL;
+    private static final long TICK_SEED = 0x1F83D9ABFB41BD6BL;
+
+    private Zobrist() {}
+
+    /**
+     * @return key of a tile of the board, or 0 for a null (not yet set) tile.
+     */
+    static long tile(int cell, Types.TILETYPE type) {
+        if (type == null) return 0;
+        return mix(BOARD_SEED + ((long) cell << 8) + type.getKey());
+    }
+
+    /**
+     * @return key of a hidden power-up, or 0 if there is no power-up at the cell.
+     */
+    static long powerUp(int cell, Types.TILETYPE type) {
+        if (type == null) return 0;
+        return mix(POWERUP_SEED + ((long) cell << 8) + type.getKey());
+    }
+
+    /**
+     * @return key of a bomb at the given cell, with the given life, blast strength and velocity.
+     */
+    static long bomb(int cell, int life, int blastStrength, int vx, int vy) {
+        long packed = ((long) cell << 32) | ((long) (life & 0xFF) << 24) | ((long) (blastStrength & 0xFF) << 16)
+                | ((long) (vx & 0xFF) << 8) | (vy & 0xFF);
+        return mix(BOMB_SEED ^ packed);
+    }
+
+    /**
+     * @return key of an agent, given its index, cell (-1 if its position is unknown), stats and game result.
+     */
+    static long agent(int idx, int cell, int ammo, boolean canKick, int blastStrength, Types.RESULT winner) {
+        long packed = ((long) idx << 56) | ((long) (cell & 0xFFFFFF) << 32) | ((long) (ammo & 0xFF) << 24)
+                | ((long) (blastStrength & 0xFF) << 16) | ((canKick ? 1L : 0L) << 8) | winner.ordinal();
+        return mix(AGENT_SEED ^ packed);
+    }
+
+    /**
+     * @return key of the game tick.
+     */
+    static long tick(int tick) {
+        return mix(TICK_SEED + tick);
+    }
+
+    /**
+     * SplitMix64 finalizer: a bijective mix of the bits of z.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
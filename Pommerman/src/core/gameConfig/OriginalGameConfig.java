@@ -26,65 +26,44 @@ public class OriginalGameConfig implements IGameConfig {
 
     @Override
     public Types.TILETYPE[] getTeammates(Types.GAME_MODE gameMode, int playerID) {
-
+        int idx = playerID - Types.TILETYPE.AGENT0.getKey();
+        if (idx < 0 || idx >= Types.NUM_PLAYERS) {
+            System.out.println("WARNING: Unknown teammates for " + playerID + " in game mode " + gameMode);
+            return new Types.TILETYPE[0];
+        }
 
         if (gameMode == Types.GAME_MODE.FFA) { // FFA Mode
             return new Types.TILETYPE[] {Types.TILETYPE.AGENTDUMMY};
-
-        } else { // Team Mode
-
-            if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT0){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT2};
-            }
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT1){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT3};
-            }
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT2){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT0};
-            }
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT3){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT1};
-            }
         }
 
-        System.out.println("WARNING: Unknown teammates for " + playerID + " in game mode " + gameMode);
-        return new Types.TILETYPE[0];
+        // Team Mode: the other players with the same index parity (AGENT0 and AGENT2 in the original game)
+        ArrayList<Types.TILETYPE> teammates = new ArrayList<>();
+        for (int i = idx % 2; i < Types.NUM_PLAYERS; i += 2) {
+            if (i != idx)
+                teammates.add(Types.TILETYPE.agent(i));
+        }
+        return teammates.toArray(new Types.TILETYPE[0]);
     }
 
     @Override
     public Types.TILETYPE[] getEnemies(Types.GAME_MODE gameMode, int playerID) {
-
-
-        if (gameMode == Types.GAME_MODE.FFA) { // FFA Mode
-
-            if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT0)
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT1, Types.TILETYPE.AGENT2, Types.TILETYPE.AGENT3};
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT1)
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT0, Types.TILETYPE.AGENT2, Types.TILETYPE.AGENT3};
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT2)
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT0, Types.TILETYPE.AGENT1, Types.TILETYPE.AGENT3};
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT3)
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT0, Types.TILETYPE.AGENT1, Types.TILETYPE.AGENT2};
-
-        } else { // Team Mode
-
-            // Hardcoded for array initialisation
-            if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT0){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT1, Types.TILETYPE.AGENT3, Types.TILETYPE.AGENTDUMMY};
-            }
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT1){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT0, Types.TILETYPE.AGENT2, Types.TILETYPE.AGENTDUMMY};
-            }
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT2){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT1, Types.TILETYPE.AGENT3, Types.TILETYPE.AGENTDUMMY};
-            }
-            else if(Types.TILETYPE.values()[playerID] == Types.TILETYPE.AGENT3){
-                return new Types.TILETYPE[] {Types.TILETYPE.AGENT0, Types.TILETYPE.AGENT2, Types.TILETYPE.AGENTDUMMY};
-            }
+        int idx = playerID - Types.TILETYPE.AGENT0.getKey();
+        if (idx < 0 || idx >= Types.NUM_PLAYERS) {
+            System.out.println("WARNING: Unknown enemies for " + playerID + " in game mode " + gameMode);
+            return new Types.TILETYPE[0];
         }
 
-        System.out.println("WARNING: Unknown enemies for " + playerID + " in game mode " + gameMode);
-        return new Types.TILETYPE[0];
+        ArrayList<Types.TILETYPE> enemies = new ArrayList<>();
+        for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+            // FFA Mode: everyone else. Team Mode: the players of the other team.
+            if (i != idx && (gameMode == Types.GAME_MODE.FFA || i % 2 != idx % 2))
+                enemies.add(Types.TILETYPE.agent(i));
+        }
+        if (gameMode != Types.GAME_MODE.FFA) {
+            // Padded with the dummy agent for array initialisation, as in the original game
+            enemies.add(Types.TILETYPE.AGENTDUMMY);
+        }
+        return enemies.toArray(new Types.TILETYPE[0]);
     }
 
 
@@ -93,24 +72,19 @@ public class OriginalGameConfig implements IGameConfig {
 
         Types.TILETYPE[][] teams;
         if (gameMode == Types.GAME_MODE.FFA) { // FFA Mode
-            //4 teams with one agent on each.
-            teams = new Types.TILETYPE[4][1];
-
-            teams[0][0] = Types.TILETYPE.AGENT0;
-            teams[1][0] = Types.TILETYPE.AGENT2;
-            teams[2][0] = Types.TILETYPE.AGENT1;
-            teams[3][0] = Types.TILETYPE.AGENT3;
+            //One team per agent.
+            teams = new Types.TILETYPE[Types.NUM_PLAYERS][1];
+            for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+                teams[i][0] = Types.TILETYPE.agent(i);
+            }
         }else{
-            //Original Pommerman has 2 teams with pairs {{AGENT0, AGENT2}{AGENT1, AGENT3}}
-            teams = new Types.TILETYPE[2][2];
-
-            //Team 0
-            teams[0][0] = Types.TILETYPE.AGENT0;
-            teams[0][1] = Types.TILETYPE.AGENT2;
-
-            //Team 1
-            teams[1][0] = Types.TILETYPE.AGENT1;
-            teams[1][1] = Types.TILETYPE.AGENT3;
+            //Original Pommerman has 2 teams with pairs {{AGENT0, AGENT2}{AGENT1, AGENT3}}; with more players, teams
+            //are split by index parity the same way (padded with AGENTDUMMY if the number of players is odd).
+            teams = new Types.TILETYPE[2][(Types.NUM_PLAYERS + 1) / 2];
+            teams[1][teams[1].length - 1] = Types.TILETYPE.AGENTDUMMY;
+            for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+                teams[i % 2][i / 2] = Types.TILETYPE.agent(i);
+            }
         }
 
         return teams;
@@ -258,14 +232,14 @@ public class OriginalGameConfig implements IGameConfig {
 
 
     /**
-     * Retrieves the count of agents left alive per team. In FFA mode returns 4 teams of 1 player.
-     * @return array of ints with the count for each team. In team modes the order is team [0,2], team [1,3].
+     * Retrieves the count of agents left alive per team. In FFA mode returns one team of 1 player per agent.
+     * @return array of ints with the count for each team. In team modes the order is team [0,2,...], team [1,3,...].
      */
     private int[] getAliveCountPerTeam(Types.GAME_MODE gameMode, ArrayList<GameObject> aliveAgents) {
 
         int[] alive;
         if (gameMode == Types.GAME_MODE.FFA) {
-            alive = new int[4];
+            alive = new int[Types.NUM_PLAYERS];
             for (GameObject a : aliveAgents) {
                 alive[a.getType().getKey()-10]++;
             }
@@ -273,10 +247,7 @@ public class OriginalGameConfig implements IGameConfig {
         } else { // Types.GAME_MODE.TEAM & Types.GAME_MODE.TEAM_RADIO
             alive = new int[2];
             for (GameObject a : aliveAgents) {
-                if (a.getType() == Types.TILETYPE.AGENT0 || a.getType() == Types.TILETYPE.AGENT2)
-                    alive[0]++;
-                else
-                    alive[1]++;
+                alive[(a.getType().getKey() - Types.TILETYPE.AGENT0.getKey()) % 2]++;
             }
         }
 
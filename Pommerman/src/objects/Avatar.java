@@ -22,7 +22,7 @@ public class Avatar extends GameObject {
     private int team; // Only relevant in non-FFA games
 
     public Avatar(int pId, Types.GAME_MODE gameMode) {
-        super(Types.TILETYPE.values()[pId]);
+        super(Types.TILETYPE.fromKey(pId));
         playerID = pId;
 
         if(gameMode != null) {
@@ -35,8 +35,8 @@ public class Avatar extends GameObject {
     public Avatar(int pId, int x, int y, boolean canKick, int ammo, int blastStrength, Types.GAME_MODE gameMode){
         // todo new constructor for building from observation
         // contain all info that we get
-        super(Types.TILETYPE.values()[pId], x, y);
-        super.position = new Vector2d(x, y);
+        super(Types.TILETYPE.fromKey(pId), x, y);
+        super.position = Vector2d.of(x, y);
         playerID = pId;
         this.canKick = canKick;
         this.ammo = ammo;
@@ -85,6 +85,28 @@ public class Avatar extends GameObject {
         return copy;
     }
 
+    @Override
+    public void copyInto(GameObject target) {
+        super.copyInto(target);
+        Avatar copy = (Avatar) target;
+        copy.playerID = playerID;
+        copy.canKick = canKick;
+        copy.ammo = ammo;
+        copy.blastStrength = blastStrength;
+        copy.winner = winner;
+        copy.visionRange = visionRange;
+        copy.team = team;
+        copy.enemies = copyTypes(enemies, copy.enemies);
+        copy.teammates = copyTypes(teammates, copy.teammates);
+    }
+
+    private static Types.TILETYPE[] copyTypes(Types.TILETYPE[] source, Types.TILETYPE[] target) {
+        if (target == null || target.length != source.length)
+            return source.clone();
+        System.arraycopy(source, 0, target, 0, source.length);
+        return target;
+    }
+
     public int getBlastStrength() {
         return blastStrength;
     }
@@ -129,6 +151,10 @@ public class Avatar extends GameObject {
         this.canKick = true;
     }
 
+    public void setCanKick(boolean canKick) {
+        this.canKick = canKick;
+    }
+
     public void setWinner(Types.RESULT winner) {
         this.winner = winner;
     }
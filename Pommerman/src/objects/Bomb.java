@@ -5,11 +5,15 @@ import utils.Utils;
 import utils.Vector2d;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static utils.Types.*;
 
 public class Bomb extends GameObject {
 
+    // Types flames can't be placed on.
+    private static final ArrayList<Types.TILETYPE> FLAME_COLLISIONS = new ArrayList<>(Arrays.asList(Types.TILETYPE.RIGID));
+
     private int blastStrength;
     private Vector2d velocity;
     private int playerIdx;
@@ -19,7 +23,7 @@ public class Bomb extends GameObject {
         this.life = life;
         this.blastStrength = blastStrength;
         this.playerIdx = pIdx;
-        velocity = new Vector2d();
+        velocity = Vector2d.of(0, 0);
     }
 
     public Bomb() {
@@ -44,6 +48,15 @@ public class Bomb extends GameObject {
         return copy;
     }
 
+    @Override
+    public void copyInto(GameObject target) {
+        super.copyInto(target);
+        Bomb bomb = (Bomb) target;
+        bomb.blastStrength = blastStrength;
+        bomb.playerIdx = playerIdx;
+        bomb.velocity = velocity;
+    }
+
     public ArrayList<GameObject> explode(boolean forceExplode, Types.TILETYPE[][] board, Types.TILETYPE[][] powerups) {
         ArrayList<GameObject> flames = new ArrayList<>();
 
@@ -87,13 +100,10 @@ public class Bomb extends GameObject {
         if (x < 0 || y < 0 || x >= board.length || y >= board.length) {
             return false;
         }
-        ArrayList<Types.TILETYPE> flameCollisions = new ArrayList<>();
-        flameCollisions.add(Types.TILETYPE.RIGID);
-
         Types.TILETYPE type = board[y][x];
         Flame f = new Flame();
         f.playerIdx = playerIdx;
-        boolean success = Utils.setDesiredCoordinate(f, new Vector2d(x, y), board, flameCollisions);
+        boolean success = Utils.setDesiredCoordinate(f, Vector2d.of(x, y), board, FLAME_COLLISIONS);
         if (success) {
             f.setPosition(f.getDesiredCoordinate());
             flames.add(f);
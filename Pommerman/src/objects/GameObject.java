@@ -25,23 +25,23 @@ public class GameObject {
     public GameObject(utils.Types.TILETYPE type, int x, int y){
         this.type = type;
         this.img = type.getImage();
-        this.desiredCoordinate = new Vector2d(x, y);
+        this.desiredCoordinate = Vector2d.of(x, y);
     }
 
     public GameObject(utils.Types.TILETYPE type){
         this.type = type;
         this.img = type.getImage();
-        this.desiredCoordinate = new Vector2d();
+        this.desiredCoordinate = Vector2d.of(0, 0);
     }
 
     public GameObject(int x, int y){
         this.img = type.getImage();
-        this.desiredCoordinate = new Vector2d(x, y);
+        this.desiredCoordinate = Vector2d.of(x, y);
     }
 
     public GameObject(){
         this.img = type.getImage();
-        this.desiredCoordinate = new Vector2d();
+        this.desiredCoordinate = Vector2d.of(0, 0);
     }
 
     public static boolean boardEquals(GameObject[][] board1, GameObject[][] board2) {
@@ -150,6 +150,22 @@ public class GameObject {
         return copy;
     }
 
+    /**
+     * Copies this object into another object of the same class, without producing garbage (coordinate vectors are
+     * immutable and shared). The target ends up equal to a copy() of this object.
+     * @param target object to copy into, of the same class as this one.
+     */
+    public void copyInto(GameObject target) {
+        if (target.type != type) {
+            target.type = type;
+            target.img = img;
+        }
+        target.life = life;
+        target.id = hashCode();
+        target.position = position;
+        target.desiredCoordinate = desiredCoordinate;
+    }
+
     public Image getImage() { return img;}
 
     /**
@@ -3,21 +3,34 @@ package players;
 import core.GameState;
 import players.heuristics.CustomHeuristic;
 import players.heuristics.StateHeuristic;
+import players.rollouts.PolicySchedule;
+import players.rollouts.RolloutPolicies;
 import utils.Types;
 import utils.Utils;
-import utils.Vector2d;
 
 import java.util.ArrayList;
 import java.util.Random;
 
 public class OSLAPlayer extends Player {
     private Random random;
-    private boolean rndOpponentModel;
     public double epsilon = 1e-6;
     private StateHeuristic rootStateHeuristic;
 
+    // Type of the policy playing the moves of the other players (see RolloutPolicies), and the policy itself.
+    private int opponentPolicyType;
+    private PolicySchedule opponentPolicy;
+    private Types.ACTIONS[] actionsAll = new Types.ACTIONS[0];
+
     public OSLAPlayer(long seed, int id) {
+        this(seed, id, RolloutPolicies.RANDOM);
+    }
+
+    /**
+     * @param opponentPolicy type of the policy playing the moves of the other players (see RolloutPolicies).
+     */
+    public OSLAPlayer(long seed, int id, int opponentPolicy) {
         super(seed, id);
+        this.opponentPolicyType = opponentPolicy;
         reset(seed, id);
     }
 
@@ -25,13 +38,13 @@ public class OSLAPlayer extends Player {
     public void reset(long seed, int playerID) {
         super.reset(seed, playerID);
         random = new Random(seed);
+        opponentPolicy = new PolicySchedule(opponentPolicyType, opponentPolicyType, 0, random);
     }
 
     @Override
     public Types.ACTIONS act(GameState gs) {
 
         rootStateHeuristic = new CustomHeuristic(gs);
-        rndOpponentModel = true;
 
         ArrayList<Types.ACTIONS> actionsList = Types.ACTIONS.all();
         double maxQ = Double.NEGATIVE_INFINITY;
@@ -65,30 +78,18 @@ public class OSLAPlayer extends Player {
 
     @Override
     public Player copy() {
-        return new OSLAPlayer(seed, playerID);
+        return new OSLAPlayer(seed, playerID, opponentPolicyType);
     }
 
     private void rollRnd(GameState gs, Types.ACTIONS act)
     {
-        //Simple, all random first, then my position.
-        int nPlayers = 4;
-        Types.ACTIONS[] actionsAll = new Types.ACTIONS[4];
-
-        for(int i = 0; i < nPlayers; ++i)
-        {
-            if(i == getPlayerID() - Types.TILETYPE.AGENT0.getKey())
-            {
-                actionsAll[i] = act;
-            }else{
-                if(rndOpponentModel){
-                    int actionIdx = random.nextInt(gs.nActions());
-                    actionsAll[i] = Types.ACTIONS.all().get(actionIdx);
-                }else
-                {
-                    actionsAll[i] = Types.ACTIONS.ACTION_STOP;
-                }
-            }
-        }
+        int nPlayers = Types.NUM_PLAYERS;
+        if (actionsAll.length != nPlayers)
+            actionsAll = new Types.ACTIONS[nPlayers];
+        int playerIdx = getPlayerID() - Types.TILETYPE.AGENT0.getKey();
+
+        actionsAll[playerIdx] = act;
+        opponentPolicy.fill(gs, 0, actionsAll, playerIdx, random);
 
         gs.next(actionsAll);
     }
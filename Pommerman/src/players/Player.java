@@ -29,6 +29,21 @@ public abstract class Player {
      */
     public abstract Types.ACTIONS act(GameState gs);
 
+    /**
+     * Function called by the game right after this player returned its action, while the game advances and the other
+     * players decide. Players may keep searching in the background until stopPondering() is called, which the game
+     * does before asking for the next action, when the player dies and at the end of the game. Pondering is opt-in:
+     * by default, players do nothing.
+     * @param gs - game state the player just acted on.
+     */
+    public void ponder(GameState gs) {}
+
+    /**
+     * Stops the background search started by ponder(GameState), if any, and waits for it to finish. Called from the
+     * game thread, so implementations must be safe to call while the player is pondering.
+     */
+    public void stopPondering() {}
+
     /**
      * Function that is called for requesting a message from the player
      * @return int array, representing the message to be passed for the teammate
@@ -175,8 +175,8 @@ public class SimpleEvoAgent extends Player {
     private Types.ACTIONS[] actAllPlayers(GameState gs, int myAction, int playerId)
     {
         //Simple, all random first, then my position.
-        int nPlayers = 4;
-        Types.ACTIONS[] actionsAll = new Types.ACTIONS[4];
+        int nPlayers = Types.NUM_PLAYERS;
+        Types.ACTIONS[] actionsAll = new Types.ACTIONS[Types.NUM_PLAYERS];
         for(int i = 0; i < nPlayers; ++i)
         {
             if(i == playerId - Types.TILETYPE.AGENT0.getKey())
@@ -94,17 +94,17 @@ public class SimplePlayer extends Player {
                 if(type == Types.TILETYPE.BOMB || bombBlastStrength[y][x] > 0){
                     // Create bomb object
                     Bomb bomb = new Bomb();
-                    bomb.setPosition(new Vector2d(x, y));
+                    bomb.setPosition(Vector2d.of(x, y));
                     bomb.setBlastStrength(bombBlastStrength[y][x]);
                     bomb.setLife(bombLife[y][x]);
                     bombs.add(bomb);
                 }
-                else if(Types.TILETYPE.getAgentTypes().contains(type) &&
+                else if(Types.TILETYPE.isAgent(type) &&
                         type.getKey() != gs.getPlayerId()){ // May be an enemy
                     if(enemiesObs.contains(type)) { // Is enemy
                         // Create enemy object
                         GameObject enemy = new GameObject(type);
-                        enemy.setPosition(new Vector2d(x, y));
+                        enemy.setPosition(Vector2d.of(x, y));
                         enemies.add(enemy); // no copy needed
                     }
                 }
@@ -166,12 +166,12 @@ public class SimplePlayer extends Player {
         // 5) Move towards a good item if there is one within two reachable spaces.
         // good items are the pickups
         it = items.entrySet().iterator();
-        Vector2d previousNode = new Vector2d(-1, -1); // placeholder, these values are not actually used
+        Vector2d previousNode = Vector2d.of(-1, -1); // placeholder, these values are not actually used
         int distance = Integer.MAX_VALUE;
         while (it.hasNext()){
             Map.Entry<Types.TILETYPE, ArrayList<Vector2d> > entry = (Map.Entry)it.next();
             // check pickup entries on the board
-            if (Types.TILETYPE.getPowerUpTypes().contains(entry.getKey())){
+            if (Types.TILETYPE.isPowerUp(entry.getKey())){
                 // no need to store just get closest
                 for (Vector2d coords: entry.getValue()){
                     if (dist.get(coords) < distance){
@@ -282,7 +282,7 @@ public class SimplePlayer extends Player {
         for(int r = max(0, myPosition.x - depth); r < min(board.length, myPosition.x + depth); r++){
             for(int c = max(0, myPosition.y - depth); c < min(board.length, myPosition.y + depth); c++){
 
-                Vector2d position = new Vector2d(r, c);
+                Vector2d position = Vector2d.of(r, c);
 
                 // Determines if two points are out of range of each other.
                 boolean out_of_range = (abs(c - myPosition.y) + abs(r - myPosition.x)) > depth;
@@ -336,7 +336,7 @@ public class SimplePlayer extends Player {
                 for (Types.DIRECTIONS directionToBeChecked : directionsToBeChecked) {
 
                     Vector2d direction = directionToBeChecked.toVec();
-                    Vector2d new_position = new Vector2d(position.x + direction.x, position.y + direction.y);
+                    Vector2d new_position = Vector2d.of(position.x + direction.x, position.y + direction.y);
 
                     if(!dist.containsKey(new_position))
                         continue;
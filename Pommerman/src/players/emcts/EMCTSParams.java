@@ -1,12 +1,15 @@
 package players.emcts;
 
 import players.optimisers.ParameterSet;
+import utils.BudgetController;
 import utils.Pair;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
+import static players.rollouts.RolloutPolicies.*;
+
 @SuppressWarnings("WeakerAccess")
 public class EMCTSParams implements ParameterSet {
 
@@ -29,12 +32,27 @@ public class EMCTSParams implements ParameterSet {
     public int rollout_depth = 8;//10;
     public int heuristic_method = CUSTOM_HEURISTIC;
 
+    // Policy playing the moves of the other players (see players.rollouts.RolloutPolicies).
+    public int opponent_policy = RANDOM;
+
     // Budget settings
     public int stop_type = STOP_TIME;
     public int num_iterations = 200;
     public int num_fmcalls = 2000;
     public int num_time = 40;
 
+    // Time budget control (STOP_TIME, see utils.BudgetController).
+    public int time_check_interval = 16;
+    public double time_margin = 2;
+    public double time_sigmas = 2;
+
+    /**
+     * @return a time budget of num_time ms for a search, started now.
+     */
+    public BudgetController newBudget() {
+        return new BudgetController(num_time, time_check_interval, time_margin, time_sigmas);
+    }
+
     @Override
     public void setParameterValue(String param, Object value) {
         switch(param) {
@@ -4,7 +4,8 @@ import core.GameState;
 import players.heuristics.AdvancedHeuristic;
 import players.heuristics.CustomHeuristic;
 import players.heuristics.StateHeuristic;
-import utils.ElapsedCpuTimer;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
 import utils.Types;
 import utils.Utils;
 import utils.Vector2d;
@@ -34,6 +35,7 @@ public class EvoNode
     private ArrayList<EvoNode> children; // Can append easily this way, may not search all possible children
     private ArrayList<Double> childrenScores; // Children scores, can be fetched by index as well
     private Types.ACTIONS[] actions;
+    private int childIdx; // Index of this node in the children of its parent, which is the index of its action
 
     // Total value accumulated from
     private double totalValue;
@@ -52,7 +54,7 @@ public class EvoNode
 
     // E-MCTS Variables:
     private Types.ACTIONS[] genome; // gives actual action actionBuffer hold int indices
-    private boolean rndOpponentModel;
+    private PolicySchedule opponentPolicy; // plays the other players' moves, shared by the whole tree
 
     // METHODS: ********************************************************************************************************
     // Constructor:
@@ -87,11 +89,13 @@ public class EvoNode
         // Initialize the depth we are in. If not null, inherit from parent + 1
         if(parent != null) {
             nodeDepth = parent.nodeDepth + 1;
+            this.opponentPolicy = parent.opponentPolicy;
             this.rootStateHeuristic = sh;
             this.genome = genome;
         }
         else {
             nodeDepth = 0;
+            this.opponentPolicy = new PolicySchedule(params.opponent_policy, params.opponent_policy, 0, RANDOM);
             initializeRootGenome(rootGameState);
         }
 
@@ -118,13 +122,11 @@ public class EvoNode
      */
     private Types.ACTIONS predictOSLAAction(GameState gs) {
 
-        rndOpponentModel = true;
-
         ArrayList<Types.ACTIONS> actionsList = Types.ACTIONS.all();
         double maxQ = Double.NEGATIVE_INFINITY;
         Types.ACTIONS bestAction = null;
         for (Types.ACTIONS act : actionsList) {
-            GameState gsCopy = gs.copy();
+            GameState gsCopy = gs.copyOnWrite();
             GameState rolledState = roll(gsCopy, act);
             double valState = rootStateHeuristic.evaluateState(gsCopy);
             // Other Variables:
@@ -148,25 +150,12 @@ public class EvoNode
      */
     private GameState roll(GameState gs, Types.ACTIONS act)
     {
-        //Simple, all random first, then my position.
-        int nPlayers = 4;
-        Types.ACTIONS[] actionsAll = new Types.ACTIONS[4];
+        int nPlayers = Types.NUM_PLAYERS;
+        Types.ACTIONS[] actionsAll = new Types.ACTIONS[nPlayers];
+        int playerIdx = gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
 
-        for(int i = 0; i < nPlayers; ++i)
-        {
-            if(i == gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey())
-            {
-                actionsAll[i] = act;
-            }else{
-                if(rndOpponentModel){
-                    int actionIdx = RANDOM.nextInt(gs.nActions());
-                    actionsAll[i] = Types.ACTIONS.all().get(actionIdx);
-                }else
-                {
-                    actionsAll[i] = Types.ACTIONS.ACTION_STOP;
-                }
-            }
-        }
+        actionsAll[playerIdx] = act;
+        opponentPolicy.fill(gs, nodeDepth, actionsAll, playerIdx, RANDOM);
 
         gs.next(actionsAll);
         return gs; // returns game state again.
@@ -219,33 +208,23 @@ public class EvoNode
     // *****************************************************************************************************************
     // TODO: MCTS Search Algorithms - Migrate from EvoNode - ISMCTS will be implemented here as well
     // TODO: Root, Tree or leaf parallelization can be done to speed up the process as well.
-    void mctsSearch(ElapsedCpuTimer elapsedTimer) {
+    void mctsSearch(BudgetController budget) {
 
-        double avgTimeTaken;
-        double acumTimeTaken = 0;
-        long remaining;
         int numIters = 0;
-
-        int remainingLimit = 5;
         boolean stop = false;
 
         while(!stop){
 
-            GameState state = rootGameState.copy();
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+            GameState state = rootGameState.copyOnWrite();
             EvoNode selected = treePolicy(state);
 //            double delta = selected.rollOut(state); // SHALL NOT BE USED IN E-MCTS - EVAL LEAVES INSTEAD
 //            backUp(selected, delta);
+            numIters++;
 
             //Stopping condition
             if(params.stop_type == params.STOP_TIME) {
-                numIters++;
-                acumTimeTaken += (elapsedTimerIteration.elapsedMillis()) ;
-                avgTimeTaken  = acumTimeTaken/numIters;
-                remaining = elapsedTimer.remainingTimeMillis();
-                stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
+                stop = !budget.hasBudget();
             }else if(params.stop_type == params.STOP_ITERATIONS) {
-                numIters++;
                 stop = numIters >= params.num_iterations;
             }else if(params.stop_type == params.STOP_FMCALLS)
             {
@@ -295,7 +274,8 @@ public class EvoNode
 
         EvoNode tn = new EvoNode(params, this.actions, this, 0,0, this.fmCallsCount,
                 this.rootStateHeuristic, this.genome, this.rootGameState);
-        children.get(bestAction) = tn;
+        tn.childIdx = children.size();
+        children.add(tn);
         return tn;
     }
 
@@ -416,6 +396,9 @@ public class EvoNode
 
 
     private boolean notFullyExpanded() {
+        if (children.size() < actions.length) {
+            return true;
+        }
         for (EvoNode tn : children) {
             if (tn == null) {
                 return true;
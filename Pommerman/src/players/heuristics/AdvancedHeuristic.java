@@ -157,17 +157,17 @@ public class AdvancedHeuristic extends StateHeuristic {
                     if(board[y][x] == Types.TILETYPE.BOMB){
                         // Create a bomb object
                         Bomb bomb = new Bomb();
-                        bomb.setPosition(new Vector2d(x, y));
+                        bomb.setPosition(Vector2d.of(x, y));
                         bomb.setBlastStrength(bombBlastStrength[y][x]);
                         bomb.setLife(bombLife[y][x]);
                         bombs.add(bomb);
                     }
-                    else if(Types.TILETYPE.getAgentTypes().contains(board[y][x]) &&
+                    else if(Types.TILETYPE.isAgent(board[y][x]) &&
                             board[y][x].getKey() != gs.getPlayerId()){ // May be an enemy
                         if(enemyIDs.contains(board[y][x])) { // Is enemy
                             // Create enemy object
                             GameObject enemy = new GameObject(board[y][x]);
-                            enemy.setPosition(new Vector2d(x, y));
+                            enemy.setPosition(Vector2d.of(x, y));
                             enemies.add(enemy); // no copy needed
                         }
                     }
@@ -205,7 +205,7 @@ public class AdvancedHeuristic extends StateHeuristic {
 
             return (diffSafeDirections / 4.0) * FACTOR_SAFE_DIRECTIONS
                     + (diffDirectionsInRangeOfBomb / 4.0) * FACTOR_BOMB_DIRECTIONS
-                    + (diffEnemies / 3.0) * FACTOR_ENEMY
+                    + (diffEnemies / (double) (Types.NUM_PLAYERS - 1)) * FACTOR_ENEMY
                     + diffTeammates * FACTOR_TEAM
                     + (diffDistanceToNearestEnemy / 10.0) * FACTOR_ENEMY_DIST
                     + (diffWoods / maxWoods) * FACTOR_WOODS
@@ -485,7 +485,7 @@ public class AdvancedHeuristic extends StateHeuristic {
 
         private int computeDistanceToNearestPowerUp(HashMap<Types.TILETYPE, ArrayList<Vector2d> > items)
         {
-            Vector2d previousNode = new Vector2d(-1, -1); // placeholder, these values are not actually used
+            Vector2d previousNode = Vector2d.of(-1, -1); // placeholder, these values are not actually used
             int distance = 1000; // TODO: Max distance/Infinity
             for (Map.Entry<Types.TILETYPE, ArrayList<Vector2d>> entry : items.entrySet()) {
                 // check pickup entries on the board
@@ -527,7 +527,7 @@ public class AdvancedHeuristic extends StateHeuristic {
             for(int r = max(0, myPosition.x - depth); r < min(board.length, myPosition.x + depth); r++){
                 for(int c = max(0, myPosition.y - depth); c < min(board.length, myPosition.y + depth); c++){
 
-                    Vector2d position = new Vector2d(r, c);
+                    Vector2d position = Vector2d.of(r, c);
 
                     // Determines if two points are out of range of each other.
                     boolean out_of_range = (abs(c - myPosition.y) + abs(r - myPosition.x)) > depth;
@@ -579,7 +579,7 @@ public class AdvancedHeuristic extends StateHeuristic {
                     for (Types.DIRECTIONS directionToBeChecked : directionsToBeChecked) {
 
                         Vector2d direction = directionToBeChecked.toVec();
-                        Vector2d new_position = new Vector2d(position.x + direction.x, position.y + direction.y);
+                        Vector2d new_position = Vector2d.of(position.x + direction.x, position.y + direction.y);
 
                         if(!dist.containsKey(new_position))
                             continue;
@@ -0,0 +1,156 @@
+package players.mcts;
+
+import java.util.Arrays;
+
+/**
+ * Nodes of a simultaneous-move MCTS tree (see SimultaneousMCTSPlayer), stored as parallel arrays indexed by node id.
+ * Each node is reached from its parent by a joint action, the actions of all players packed in an int (see
+ * SimultaneousMCTSPlayer.ACTION_BITS), and keeps decoupled statistics: visits and value of every action of every
+ * player, in flat arrays indexed by stat(). Children are found through an open addressing hash table keyed by
+ * parent and joint action, as only the few joint actions actually played get a node. Arrays grow as needed up to
+ * a fixed capacity, after which no more nodes are added until the arena is cleared.
+ */
+final class JointNodeArena {
+
+    static final int NONE = -1;
+
+    private static final int INITIAL_SIZE = 1024;
+    private static final long EMPTY = -1L;
+
+    private final int nPlayers;
+    private final int nActions;
+    private final int capacity;
+
+    // Number of nodes allocated.
+    private int size;
+
+    // Node data, indexed by node id.
+    int[] visits;
+    int[] parent;
+
+    // Action statistics, indexed by stat(node, player, action).
+    int[] actionVisits;
+    double[] actionValue;
+
+    // Children, as (parent << 32 | joint action) keys and child ids, with linear probing.
+    private long[] keys;
+    private int[] children;
+
+    /**
+     * @param nPlayers number of players with statistics in each node.
+     * @param nActions number of actions of each player.
+     * @param capacity maximum number of nodes, at least 1.
+     */
+    JointNodeArena(int nPlayers, int nActions, int capacity) {
+        this.nPlayers = nPlayers;
+        this.nActions = nActions;
+        this.capacity = Math.max(capacity, 1);
+        int initial = Math.min(INITIAL_SIZE, this.capacity);
+        visits = new int[initial];
+        parent = new int[initial];
+        actionVisits = new int[initial * nPlayers * nActions];
+        actionValue = new double[initial * nPlayers * nActions];
+        keys = new long[Integer.highestOneBit(initial) * 4];
+        children = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Removes all nodes and creates a root, with id 0.
+     */
+    void clear() {
+        size = 1;
+        Arrays.fill(keys, EMPTY);
+        init(0, NONE);
+    }
+
+    /**
+     * @return number of nodes in use.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return index of the statistics of an action of a player in a node, in actionVisits and actionValue.
+     */
+    int stat(int node, int player, int action) {
+        return (node * nPlayers + player) * nActions + action;
+    }
+
+    /**
+     * @return the child of the node for the given joint action, or NONE if it was not added.
+     */
+    int child(int node, int joint) {
+        long key = key(node, joint);
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return children[i];
+        }
+        return NONE;
+    }
+
+    /**
+     * Adds the child of the node for the given joint action, which must not have been added yet.
+     * @return id of the child, or NONE if the arena is full.
+     */
+    int add(int node, int joint) {
+        if (size >= capacity)
+            return NONE;
+        ensureCapacity(size + 1);
+        int child = size++;
+        init(child, node);
+        put(key(node, joint), child);
+        return child;
+    }
+
+    private void init(int node, int parentNode) {
+        visits[node] = 0;
+        parent[node] = parentNode;
+        int from = stat(node, 0, 0);
+        Arrays.fill(actionVisits, from, from + nPlayers * nActions, 0);
+        Arrays.fill(actionValue, from, from + nPlayers * nActions, 0.0);
+    }
+
+    private void put(long key, int child) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY)
+            i = (i + 1) & mask;
+        keys[i] = key;
+        children[i] = child;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n > visits.length) {
+            int length = Math.min(capacity, Math.max(n, visits.length * 2));
+            visits = Arrays.copyOf(visits, length);
+            parent = Arrays.copyOf(parent, length);
+            actionVisits = Arrays.copyOf(actionVisits, length * nPlayers * nActions);
+            actionValue = Arrays.copyOf(actionValue, length * nPlayers * nActions);
+        }
+
+        // Keep the hash table at most half full.
+        if (2 * n > keys.length) {
+            long[] oldKeys = keys;
+            int[] oldChildren = children;
+            keys = new long[keys.length * 2];
+            children = new int[keys.length];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY)
+                    put(oldKeys[i], oldChildren[i]);
+            }
+        }
+    }
+
+    private static long key(int node, int joint) {
+        return (long) node << 32 | (joint & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
@@ -1,12 +1,15 @@
 package players.mcts;
 
 import players.optimisers.ParameterSet;
+import utils.BudgetController;
 import utils.Pair;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
+import static players.rollouts.RolloutPolicies.*;
+
 @SuppressWarnings("WeakerAccess")
 public class MCTSParams implements ParameterSet {
 
@@ -21,6 +24,9 @@ public class MCTSParams implements ParameterSet {
     public final int CUSTOM_HEURISTIC = 0;
     public final int ADVANCED_HEURISTIC = 1;
 
+    public final int PARALLEL_ROOT = 0;
+    public final int PARALLEL_TREE = 1;
+
     public double epsilon = 1e-6;
 
     // Parameters
@@ -28,18 +34,104 @@ public class MCTSParams implements ParameterSet {
     public int rollout_depth = 8;//10;
     public int heuristic_method = CUSTOM_HEURISTIC;
 
+    // Rollout policies (see players.rollouts.RolloutPolicies): rollout_policy plays this player's moves in rollouts,
+    // and opponent_policy the moves of the other players on every simulated tick. The *_near policies replace them
+    // on the ticks less than policy_near_depth ticks away from the root, e.g. a heavy policy near the root only.
+    public int rollout_policy = SAFE_RANDOM;
+    public int opponent_policy = RANDOM;
+    public int rollout_policy_near = SAFE_RANDOM;
+    public int opponent_policy_near = RANDOM;
+    public int policy_near_depth = 0;
+
+    // RAVE: blend the value of each child with its all-moves-as-first (AMAF) value, the average result of the
+    // iterations through its parent in which this player played its action at any later tick. The AMAF value has a
+    // weight of sqrt(rave_k / (3 * visits + rave_k)), fading as the child gets visits of its own.
+    public boolean rave = false;
+    public double rave_k = 100;
+
+    // Action priors: expand first the children whose action passes a cheap safety check (no flames or blasts of bombs
+    // about to explode, see players.rollouts.AvoidBlastPolicy).
+    public boolean action_priors = false;
+
+    // Progressive widening: a node only gets a new child while it has fewer than widening_c * visits^widening_alpha
+    // of them, and UCT selects among the expanded ones otherwise.
+    public boolean progressive_widening = false;
+    public double widening_c = 1.0;
+    public double widening_alpha = 0.5;
+
     // Budget settings
     public int stop_type = STOP_TIME;
     public int num_iterations = 200;
     public int num_fmcalls = 2000;
     public int num_time = 40;
 
+    // Time budget control (STOP_TIME, see utils.BudgetController): the clock is read at most every
+    // time_check_interval iterations, and the search stops when one more iteration, taken to cost its mean plus
+    // time_sigmas standard deviations, may not end time_margin ms before the end of num_time.
+    public int time_check_interval = 16;
+    public double time_margin = 2;
+    public double time_sigmas = 2;
+
+    // Maximum number of nodes kept by the transposition table (TranspositionMCTSPlayer only)
+    public int tt_size = 100000;
+
+    // Maximum number of nodes of a search tree (MCTSPlayer, SimultaneousMCTSPlayer). Once reached, the tree stops
+    // growing and iterations roll out from the node they would have expanded.
+    public int max_nodes = 200000;
+
+    // Parallel search settings. With more than one thread, root parallelisation runs one independent tree per
+    // thread and merges them by visit count; tree parallelisation has all threads search a single shared tree,
+    // adding virtual_loss visits to the nodes being explored.
+    public int num_threads = 1;
+    public int parallel_mode = PARALLEL_ROOT;
+    public int virtual_loss = 1;
+
+    // Tree reuse: start each search from the subtree of the action played on the previous tick, if it matches the
+    // observed state, keeping at most reuse_max_nodes of its nodes (single-threaded search only).
+    public boolean reuse_tree = false;
+    public int reuse_max_nodes = 20000;
+
+    // Pondering: keep searching the subtree of the action played in a background thread while the game advances,
+    // and start the next search from it as with reuse_tree (which pondering implies).
+    public boolean ponder = false;
+
+    // Open-loop search built for throughput (see OpenLoopTree): nodes are packed in flat arrays, and each thread
+    // resets a single rollout state from a snapshot of the root on every iteration. With more than one thread, the
+    // trees are searched as with root parallelisation. RAVE, action priors, progressive widening, tree reuse and
+    // pondering are not supported.
+    public boolean open_loop = false;
+
+    /**
+     * @return a time budget of num_time ms for a search, started now.
+     */
+    public BudgetController newBudget() {
+        return new BudgetController(num_time, time_check_interval, time_margin, time_sigmas);
+    }
+
+    /**
+     * Stopping condition of the searches, checked before every iteration.
+     * @param budget time budget of the search, for STOP_TIME.
+     * @param iterations number of iterations performed so far.
+     * @return true if there is budget for another iteration.
+     */
+    public boolean hasBudget(BudgetController budget, int iterations) {
+        if (stop_type == STOP_TIME)
+            return budget.hasBudget();
+        else if (stop_type == STOP_ITERATIONS)
+            return iterations < num_iterations;
+        else if (stop_type == STOP_FMCALLS)
+            return (iterations + 1) * rollout_depth <= num_fmcalls;
+        return false;
+    }
+
     @Override
     public void setParameterValue(String param, Object value) {
         switch(param) {
             case "K": K = (double) value; break;
             case "rollout_depth": rollout_depth = (int) value; break;
             case "heuristic_method": heuristic_method = (int) value; break;
+            case "rollout_policy": rollout_policy = (int) value; break;
+            case "opponent_policy": opponent_policy = (int) value; break;
         }
     }
 
@@ -49,6 +141,8 @@ public class MCTSParams implements ParameterSet {
             case "K": return K;
             case "rollout_depth": return rollout_depth;
             case "heuristic_method": return heuristic_method;
+            case "rollout_policy": return rollout_policy;
+            case "opponent_policy": return opponent_policy;
         }
         return null;
     }
@@ -59,6 +153,8 @@ public class MCTSParams implements ParameterSet {
         paramList.add("K");
         paramList.add("rollout_depth");
         paramList.add("heuristic_method");
+        paramList.add("rollout_policy");
+        paramList.add("opponent_policy");
         return paramList;
     }
 
@@ -68,6 +164,8 @@ public class MCTSParams implements ParameterSet {
         parameterValues.put("K", new Double[]{1.0, Math.sqrt(2), 2.0});
         parameterValues.put("rollout_depth", new Integer[]{5, 8, 10, 12, 15});
         parameterValues.put("heuristic_method", new Integer[]{CUSTOM_HEURISTIC, ADVANCED_HEURISTIC});
+        parameterValues.put("rollout_policy", new Integer[]{RANDOM, SAFE_RANDOM, AVOID_BLAST, SIMPLE});
+        parameterValues.put("opponent_policy", new Integer[]{STOP, RANDOM, SAFE_RANDOM, AVOID_BLAST});
         return parameterValues;
     }
 
@@ -85,6 +183,8 @@ public class MCTSParams implements ParameterSet {
     public Map<String, String[]> constantNames() {
         HashMap<String, String[]> names = new HashMap<>();
         names.put("heuristic_method", new String[]{"CUSTOM_HEURISTIC", "ADVANCED_HEURISTIC"});
+        names.put("rollout_policy", names());
+        names.put("opponent_policy", names());
         return names;
     }
 }
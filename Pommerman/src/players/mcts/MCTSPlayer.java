@@ -3,11 +3,20 @@ package players.mcts;
 import core.GameState;
 import players.optimisers.ParameterizedPlayer;
 import players.Player;
-import utils.ElapsedCpuTimer;
+import utils.BudgetController;
 import utils.Types;
 
+import utils.Utils;
+
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MCTSPlayer extends ParameterizedPlayer {
 
@@ -26,6 +35,50 @@ public class MCTSPlayer extends ParameterizedPlayer {
      */
     public MCTSParams params;
 
+    /**
+     * Threads used by the parallel search modes, created on first use.
+     */
+    private ExecutorService executor;
+    private int executorThreads;
+
+    /**
+     * Number of iterations performed in the last call to act(), adding up all threads.
+     */
+    private int lastIterations;
+
+    /**
+     * Estimated probability that the last call to act() went over its time budget, the highest among all threads
+     * (see BudgetController.overtimeProbability()).
+     */
+    private double lastOvertimeProbability;
+
+    /**
+     * Tree reuse and pondering (params.reuse_tree, params.ponder). The tree of the last decision is kept with the
+     * action played and the tick it was played on. The subtree of that action becomes the root of the next search
+     * if it matches the state observed on the next tick. While pondering, it is detached right after acting and
+     * searched in the background until then.
+     */
+    private SingleTreeNode tree;
+    private SingleTreeNode lastRoot;
+    private int lastAction;
+    private int lastTick;
+    private SingleTreeNode ponderRoot;
+    private ExecutorService ponderExecutor;
+    private Future<Integer> ponderTask;
+    private AtomicBoolean ponderStop;
+    private int lastPonderIterations;
+
+    /**
+     * Trees of the root parallel search, one per thread. Trees are reset and reused on every decision, so that
+     * their nodes are recycled.
+     */
+    private SingleTreeNode[] parallelTrees;
+
+    /**
+     * Trees of the open-loop search (params.open_loop), one per thread, reused on every decision.
+     */
+    private OpenLoopTree[] openLoopTrees;
+
     public MCTSPlayer(long seed, int id) {
         this(seed, id, new MCTSParams());
     }
@@ -46,6 +99,11 @@ public class MCTSPlayer extends ParameterizedPlayer {
     public void reset(long seed, int playerID) {
         super.reset(seed, playerID);
         m_rnd = new Random(seed);
+        tree = null;
+        parallelTrees = null;
+        openLoopTrees = null;
+        lastRoot = null;
+        ponderRoot = null;
 
         this.params = (MCTSParams) getParameters();
         if (this.params == null) {
@@ -62,21 +120,45 @@ public class MCTSPlayer extends ParameterizedPlayer {
             int[] msg = gs.getMessage();
         }
 
-        ElapsedCpuTimer ect = new ElapsedCpuTimer();
-        ect.setMaxTimeMillis(params.num_time);
+        // Normally stopped by the game already, but players may be used without one.
+        stopPondering();
 
-        // Number of actions available
-        int num_actions = actions.length;
+        int action;
+        if (params.open_loop) {
+            action = openLoopSearch(gs);
+        } else if (params.num_threads <= 1) {
+            BudgetController budget = params.newBudget();
 
-        // Root of the tree
-        SingleTreeNode m_root = new SingleTreeNode(params, m_rnd, num_actions, actions);
-        m_root.setRootGameState(gs);
+            // Number of actions available
+            int num_actions = actions.length;
 
-        //Determine the action using MCTS...
-        m_root.mctsSearch(ect);
+            // Root of the tree
+            SingleTreeNode m_root = reusedRoot(gs);
+            if (m_root == null) {
+                if (tree == null)
+                    tree = new SingleTreeNode(params, m_rnd, num_actions, actions);
+                tree.reset(m_rnd);
+                m_root = tree;
+            }
+            m_root.setRootGameState(gs);
 
-        //Determine the best action to take and return it.
-        int action = m_root.mostVisitedAction();
+            //Determine the action using MCTS...
+            lastIterations = m_root.mctsSearch(budget);
+            lastOvertimeProbability = budget.overtimeProbability();
+
+            //Determine the best action to take and return it.
+            action = m_root.mostVisitedAction();
+
+            if (params.reuse_tree || params.ponder) {
+                lastRoot = m_root;
+                lastAction = action;
+                lastTick = gs.getTick();
+            }
+        } else if (params.parallel_mode == params.PARALLEL_TREE) {
+            action = treeParallelSearch(gs);
+        } else {
+            action = rootParallelSearch(gs);
+        }
 
         // TODO update message memory
 
@@ -84,6 +166,294 @@ public class MCTSPlayer extends ParameterizedPlayer {
         return actions[action];
     }
 
+    /**
+     * Subtree of the last decision to start the search of the given state from: the subtree of the action played,
+     * pondered on or taken from the last tree, if the state is the one that followed and the subtree matches it.
+     * A detached subtree becomes the tree of this player in any case, as it holds the arenas of the last one.
+     * @return the subtree, or null if there is none to reuse.
+     */
+    private SingleTreeNode reusedRoot(GameState gs) {
+        SingleTreeNode root = ponderRoot;
+        if (root == null && lastRoot != null)
+            root = lastRoot.detachChild(lastAction, params.reuse_max_nodes);
+        ponderRoot = null;
+        lastRoot = null;
+
+        if (root == null)
+            return null;
+        tree = root;
+        if (gs.getTick() != lastTick + 1 || !root.matches(gs))
+            return null;
+        return root;
+    }
+
+    /**
+     * Starts searching the subtree of the action just played in the background, if pondering is enabled.
+     */
+    @Override
+    public synchronized void ponder(GameState gs) {
+        if (!params.ponder || lastRoot == null || ponderTask != null)
+            return;
+
+        SingleTreeNode root = lastRoot.detachChild(lastAction, params.reuse_max_nodes);
+        lastRoot = null;
+        root.setRootGameState(gs);
+        ponderRoot = root;
+        tree = root;
+
+        if (ponderExecutor == null) {
+            ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "MCTS-ponder-" + playerID);
+                thread.setDaemon(true);
+                return thread;
+            });
+            ponderStop = new AtomicBoolean();
+        }
+        ponderStop.set(false);
+        Types.ACTIONS played = actions[lastAction];
+        ponderTask = ponderExecutor.submit(() -> root.ponderSearch(gs, played, ponderStop));
+    }
+
+    @Override
+    public synchronized void stopPondering() {
+        if (ponderTask == null)
+            return;
+        ponderStop.set(true);
+        try {
+            lastPonderIterations = ponderTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            ponderTask = null;
+        }
+    }
+
+    /**
+     * Stops the threads of this player at the end of the game, so that players created for one game only (e.g. with
+     * copy()) do not leave them behind. They are created again if the player is used for another game.
+     */
+    @Override
+    public synchronized void result(double reward) {
+        stopPondering();
+        if (ponderExecutor != null) {
+            ponderExecutor.shutdown();
+            ponderExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Root parallelisation: each thread searches its own tree from the same root, with its own budget and random
+     * generator. Visits and values of the root children are then added up over all trees.
+     */
+    private int rootParallelSearch(GameState gs) {
+        int nThreads = params.num_threads;
+        List<Callable<Integer>> tasks = new ArrayList<>(nThreads);
+        if (parallelTrees == null || parallelTrees.length != nThreads)
+            parallelTrees = new SingleTreeNode[nThreads];
+        SingleTreeNode[] roots = parallelTrees;
+        BudgetController[] budgets = new BudgetController[nThreads];
+        for (int t = 0; t < nThreads; t++) {
+            Random rnd = new Random(m_rnd.nextLong());
+            if (roots[t] == null)
+                roots[t] = new SingleTreeNode(params, rnd, actions.length, actions);
+            SingleTreeNode root = roots[t];
+            root.reset(rnd);
+            root.setRootGameState(gs);
+            BudgetController budget = params.newBudget();
+            budgets[t] = budget;
+            tasks.add(() -> root.mctsSearch(budget));
+        }
+        lastIterations = runAll(tasks);
+        lastOvertimeProbability = overtimeProbability(budgets);
+
+        int[] visits = new int[actions.length];
+        double[] values = new double[actions.length];
+        for (SingleTreeNode root : roots) {
+            for (int a = 0; a < actions.length; a++) {
+                visits[a] += root.childVisits(a);
+                values[a] += root.childValue(a);
+            }
+        }
+        return mostVisitedAction(visits, values);
+    }
+
+    /**
+     * Tree parallelisation: all threads search the same tree, each one with its own budget and random generator.
+     */
+    private int treeParallelSearch(GameState gs) {
+        int nThreads = params.num_threads;
+        ParallelTreeNode root = new ParallelTreeNode(params, actions);
+        List<Callable<Integer>> tasks = new ArrayList<>(nThreads);
+        BudgetController[] budgets = new BudgetController[nThreads];
+        for (int t = 0; t < nThreads; t++) {
+            Random rnd = new Random(m_rnd.nextLong());
+            BudgetController budget = params.newBudget();
+            budgets[t] = budget;
+            tasks.add(() -> root.mctsSearch(gs, rnd, budget));
+        }
+        lastIterations = runAll(tasks);
+        lastOvertimeProbability = overtimeProbability(budgets);
+
+        int[] visits = new int[actions.length];
+        double[] values = new double[actions.length];
+        for (int a = 0; a < actions.length; a++) {
+            visits[a] = root.childVisits(a);
+            values[a] = root.childValue(a);
+        }
+        return mostVisitedAction(visits, values);
+    }
+
+    /**
+     * Open-loop search: one OpenLoopTree per thread, searched from the same root and merged as in root
+     * parallelisation. A single tree is searched on the calling thread.
+     */
+    private int openLoopSearch(GameState gs) {
+        int nThreads = Math.max(params.num_threads, 1);
+        if (openLoopTrees == null || openLoopTrees.length != nThreads) {
+            openLoopTrees = new OpenLoopTree[nThreads];
+            for (int t = 0; t < nThreads; t++)
+                openLoopTrees[t] = new OpenLoopTree(params, actions, m_rnd.nextLong());
+        }
+        OpenLoopTree[] trees = openLoopTrees;
+        BudgetController[] budgets = new BudgetController[nThreads];
+        if (nThreads == 1) {
+            budgets[0] = params.newBudget();
+            trees[0].reset(gs);
+            lastIterations = trees[0].search(budgets[0]);
+        } else {
+            List<Callable<Integer>> tasks = new ArrayList<>(nThreads);
+            for (int t = 0; t < nThreads; t++) {
+                OpenLoopTree tree = trees[t];
+                BudgetController budget = params.newBudget();
+                budgets[t] = budget;
+                tree.reset(gs);
+                tasks.add(() -> tree.search(budget));
+            }
+            lastIterations = runAll(tasks);
+        }
+        lastOvertimeProbability = overtimeProbability(budgets);
+
+        int[] visits = new int[actions.length];
+        double[] values = new double[actions.length];
+        for (OpenLoopTree tree : trees) {
+            for (int a = 0; a < actions.length; a++) {
+                visits[a] += tree.childVisits(a);
+                values[a] += tree.childValue(a);
+            }
+        }
+        return mostVisitedAction(visits, values);
+    }
+
+    private static double overtimeProbability(BudgetController[] budgets) {
+        double p = 0;
+        for (BudgetController budget : budgets)
+            p = Math.max(p, budget.overtimeProbability());
+        return p;
+    }
+
+    /**
+     * Runs the search tasks on the executor and waits for all of them.
+     * @return total number of iterations performed.
+     */
+    private int runAll(List<Callable<Integer>> tasks) {
+        if (executor == null || executorThreads != tasks.size()) {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            executorThreads = tasks.size();
+            executor = Executors.newFixedThreadPool(executorThreads, r -> {
+                Thread thread = new Thread(r, "MCTS-" + playerID);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        int iterations = 0;
+        try {
+            for (Future<Integer> f : executor.invokeAll(tasks)) {
+                iterations += f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return iterations;
+    }
+
+    /**
+     * Most visited action, given the visits and values of the root children. If all visited children have the same
+     * number of visits, the one with the best average value is chosen.
+     */
+    private int mostVisitedAction(int[] visits, double[] values) {
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+        boolean allEqual = true;
+        int first = -1;
+
+        for (int i = 0; i < visits.length; i++) {
+            if (visits[i] > 0) {
+                if (first == -1)
+                    first = visits[i];
+                else if (first != visits[i])
+                    allEqual = false;
+
+                double childValue = Utils.noise(visits[i], params.epsilon, m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = i;
+                }
+            }
+        }
+
+        if (selected == -1) {
+            return 0;
+        }
+
+        if (allEqual) {
+            //If all are equal, we opt to choose for the one with the best Q.
+            bestValue = -Double.MAX_VALUE;
+            for (int i = 0; i < visits.length; i++) {
+                if (visits[i] > 0) {
+                    double childValue = values[i] / (visits[i] + params.epsilon);
+                    childValue = Utils.noise(childValue, params.epsilon, m_rnd.nextDouble());     //break ties randomly
+                    if (childValue > bestValue) {
+                        bestValue = childValue;
+                        selected = i;
+                    }
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @return number of iterations performed in the last call to act(), adding up all threads.
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return estimated probability that the last call to act() went over its time budget (0 unless searching with
+     * params.STOP_TIME).
+     */
+    public double getLastOvertimeProbability() {
+        return lastOvertimeProbability;
+    }
+
+    /**
+     * @return number of iterations performed by the last pondering search, until it was stopped.
+     */
+    public int getLastPonderIterations() {
+        return lastPonderIterations;
+    }
+
     @Override
     public int[] getMessage() {
         // default message
@@ -0,0 +1,211 @@
+package players.mcts;
+
+import java.util.Arrays;
+
+/**
+ * Nodes of an MCTS tree (see SingleTreeNode), stored as parallel arrays indexed by node id instead of one object
+ * per node, so the size of the tree does not change the number of objects on the heap.
+ * The children of a node take a block of consecutive ids, one per action, allocated when the first of them is
+ * expanded; the actions expanded so far are kept as a bit mask in the parent. Arrays grow as needed up to a fixed
+ * capacity. Once it is reached no more nodes are allocated, until the arena is cleared or compacted into another
+ * one (see compactInto()), which is how nodes are recycled.
+ * All-moves-as-first (AMAF) statistics are kept for every id of a block, expanded or not: they count the
+ * iterations through the parent in which the player played the action of the id at any later tick.
+ */
+final class NodeArena {
+
+    static final int NONE = -1;
+
+    private static final int INITIAL_SIZE = 1024;
+
+    private final int nActions;
+    private final int capacity;
+
+    // Number of ids allocated.
+    private int size;
+
+    // Node data, indexed by node id. The player position is packed as (x << 16 | y), NONE if not known.
+    int[] visits;
+    double[] value;
+    double[] boundMin;
+    double[] boundMax;
+    int[] parent;
+    int[] firstChild;
+    int[] expanded;
+    int[] position;
+    int[] amafVisits;
+    double[] amafValue;
+
+    // Work queue used by compactInto(), pairs of source and target ids.
+    private int[] queue = new int[0];
+
+    /**
+     * @param nActions number of actions, and so of children, of each node (at most 31).
+     * @param capacity maximum number of node ids, at least nActions + 1.
+     */
+    NodeArena(int nActions, int capacity) {
+        this.nActions = nActions;
+        this.capacity = Math.max(capacity, nActions + 1);
+        int initial = Math.min(INITIAL_SIZE, this.capacity);
+        visits = new int[initial];
+        value = new double[initial];
+        boundMin = new double[initial];
+        boundMax = new double[initial];
+        parent = new int[initial];
+        firstChild = new int[initial];
+        expanded = new int[initial];
+        position = new int[initial];
+        amafVisits = new int[initial];
+        amafValue = new double[initial];
+    }
+
+    /**
+     * Removes all nodes and creates a root, with id 0.
+     */
+    void clear() {
+        size = 1;
+        init(0, NONE);
+    }
+
+    /**
+     * @return number of node ids in use, including the children not expanded in partially expanded nodes.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the child of the node for the given action, or NONE if it was not expanded.
+     */
+    int child(int node, int action) {
+        return (expanded[node] & (1 << action)) != 0 ? firstChild[node] + action : NONE;
+    }
+
+    boolean fullyExpanded(int node) {
+        return expanded[node] == (1 << nActions) - 1;
+    }
+
+    /**
+     * @return number of children of the node expanded.
+     */
+    int expandedCount(int node) {
+        return Integer.bitCount(expanded[node]);
+    }
+
+    /**
+     * @return the action that leads from the parent of the node to it.
+     */
+    int action(int node) {
+        return node - firstChild[parent[node]];
+    }
+
+    /**
+     * Creates the child of the node for the given action, which must not be expanded yet.
+     * @return id of the child, or NONE if the arena is full.
+     */
+    int expand(int node, int action) {
+        int block = firstChild[node];
+        if (block == NONE) {
+            if (size + nActions > capacity)
+                return NONE;
+            ensureCapacity(size + nActions);
+            block = size;
+            size += nActions;
+            firstChild[node] = block;
+            Arrays.fill(amafVisits, block, block + nActions, 0);
+            Arrays.fill(amafValue, block, block + nActions, 0.0);
+        }
+        int child = block + action;
+        init(child, node);
+        expanded[node] |= 1 << action;
+        return child;
+    }
+
+    /**
+     * Copies the subtree of the given node into another arena, which is cleared first, with the node as its root.
+     * Nodes are copied in breadth-first order, so the ones closest to the root are kept when the subtree does not
+     * fit: nodes beyond maxNodes or the capacity of the target are left out, with their subtrees.
+     * @param target arena to copy to, with the same number of actions.
+     * @param root root of the subtree to copy.
+     * @param maxNodes maximum number of nodes to copy, including the root.
+     * @return number of nodes copied.
+     */
+    int compactInto(NodeArena target, int root, int maxNodes) {
+        target.clear();
+        target.copy(this, root, 0, NONE);
+        int kept = 1;
+
+        int head = 0, tail = 0;
+        queue = ensureQueue(queue, 2);
+        queue[tail++] = root;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int from = queue[head++];
+            int to = queue[head++];
+            int mask = expanded[from];
+            if (mask == 0 || kept >= maxNodes || target.size + nActions > target.capacity)
+                continue;
+
+            int block = target.size;
+            target.ensureCapacity(block + nActions);
+            target.size += nActions;
+            target.firstChild[to] = block;
+            System.arraycopy(amafVisits, firstChild[from], target.amafVisits, block, nActions);
+            System.arraycopy(amafValue, firstChild[from], target.amafValue, block, nActions);
+            for (int a = 0; a < nActions && kept < maxNodes; a++) {
+                if ((mask & (1 << a)) != 0) {
+                    target.copy(this, firstChild[from] + a, block + a, to);
+                    target.expanded[to] |= 1 << a;
+                    kept++;
+                    queue = ensureQueue(queue, tail + 2);
+                    queue[tail++] = firstChild[from] + a;
+                    queue[tail++] = block + a;
+                }
+            }
+        }
+        return kept;
+    }
+
+    private void init(int node, int parentNode) {
+        visits[node] = 0;
+        value[node] = 0.0;
+        boundMin[node] = Double.MAX_VALUE;
+        boundMax[node] = -Double.MAX_VALUE;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        expanded[node] = 0;
+        position[node] = NONE;
+    }
+
+    /**
+     * Copies the statistics of a node of another arena, leaving it with no children.
+     */
+    private void copy(NodeArena from, int fromNode, int node, int parentNode) {
+        init(node, parentNode);
+        visits[node] = from.visits[fromNode];
+        value[node] = from.value[fromNode];
+        boundMin[node] = from.boundMin[fromNode];
+        boundMax[node] = from.boundMax[fromNode];
+        position[node] = from.position[fromNode];
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= visits.length)
+            return;
+        int length = Math.min(capacity, Math.max(n, visits.length * 2));
+        visits = Arrays.copyOf(visits, length);
+        value = Arrays.copyOf(value, length);
+        boundMin = Arrays.copyOf(boundMin, length);
+        boundMax = Arrays.copyOf(boundMax, length);
+        parent = Arrays.copyOf(parent, length);
+        firstChild = Arrays.copyOf(firstChild, length);
+        expanded = Arrays.copyOf(expanded, length);
+        position = Arrays.copyOf(position, length);
+        amafVisits = Arrays.copyOf(amafVisits, length);
+        amafValue = Arrays.copyOf(amafValue, length);
+    }
+
+    private static int[] ensureQueue(int[] queue, int n) {
+        return n <= queue.length ? queue : Arrays.copyOf(queue, Math.max(n, queue.length * 2));
+    }
+}
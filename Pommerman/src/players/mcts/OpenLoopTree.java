@@ -0,0 +1,299 @@
+package players.mcts;
+
+import core.GameState;
+import core.GameStatePool;
+import players.heuristics.AdvancedHeuristic;
+import players.heuristics.CustomHeuristic;
+import players.heuristics.StateHeuristic;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
+import utils.Types;
+import utils.Utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Open-loop MCTS tree built for throughput, searched by MCTSPlayer when params.open_loop is set. Nodes hold
+ * statistics only, never states: each search copies the root state once into a snapshot, and every iteration resets
+ * a single rollout state from it and replays the actions of its path. Both states come from the pool of the thread
+ * running the search, so a tree is searched by one thread at a time.
+ * Nodes are packed in two flat arrays, NODE_INTS ints and NODE_DOUBLES doubles per node, and the children of a node
+ * take a block of consecutive ids, one per action, so the action of a node is its offset in the block and the path
+ * of an iteration is just a list of ids. Selection, expansion and back up follow SingleTreeNode with the default
+ * parameters; RAVE, action priors and progressive widening are not supported.
+ */
+final class OpenLoopTree {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int INITIAL_SIZE = 1024;
+
+    // Ints of a node: visits, id of the first child (NONE until one is expanded), and mask of the children expanded.
+    private static final int VISITS = 0, CHILDREN = 1, EXPANDED = 2, NODE_INTS = 3;
+
+    // Doubles of a node: sum of the results backed up through it, and the lowest and highest of them.
+    private static final int VALUE = 0, MIN = 1, MAX = 2, NODE_DOUBLES = 3;
+
+    private final MCTSParams params;
+    private final Types.ACTIONS[] actions;
+    private final int nActions;
+    private final int capacity;
+
+    private int[] nodes;
+    private double[] values;
+    private int size;
+
+    // Nodes visited by the current iteration, from the root.
+    private int[] path;
+
+    private final Random rnd;
+    private final PolicySchedule rolloutPolicy;
+    private final PolicySchedule opponentPolicy;
+    private final Types.ACTIONS[] jointActions = new Types.ACTIONS[Types.NUM_PLAYERS];
+
+    private GameState rootState;
+    private StateHeuristic rootStateHeuristic;
+    private int playerIdx;
+
+    /**
+     * @param params parameters of the search, params.max_nodes being the capacity of the tree.
+     * @param actions all actions, at most 31.
+     * @param seed seed of the random generator of the tree, used by all its searches.
+     */
+    OpenLoopTree(MCTSParams params, Types.ACTIONS[] actions, long seed) {
+        this.params = params;
+        this.actions = actions;
+        this.nActions = actions.length;
+        this.capacity = Math.max(params.max_nodes, nActions + 1);
+        int initial = Math.min(INITIAL_SIZE, capacity);
+        nodes = new int[initial * NODE_INTS];
+        values = new double[initial * NODE_DOUBLES];
+        rnd = new UnsyncRandom(seed);
+        rolloutPolicy = new PolicySchedule(params.rollout_policy_near, params.rollout_policy, params.policy_near_depth,
+                rnd);
+        opponentPolicy = new PolicySchedule(params.opponent_policy_near, params.opponent_policy,
+                params.policy_near_depth, rnd);
+    }
+
+    /**
+     * Removes all nodes, for a new search from the given state.
+     */
+    void reset(GameState gs) {
+        rootState = gs;
+        if (params.heuristic_method == params.CUSTOM_HEURISTIC)
+            rootStateHeuristic = new CustomHeuristic(gs);
+        else if (params.heuristic_method == params.ADVANCED_HEURISTIC)
+            rootStateHeuristic = new AdvancedHeuristic(gs, rnd);
+        playerIdx = gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+        size = 1;
+        init(ROOT);
+    }
+
+    /**
+     * Runs iterations from the root until the budget is exhausted. At least one iteration is run.
+     * @param budget time budget, for params.STOP_TIME.
+     * @return number of iterations performed.
+     */
+    int search(BudgetController budget) {
+        if (path == null || path.length < params.rollout_depth + 1)
+            path = new int[params.rollout_depth + 1];
+
+        GameState snapshot = GameStatePool.acquire(rootState);
+        GameState state = GameStatePool.acquire(snapshot);
+
+        int numIters = 0;
+        while (params.hasBudget(budget, numIters) || numIters == 0) {
+            snapshot.copyInto(state);
+            iteration(state);
+            numIters++;
+        }
+
+        GameStatePool.release(state);
+        GameStatePool.release(snapshot);
+        return numIters;
+    }
+
+    /**
+     * @return number of node ids in use, including the children not expanded in partially expanded nodes.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of visits of the root child of the given action, 0 if it was not expanded.
+     */
+    int childVisits(int action) {
+        return (nodes[ROOT * NODE_INTS + EXPANDED] & (1 << action)) == 0 ? 0 :
+                nodes[(nodes[ROOT * NODE_INTS + CHILDREN] + action) * NODE_INTS + VISITS];
+    }
+
+    /**
+     * @return sum of the values backed up through the root child of the given action, 0 if it was not expanded.
+     */
+    double childValue(int action) {
+        return (nodes[ROOT * NODE_INTS + EXPANDED] & (1 << action)) == 0 ? 0 :
+                values[(nodes[ROOT * NODE_INTS + CHILDREN] + action) * NODE_DOUBLES + VALUE];
+    }
+
+    private void iteration(GameState state) {
+        int node = ROOT;
+        int depth = 0;
+        int length = 0;
+        path[length++] = ROOT;
+
+        while (!state.isTerminal() && depth < params.rollout_depth) {
+            int expanded = nodes[node * NODE_INTS + EXPANDED];
+            if (expanded != (1 << nActions) - 1) {
+                int action = untriedAction(expanded);
+                int child = expand(node, action);
+                if (child != NONE) {
+                    roll(state, action, depth++);
+                    path[length++] = child;
+                }
+                break;
+            }
+            int action = uct(node);
+            node = nodes[node * NODE_INTS + CHILDREN] + action;
+            roll(state, action, depth++);
+            path[length++] = node;
+        }
+
+        while (depth < params.rollout_depth && !state.isTerminal()) {
+            Types.ACTIONS action = rolloutPolicy.act(state, depth, playerIdx, rnd);
+            jointActions[playerIdx] = action;
+            opponentPolicy.fill(state, depth, jointActions, playerIdx, rnd);
+            state.next(jointActions);
+            depth++;
+        }
+
+        backUp(length, rootStateHeuristic.evaluateState(state));
+    }
+
+    /**
+     * @return a random action among the ones not in the mask.
+     */
+    private int untriedAction(int expanded) {
+        int k = rnd.nextInt(nActions - Integer.bitCount(expanded));
+        for (int a = 0; ; a++) {
+            if ((expanded & (1 << a)) == 0 && k-- == 0)
+                return a;
+        }
+    }
+
+    /**
+     * Creates the child of the node for the given action.
+     * @return id of the child, or NONE if the tree is full.
+     */
+    private int expand(int node, int action) {
+        int block = nodes[node * NODE_INTS + CHILDREN];
+        if (block == NONE) {
+            if (size + nActions > capacity)
+                return NONE;
+            ensureCapacity(size + nActions);
+            block = size;
+            size += nActions;
+            nodes[node * NODE_INTS + CHILDREN] = block;
+        }
+        int child = block + action;
+        init(child);
+        nodes[node * NODE_INTS + EXPANDED] |= 1 << action;
+        return child;
+    }
+
+    /**
+     * UCT among the children of a fully expanded node.
+     * @return action of the child selected.
+     */
+    private int uct(int node) {
+        int block = nodes[node * NODE_INTS + CHILDREN];
+        double min = values[node * NODE_DOUBLES + MIN];
+        double max = values[node * NODE_DOUBLES + MAX];
+        double logVisits = Math.log(nodes[node * NODE_INTS + VISITS] + 1);
+
+        int selected = 0;
+        double bestValue = -Double.MAX_VALUE;
+        for (int a = 0; a < nActions; a++) {
+            int child = block + a;
+            double visits = nodes[child * NODE_INTS + VISITS] + params.epsilon;
+            double childValue = Utils.normalise(values[child * NODE_DOUBLES + VALUE] / visits, min, max);
+            double uctValue = childValue + params.K * Math.sqrt(logVisits / visits);
+            uctValue = Utils.noise(uctValue, params.epsilon, rnd.nextDouble());     //break ties randomly
+            if (uctValue > bestValue) {
+                selected = a;
+                bestValue = uctValue;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Rolls the state one tick, with the given action for this player and the opponent policy for the others.
+     */
+    private void roll(GameState state, int action, int depth) {
+        jointActions[playerIdx] = actions[action];
+        opponentPolicy.fill(state, depth, jointActions, playerIdx, rnd);
+        state.next(jointActions);
+    }
+
+    private void backUp(int length, double result) {
+        for (int i = 0; i < length; i++) {
+            int n = path[i];
+            nodes[n * NODE_INTS + VISITS]++;
+            values[n * NODE_DOUBLES + VALUE] += result;
+            if (result < values[n * NODE_DOUBLES + MIN])
+                values[n * NODE_DOUBLES + MIN] = result;
+            if (result > values[n * NODE_DOUBLES + MAX])
+                values[n * NODE_DOUBLES + MAX] = result;
+        }
+    }
+
+    private void init(int node) {
+        nodes[node * NODE_INTS + VISITS] = 0;
+        nodes[node * NODE_INTS + CHILDREN] = NONE;
+        nodes[node * NODE_INTS + EXPANDED] = 0;
+        values[node * NODE_DOUBLES + VALUE] = 0.0;
+        values[node * NODE_DOUBLES + MIN] = Double.MAX_VALUE;
+        values[node * NODE_DOUBLES + MAX] = -Double.MAX_VALUE;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n * NODE_INTS <= nodes.length)
+            return;
+        int length = Math.min(capacity, Math.max(n, nodes.length / NODE_INTS * 2));
+        nodes = Arrays.copyOf(nodes, length * NODE_INTS);
+        values = Arrays.copyOf(values, length * NODE_DOUBLES);
+    }
+
+    /**
+     * Random generator producing the same numbers as java.util.Random, without its atomic updates of the seed: a
+     * tree is only searched by one thread at a time, and random numbers are drawn several times per simulated tick.
+     */
+    private static final class UnsyncRandom extends Random {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final long MASK = (1L << 48) - 1;
+
+        private long seed;
+
+        UnsyncRandom(long seed) {
+            super(seed);    // calls setSeed()
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            super.setSeed(seed);
+            this.seed = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        @Override
+        protected int next(int bits) {
+            seed = (seed * MULTIPLIER + ADDEND) & MASK;
+            return (int) (seed >>> (48 - bits));
+        }
+    }
+}
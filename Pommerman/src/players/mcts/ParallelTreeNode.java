@@ -0,0 +1,260 @@
+package players.mcts;
+
+import core.GameState;
+import core.GameStatePool;
+import players.heuristics.AdvancedHeuristic;
+import players.heuristics.CustomHeuristic;
+import players.heuristics.StateHeuristic;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
+import utils.Types;
+import utils.Utils;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Node of a search tree shared by several threads (tree parallelisation). Statistics are kept in atomic counters
+ * and children are added with compare-and-set, so threads run MCTS iterations on the same tree without locks.
+ * While an iteration is in progress, the nodes in its path carry a virtual loss: they count as visited with the
+ * worst result seen so far, which steers other threads towards different branches until the real result is
+ * backed up.
+ */
+class ParallelTreeNode
+{
+    private final MCTSParams params;
+
+    private final ParallelTreeNode parent;
+    private final AtomicReferenceArray<ParallelTreeNode> children;
+    private final DoubleAdder totValue = new DoubleAdder();
+    private final AtomicInteger nVisits = new AtomicInteger();
+    private final AtomicInteger virtualLoss = new AtomicInteger();
+    private final int m_depth;
+    private final int childIdx;
+
+    // Bounds of the results backed up through this node, as raw double bits.
+    private final AtomicLong lowerBound = new AtomicLong(Double.doubleToRawLongBits(Double.MAX_VALUE));
+    private final AtomicLong upperBound = new AtomicLong(Double.doubleToRawLongBits(-Double.MAX_VALUE));
+
+    private final Types.ACTIONS[] actions;
+
+    ParallelTreeNode(MCTSParams p, Types.ACTIONS[] actions) {
+        this(p, null, -1, actions);
+    }
+
+    private ParallelTreeNode(MCTSParams p, ParallelTreeNode parent, int childIdx, Types.ACTIONS[] actions) {
+        this.params = p;
+        this.parent = parent;
+        this.childIdx = childIdx;
+        this.actions = actions;
+        this.children = new AtomicReferenceArray<>(actions.length);
+        this.m_depth = parent == null ? 0 : parent.m_depth + 1;
+    }
+
+    /**
+     * Runs MCTS iterations on this tree from the calling thread, until the budget is exhausted. Several threads
+     * may call this at the same time, each one with its own budget.
+     * @param rootState state at the root of the tree. Only read, never modified.
+     * @param rnd random generator of the calling thread.
+     * @param budget time budget of the calling thread, for params.STOP_TIME.
+     * @return number of iterations performed by this thread.
+     */
+    int mctsSearch(GameState rootState, Random rnd, BudgetController budget) {
+
+        StateHeuristic rootStateHeuristic = null;
+        if (params.heuristic_method == params.CUSTOM_HEURISTIC)
+            rootStateHeuristic = new CustomHeuristic(rootState);
+        else if (params.heuristic_method == params.ADVANCED_HEURISTIC)
+            rootStateHeuristic = new AdvancedHeuristic(rootState, rnd);
+
+        int numIters = 0;
+
+        // The same state is reused for all iterations of this thread, copying the root state into it every time.
+        GameState state = GameStatePool.acquire(rootState);
+        Types.ACTIONS[] actionsAll = new Types.ACTIONS[Types.NUM_PLAYERS];
+        PolicySchedule rolloutPolicy = new PolicySchedule(params.rollout_policy_near, params.rollout_policy,
+                params.policy_near_depth, rnd);
+        PolicySchedule opponentPolicy = new PolicySchedule(params.opponent_policy_near, params.opponent_policy,
+                params.policy_near_depth, rnd);
+
+        while(params.hasBudget(budget, numIters) || numIters == 0){
+
+            rootState.copyInto(state);
+            ParallelTreeNode selected = treePolicy(state, rnd, actionsAll, opponentPolicy);
+            double delta = selected.rollOut(state, rnd, actionsAll, rootStateHeuristic, rolloutPolicy,
+                    opponentPolicy);
+            backUp(selected, delta);
+            numIters++;
+        }
+        GameStatePool.release(state);
+        return numIters;
+    }
+
+    private ParallelTreeNode treePolicy(GameState state, Random rnd, Types.ACTIONS[] actionsAll,
+                                        PolicySchedule opponentPolicy) {
+
+        ParallelTreeNode cur = this;
+        cur.virtualLoss.addAndGet(params.virtual_loss);
+
+        while (!state.isTerminal() && cur.m_depth < params.rollout_depth)
+        {
+            ParallelTreeNode next = cur.notFullyExpanded() ? cur.expand(rnd) : cur.uct(rnd);
+            next.virtualLoss.addAndGet(params.virtual_loss);
+            roll(state, actions[next.childIdx], cur.m_depth, rnd, actionsAll, opponentPolicy);
+            if (next.nVisits.get() == 0) {
+                return next;
+            }
+            cur = next;
+        }
+
+        return cur;
+    }
+
+    /**
+     * Adds a random child among the ones not expanded yet. If another thread adds the same child first, its node
+     * is returned instead.
+     */
+    private ParallelTreeNode expand(Random rnd) {
+
+        int bestAction = -1;
+        double bestValue = -1;
+
+        for (int i = 0; i < children.length(); i++) {
+            double x = rnd.nextDouble();
+            if (x > bestValue && children.get(i) == null) {
+                bestAction = i;
+                bestValue = x;
+            }
+        }
+        if (bestAction == -1) {
+            // Expanded by other threads in the meantime
+            return uct(rnd);
+        }
+
+        ParallelTreeNode tn = new ParallelTreeNode(params, this, bestAction, actions);
+        if (!children.compareAndSet(bestAction, null, tn)) {
+            tn = children.get(bestAction);
+        }
+        return tn;
+    }
+
+    private void roll(GameState gs, Types.ACTIONS act, int depth, Random rnd, Types.ACTIONS[] actionsAll,
+                      PolicySchedule opponentPolicy)
+    {
+        int playerId = gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+        actionsAll[playerId] = act;
+        opponentPolicy.fill(gs, depth, actionsAll, playerId, rnd);
+
+        gs.next(actionsAll);
+    }
+
+    private ParallelTreeNode uct(Random rnd) {
+        ParallelTreeNode selected = null;
+        double bestValue = -Double.MAX_VALUE;
+        double lower = Double.longBitsToDouble(lowerBound.get());
+        double upper = Double.longBitsToDouble(upperBound.get());
+        int visits = nVisits.get() + virtualLoss.get();
+
+        for (int i = 0; i < children.length(); i++)
+        {
+            ParallelTreeNode child = children.get(i);
+            int vl = child.virtualLoss.get();
+            int childVisits = child.nVisits.get() + vl;
+
+            // Paths in progress count as losses: the worst result seen so far at this node.
+            double hvVal = child.totValue.sum() + (vl > 0 && lower <= upper ? vl * lower : 0);
+            double childValue =  hvVal / (childVisits + params.epsilon);
+
+            childValue = Utils.normalise(childValue, lower, upper);
+
+            double uctValue = childValue +
+                    params.K * Math.sqrt(Math.log(visits + 1) / (childVisits + params.epsilon));
+
+            uctValue = Utils.noise(uctValue, params.epsilon, rnd.nextDouble());     //break ties randomly
+
+            if (uctValue > bestValue) {
+                selected = child;
+                bestValue = uctValue;
+            }
+        }
+        if (selected == null)
+        {
+            throw new RuntimeException("Warning! returning null: " + bestValue + " : " + children.length() + " " +
+                    + lower + " " + upper);
+        }
+
+        return selected;
+    }
+
+    private double rollOut(GameState state, Random rnd, Types.ACTIONS[] actionsAll, StateHeuristic heuristic,
+                           PolicySchedule rolloutPolicy, PolicySchedule opponentPolicy)
+    {
+        int thisDepth = this.m_depth;
+        int playerId = state.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+
+        while (thisDepth < params.rollout_depth && !state.isTerminal()) {
+            Types.ACTIONS action = rolloutPolicy.act(state, thisDepth, playerId, rnd);
+            roll(state, action, thisDepth, rnd, actionsAll, opponentPolicy);
+            thisDepth++;
+        }
+
+        return heuristic.evaluateState(state);
+    }
+
+    /**
+     * Adds the result to every node from the given one to the root, removing the virtual loss added on the way down.
+     */
+    private void backUp(ParallelTreeNode node, double result)
+    {
+        ParallelTreeNode n = node;
+        while(n != null)
+        {
+            n.totValue.add(result);
+            n.nVisits.incrementAndGet();
+            n.virtualLoss.addAndGet(-params.virtual_loss);
+            updateBound(n.lowerBound, result, true);
+            updateBound(n.upperBound, result, false);
+            n = n.parent;
+        }
+    }
+
+    private static void updateBound(AtomicLong bound, double result, boolean lower) {
+        long current;
+        do {
+            current = bound.get();
+            double value = Double.longBitsToDouble(current);
+            if (lower ? result >= value : result <= value) {
+                return;
+            }
+        } while (!bound.compareAndSet(current, Double.doubleToRawLongBits(result)));
+    }
+
+    /**
+     * @return number of visits of the child reached with the given action, 0 if it was not expanded.
+     */
+    int childVisits(int action) {
+        ParallelTreeNode child = children.get(action);
+        return child == null ? 0 : child.nVisits.get();
+    }
+
+    /**
+     * @return sum of the values backed up through the child reached with the given action, 0 if it was not expanded.
+     */
+    double childValue(int action) {
+        ParallelTreeNode child = children.get(action);
+        return child == null ? 0 : child.totValue.sum();
+    }
+
+    private boolean notFullyExpanded() {
+        for (int i = 0; i < children.length(); i++) {
+            if (children.get(i) == null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,428 @@
+package players.mcts;
+
+import core.GameState;
+import core.GameStatePool;
+import players.Player;
+import players.heuristics.AdvancedHeuristic;
+import players.heuristics.CustomHeuristic;
+import players.heuristics.StateHeuristic;
+import players.optimisers.ParameterizedPlayer;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
+import utils.Types;
+import utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static players.mcts.JointNodeArena.NONE;
+
+/**
+ * Simultaneous-move MCTS with decoupled UCT (DUCT). Where MCTSPlayer only searches this player's actions and
+ * samples the others from the opponent policy, here every alive player chooses its own action in each node of the
+ * tree, with UCT over its own statistics for that node, and the node reached depends on the joint action played.
+ * Opponents so play the moves the search has learnt to be good for them, instead of random ones.
+ * This player is rewarded with the heuristic of the search (see MCTSParams.heuristic_method), the others with
+ * opponentReward(). Beyond the tree, moves are played by the rollout and opponent policies as in MCTSPlayer.
+ * Uses the same parameters and budget types as MCTSPlayer; tree reuse, pondering, threads, RAVE, action priors and
+ * progressive widening are not supported. Nodes are kept in a JointNodeArena of at most params.max_nodes nodes.
+ */
+public class SimultaneousMCTSPlayer extends ParameterizedPlayer {
+
+    // Bits per player in a joint action, enough for all of Types.ACTIONS.
+    static final int ACTION_BITS = 3;
+
+    private static final int ROOT = 0;
+
+    /**
+     * Random generator.
+     */
+    private Random m_rnd;
+
+    /**
+     * All actions available.
+     */
+    public Types.ACTIONS[] actions;
+
+    /**
+     * Params for this MCTS
+     */
+    public MCTSParams params;
+
+    private JointNodeArena arena;
+    private PolicySchedule rolloutPolicy;
+    private PolicySchedule opponentPolicy;
+
+    // State of the current search.
+    private GameState rootState;
+    private StateHeuristic rootStateHeuristic;
+    private int playerIdx;
+    private int[] teams = new int[Types.NUM_PLAYERS];
+    private int[] rootEnemies = new int[Types.NUM_PLAYERS];
+    private double[] boundMin = new double[Types.NUM_PLAYERS];
+    private double[] boundMax = new double[Types.NUM_PLAYERS];
+
+    // Buffers reused between iterations: nodes, joint actions and alive players along the path, and rewards.
+    private int[] pathNodes;
+    private int[] pathJoints;
+    private int[] pathAlive;
+    private double[] rewards = new double[Types.NUM_PLAYERS];
+    private Types.ACTIONS[] jointActions = new Types.ACTIONS[Types.NUM_PLAYERS];
+
+    private int lastIterations;
+    private double lastOvertimeProbability;
+
+    public SimultaneousMCTSPlayer(long seed, int id) {
+        this(seed, id, new MCTSParams());
+    }
+
+    public SimultaneousMCTSPlayer(long seed, int id, MCTSParams params) {
+        super(seed, id, params);
+        reset(seed, id);
+
+        ArrayList<Types.ACTIONS> actionsList = Types.ACTIONS.all();
+        actions = new Types.ACTIONS[actionsList.size()];
+        int i = 0;
+        for (Types.ACTIONS act : actionsList) {
+            actions[i++] = act;
+        }
+    }
+
+    @Override
+    public void reset(long seed, int playerID) {
+        super.reset(seed, playerID);
+        m_rnd = new Random(seed);
+
+        this.params = (MCTSParams) getParameters();
+        if (this.params == null) {
+            this.params = new MCTSParams();
+            super.setParameters(this.params);
+        }
+        arena = null;
+        rolloutPolicy = new PolicySchedule(params.rollout_policy_near, params.rollout_policy,
+                params.policy_near_depth, m_rnd);
+        opponentPolicy = new PolicySchedule(params.opponent_policy_near, params.opponent_policy,
+                params.policy_near_depth, m_rnd);
+    }
+
+    @Override
+    public Types.ACTIONS act(GameState gs) {
+
+        BudgetController budget = params.newBudget();
+
+        if (arena == null)
+            arena = new JointNodeArena(Types.NUM_PLAYERS, actions.length, params.max_nodes);
+        arena.clear();
+        setRootGameState(gs);
+
+        //Determine the action using MCTS...
+        lastIterations = mctsSearch(budget);
+        lastOvertimeProbability = budget.overtimeProbability();
+
+        //... and return it.
+        return actions[mostVisitedAction()];
+    }
+
+    /**
+     * @return number of iterations performed in the last call to act().
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return estimated probability that the last call to act() went over its time budget (0 unless searching with
+     * params.STOP_TIME).
+     */
+    public double getLastOvertimeProbability() {
+        return lastOvertimeProbability;
+    }
+
+    /**
+     * @return number of nodes of the tree of the last search.
+     */
+    public int getLastTreeSize() {
+        return arena == null ? 0 : arena.size();
+    }
+
+    private void setRootGameState(GameState gs) {
+        rootState = gs;
+        if (params.heuristic_method == params.CUSTOM_HEURISTIC)
+            rootStateHeuristic = new CustomHeuristic(gs);
+        else if (params.heuristic_method == params.ADVANCED_HEURISTIC)
+            rootStateHeuristic = new AdvancedHeuristic(gs, m_rnd);
+
+        playerIdx = gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+        int alive = aliveMask(gs);
+        for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+            teams[p] = Types.getGameConfig().getTeam(gs.getGameMode(), Types.TILETYPE.AGENT0.getKey() + p);
+            boundMin[p] = Double.MAX_VALUE;
+            boundMax[p] = -Double.MAX_VALUE;
+        }
+        for (int p = 0; p < Types.NUM_PLAYERS; p++)
+            rootEnemies[p] = enemies(p, alive);
+    }
+
+    private int mctsSearch(BudgetController budget) {
+
+        int numIters = 0;
+
+        if (pathNodes == null || pathNodes.length < params.rollout_depth) {
+            pathNodes = new int[params.rollout_depth];
+            pathJoints = new int[params.rollout_depth];
+            pathAlive = new int[params.rollout_depth];
+        }
+
+        // The same state is reused for all iterations, copying the root state into it every time.
+        GameState state = GameStatePool.acquire(rootState);
+
+        while(params.hasBudget(budget, numIters) || numIters == 0){
+
+            rootState.copyInto(state);
+            iteration(state);
+            numIters++;
+        }
+        GameStatePool.release(state);
+        return numIters;
+    }
+
+    /**
+     * Runs one iteration from the root: every alive player selects its action in each node of the tree until a
+     * joint action without a node is played (adding it), then rolls out and backs up the reward of each player.
+     * @param state state of the root, modified by the iteration.
+     */
+    private void iteration(GameState state) {
+        int node = ROOT;
+        int depth = 0;
+
+        while (!state.isTerminal() && depth < params.rollout_depth)
+        {
+            int alive = aliveMask(state);
+            int joint = 0;
+            for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+                int action = (alive & (1 << p)) != 0 ? select(node, p) : 0;
+                jointActions[p] = actions[action];
+                joint |= action << (ACTION_BITS * p);
+            }
+            pathNodes[depth] = node;
+            pathJoints[depth] = joint;
+            pathAlive[depth] = alive;
+            depth++;
+            state.next(jointActions);
+
+            int child = arena.child(node, joint);
+            if (child == NONE) {
+                // New joint action: add its node, if there is room, and roll out from it.
+                arena.add(node, joint);
+                break;
+            }
+            node = child;
+        }
+
+        rollOut(state, depth);
+        evaluate(state);
+        backUp(depth);
+    }
+
+    /**
+     * Decoupled UCT: chooses the action of a player in a node from the statistics of that player only. Actions not
+     * tried yet by the player in the node are chosen first, at random.
+     */
+    private int select(int node, int player) {
+        int base = arena.stat(node, player, 0);
+        int selected = NONE;
+        double bestValue = -1;
+
+        for (int a = 0; a < actions.length; a++) {
+            double x = m_rnd.nextDouble();
+            if (x > bestValue && arena.actionVisits[base + a] == 0) {
+                selected = a;
+                bestValue = x;
+            }
+        }
+        if (selected != NONE)
+            return selected;
+
+        bestValue = -Double.MAX_VALUE;
+        for (int a = 0; a < actions.length; a++)
+        {
+            int visits = arena.actionVisits[base + a];
+            double childValue = arena.actionValue[base + a] / (visits + params.epsilon);
+
+            childValue = Utils.normalise(childValue, boundMin[player], boundMax[player]);
+
+            double uctValue = childValue +
+                    params.K * Math.sqrt(Math.log(arena.visits[node] + 1) / (visits + params.epsilon));
+
+            uctValue = Utils.noise(uctValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+
+            if (uctValue > bestValue) {
+                selected = a;
+                bestValue = uctValue;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Plays the moves of the rollout policy for this player, and the opponent policy for the others, until the
+     * rollout depth or the end of the game.
+     */
+    private void rollOut(GameState state, int depth)
+    {
+        while (depth < params.rollout_depth && !state.isTerminal()) {
+            jointActions[playerIdx] = rolloutPolicy.act(state, depth, playerIdx, m_rnd);
+            opponentPolicy.fill(state, depth, jointActions, playerIdx, m_rnd);
+            state.next(jointActions);
+            depth++;
+        }
+    }
+
+    /**
+     * Sets the reward of every player for the state reached by an iteration.
+     */
+    private void evaluate(GameState state) {
+        int alive = aliveMask(state);
+        for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+            double reward = p == playerIdx ? rootStateHeuristic.evaluateState(state) : opponentReward(p, alive);
+            rewards[p] = reward;
+            if (reward < boundMin[p])
+                boundMin[p] = reward;
+            if (reward > boundMax[p])
+                boundMax[p] = reward;
+        }
+    }
+
+    /**
+     * Reward of another player: -1 if it died, 1 if all its enemies did, and otherwise half the fraction of its
+     * enemies alive at the root that died, weighted as enemies are in CustomHeuristic.
+     * @param alive mask of the players alive at the end of the iteration.
+     */
+    private double opponentReward(int player, int alive) {
+        if ((alive & (1 << player)) == 0)
+            return -1;
+        int enemies = enemies(player, alive);
+        if (enemies == 0)
+            return 1;
+        if (rootEnemies[player] == 0)
+            return 0;
+        return 0.5 * (rootEnemies[player] - enemies) / rootEnemies[player];
+    }
+
+    /**
+     * @return number of players in the mask that are enemies of the given one.
+     */
+    private int enemies(int player, int alive) {
+        int n = 0;
+        for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+            if ((alive & (1 << p)) != 0 && teams[p] != teams[player])
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Adds the rewards of an iteration to every node of the path, and to the statistics of the actions each alive
+     * player played in it.
+     */
+    private void backUp(int pathLength)
+    {
+        for (int i = 0; i < pathLength; i++) {
+            int node = pathNodes[i];
+            int joint = pathJoints[i];
+            int alive = pathAlive[i];
+            arena.visits[node]++;
+            for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+                if ((alive & (1 << p)) != 0) {
+                    int stat = arena.stat(node, p, (joint >>> (ACTION_BITS * p)) & ((1 << ACTION_BITS) - 1));
+                    arena.actionVisits[stat]++;
+                    arena.actionValue[stat] += rewards[p];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return mask of the players alive in the state, by index.
+     */
+    private static int aliveMask(GameState state) {
+        int mask = 0;
+        for (Types.TILETYPE agent : state.getAliveAgentIDs())
+            mask |= 1 << (agent.getKey() - Types.TILETYPE.AGENT0.getKey());
+        return mask;
+    }
+
+    private int mostVisitedAction() {
+        int base = arena.stat(ROOT, playerIdx, 0);
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+        boolean allEqual = true;
+        double first = -1;
+
+        for (int i = 0; i < actions.length; i++) {
+
+            int visits = arena.actionVisits[base + i];
+            if(visits > 0)
+            {
+                if(first == -1)
+                    first = visits;
+                else if(first != visits)
+                {
+                    allEqual = false;
+                }
+
+                double childValue = visits;
+                childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = i;
+                }
+            }
+        }
+
+        if (selected == -1)
+        {
+            selected = 0;
+        }else if(allEqual)
+        {
+            //If all are equal, we opt to choose for the one with the best Q.
+            selected = bestAction(base);
+        }
+
+        return selected;
+    }
+
+    private int bestAction(int base)
+    {
+        int selected = 0;
+        double bestValue = -Double.MAX_VALUE;
+
+        for (int i = 0; i < actions.length; i++) {
+
+            int visits = arena.actionVisits[base + i];
+            if(visits > 0) {
+                double childValue = arena.actionValue[base + i] / (visits + params.epsilon);
+                childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = i;
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    @Override
+    public int[] getMessage() {
+        // default message
+        int[] message = new int[Types.MESSAGE_LENGTH];
+        message[0] = 1;
+        return message;
+    }
+
+    @Override
+    public Player copy() {
+        return new SimultaneousMCTSPlayer(seed, playerID, params);
+    }
+}
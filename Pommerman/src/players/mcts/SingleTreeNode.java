@@ -1,58 +1,83 @@
 package players.mcts;
 
 import core.GameState;
+import core.GameStatePool;
 import players.heuristics.AdvancedHeuristic;
 import players.heuristics.CustomHeuristic;
 import players.heuristics.StateHeuristic;
-import utils.ElapsedCpuTimer;
+import players.rollouts.AvoidBlastPolicy;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
 import utils.Types;
 import utils.Utils;
 import utils.Vector2d;
 
-import java.util.ArrayList;
 import java.util.Random;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static players.mcts.NodeArena.NONE;
+
+/**
+ * Root of an MCTS tree. Nodes are kept in a NodeArena, holding at most params.max_nodes of them, and referred to
+ * by id, the root being node 0. When the arena is full, the search keeps running but stops expanding the tree:
+ * iterations roll out from the node where they would have expanded it. Nodes are recycled when the tree is reset
+ * for a new search, or when the subtree of an action is kept for the next one (see detachChild()).
+ * Optionally (see MCTSParams), children are valued with RAVE, expanded safe actions first, and expanded
+ * progressively as their parent gets visits.
+ */
 public class SingleTreeNode
 {
+    private static final int ROOT = 0;
+
     public MCTSParams params;
 
-    private SingleTreeNode parent;
-    private SingleTreeNode[] children;
-    private double totValue;
-    private int nVisits;
+    // Nodes of the tree, and a second arena to compact the tree into when a subtree is detached.
+    private NodeArena arena;
+    private NodeArena spare;
+
     private Random m_rnd;
-    private int m_depth;
-    private double[] bounds = new double[]{Double.MAX_VALUE, -Double.MAX_VALUE};
-    private int childIdx;
     private int fmCallsCount;
 
     private int num_actions;
     private Types.ACTIONS[] actions;
 
+    // Policies playing this player's moves in rollouts, and the other players' moves on every tick.
+    private PolicySchedule rolloutPolicy;
+    private PolicySchedule opponentPolicy;
+
+    // Buffer reused by roll().
+    private Types.ACTIONS[] jointActions = new Types.ACTIONS[0];
+
+    // Safety check of the actions of this player, for the action priors.
+    private final AvoidBlastPolicy safety = new AvoidBlastPolicy();
+
     private GameState rootState;
     private StateHeuristic rootStateHeuristic;
 
     SingleTreeNode(MCTSParams p, Random rnd, int num_actions, Types.ACTIONS[] actions) {
-        this(p, null, -1, rnd, num_actions, actions, 0, null);
+        this(p, rnd, num_actions, actions, new NodeArena(num_actions, p.max_nodes), null);
+        arena.clear();
+        rolloutPolicy = new PolicySchedule(p.rollout_policy_near, p.rollout_policy, p.policy_near_depth, rnd);
+        opponentPolicy = new PolicySchedule(p.opponent_policy_near, p.opponent_policy, p.policy_near_depth, rnd);
     }
 
-    private SingleTreeNode(MCTSParams p, SingleTreeNode parent, int childIdx, Random rnd, int num_actions,
-                           Types.ACTIONS[] actions, int fmCallsCount, StateHeuristic sh) {
+    private SingleTreeNode(MCTSParams p, Random rnd, int num_actions, Types.ACTIONS[] actions, NodeArena arena,
+                           NodeArena spare) {
         this.params = p;
-        this.fmCallsCount = fmCallsCount;
-        this.parent = parent;
         this.m_rnd = rnd;
         this.num_actions = num_actions;
         this.actions = actions;
-        children = new SingleTreeNode[num_actions];
-        totValue = 0.0;
-        this.childIdx = childIdx;
-        if(parent != null) {
-            m_depth = parent.m_depth + 1;
-            this.rootStateHeuristic = sh;
-        }
-        else
-            m_depth = 0;
+        this.arena = arena;
+        this.spare = spare;
+    }
+
+    /**
+     * Removes all nodes but the root, for a new search with the given random generator.
+     */
+    void reset(Random rnd) {
+        m_rnd = rnd;
+        fmCallsCount = 0;
+        arena.clear();
     }
 
     void setRootGameState(GameState gs)
@@ -65,117 +90,220 @@ public class SingleTreeNode
     }
 
 
-    void mctsSearch(ElapsedCpuTimer elapsedTimer) {
+    /**
+     * Runs MCTS iterations from the root until the budget is exhausted. At least one iteration is run.
+     * @param budget time budget, for params.STOP_TIME.
+     * @return number of iterations performed.
+     */
+    int mctsSearch(BudgetController budget) {
 
-        double avgTimeTaken;
-        double acumTimeTaken = 0;
-        long remaining;
         int numIters = 0;
 
-        int remainingLimit = 5;
-        boolean stop = false;
-
-        while(!stop){
-
-            GameState state = rootState.copy();
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
-            SingleTreeNode selected = treePolicy(state);
-            double delta = selected.rollOut(state);
-            backUp(selected, delta);
-
-            //Stopping condition
-            if(params.stop_type == params.STOP_TIME) {
-                numIters++;
-                acumTimeTaken += (elapsedTimerIteration.elapsedMillis()) ;
-                avgTimeTaken  = acumTimeTaken/numIters;
-                remaining = elapsedTimer.remainingTimeMillis();
-                stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
-            }else if(params.stop_type == params.STOP_ITERATIONS) {
-                numIters++;
-                stop = numIters >= params.num_iterations;
-            }else if(params.stop_type == params.STOP_FMCALLS)
-            {
-                fmCallsCount+=params.rollout_depth;
-                stop = (fmCallsCount + params.rollout_depth) > params.num_fmcalls;
-            }
+        // The same state is reused for all iterations, copying the root state into it every time.
+        GameState state = GameStatePool.acquire(rootState);
+
+        while(params.hasBudget(budget, numIters) || numIters == 0){
+
+            rootState.copyInto(state);
+            iteration(state);
+            numIters++;
         }
+        GameStatePool.release(state);
         //System.out.println(" ITERS " + numIters);
+        return numIters;
     }
 
-    private SingleTreeNode treePolicy(GameState state) {
+    /**
+     * Runs MCTS iterations from the root until told to stop, for the state reached after playing the given action
+     * from the given state. Used to ponder on the subtree of the action just played, while the game advances: the
+     * tree must have been detached from the previous one (see detachChild()) and given a root state. If the action
+     * was never expanded, the root takes the position of the player after the first roll, so that matches() can
+     * still tell whether the pondered tree fits the state observed next.
+     * @param gs state the action is played from.
+     * @param action action played, by this player.
+     * @param stop set to stop the search.
+     * @return number of iterations performed.
+     */
+    int ponderSearch(GameState gs, Types.ACTIONS action, AtomicBoolean stop) {
+        int numIters = 0;
+        GameState state = GameStatePool.acquire(gs);
+        while (!stop.get()) {
+            gs.copyInto(state);
+            roll(state, action, 0);
+            if (arena.position[ROOT] == NONE)
+                arena.position[ROOT] = pack(state.getPosition());
+            iteration(state);
+            numIters++;
+        }
+        GameStatePool.release(state);
+        return numIters;
+    }
 
-        SingleTreeNode cur = this;
+    /**
+     * Runs one iteration from the root: tree policy, rollout and back up.
+     * @param state state of the root, modified by the iteration.
+     */
+    private void iteration(GameState state) {
+        int selected = ROOT;
+        int depth = 0;
 
-        while (!state.isTerminal() && cur.m_depth < params.rollout_depth)
+        while (!state.isTerminal() && depth < params.rollout_depth)
         {
-            if (cur.notFullyExpanded()) {
-                return cur.expand(state);
+            if (canExpand(selected)) {
+                int child = expand(selected, state, depth);
+                if (child != NONE) {
+                    selected = child;
+                    depth++;
+                }
+                break;
 
             } else {
-                cur = cur.uct(state);
+                selected = uct(selected, state, depth);
+                depth++;
             }
         }
 
-        return cur;
+        int played = rollOut(state, depth);
+        double result = rootStateHeuristic.evaluateState(state);
+        backUp(selected, result);
+        if (params.rave)
+            backUpAmaf(selected, result, played);
+    }
+
+    /**
+     * Detaches the subtree of the action with the given index, to be used as a new tree whose search keeps the
+     * statistics gathered so far. The subtree is cut down to at most maxNodes nodes, keeping the ones closest to its
+     * root (in breadth-first order), and compacted into the spare arena of this tree, so this tree must not be used
+     * afterwards. If the action was never expanded, the new tree only has a root.
+     * @param action index of the action.
+     * @param maxNodes maximum number of nodes kept, including the root.
+     * @return the new tree.
+     */
+    SingleTreeNode detachChild(int action, int maxNodes) {
+        if (spare == null)
+            spare = new NodeArena(num_actions, params.max_nodes);
+
+        int child = arena.child(ROOT, action);
+        if (child == NONE)
+            spare.clear();
+        else
+            arena.compactInto(spare, child, maxNodes);
+        SingleTreeNode tree = new SingleTreeNode(params, m_rnd, num_actions, actions, spare, arena);
+        tree.rolloutPolicy = rolloutPolicy;
+        tree.opponentPolicy = opponentPolicy;
+        return tree;
     }
 
+    /**
+     * Checks if this tree, detached from the previous one after playing the action that led to it, still matches
+     * the state observed in the game: the player must be where the search first saw it after the action. Moves
+     * blocked by other agents or replaced by the game (e.g. going overtime) leave the player elsewhere, and the
+     * tree is not reused then. Roots never reached by the search match any state.
+     * @param gs state observed after playing the action.
+     */
+    boolean matches(GameState gs) {
+        if (arena.visits[ROOT] == 0)
+            return true;
+        return arena.position[ROOT] == pack(gs.getPosition());
+    }
 
-    private SingleTreeNode expand(GameState state) {
+    /**
+     * @return number of node ids in use by the tree.
+     */
+    int size() {
+        return arena.size();
+    }
+
+    /**
+     * @return true if a new child of the node can be expanded: it has children not expanded yet and, with
+     * progressive widening, fewer children than widening_c * visits^widening_alpha.
+     */
+    private boolean canExpand(int node) {
+        if (arena.fullyExpanded(node))
+            return false;
+        if (!params.progressive_widening)
+            return true;
+        int children = arena.expandedCount(node);
+        return children == 0 || children < params.widening_c * Math.pow(arena.visits[node] + 1, params.widening_alpha);
+    }
+
+    /**
+     * Expands a random child of the node, among the ones not expanded yet, rolling the state with its action.
+     * With action priors, the children whose action passes the safety check are expanded first.
+     * @param depth depth of the node.
+     * @return the new child, or NONE if the arena is full (the state is not rolled then).
+     */
+    private int expand(int node, GameState state, int depth) {
+
+        int preferred = 0;
+        if (params.action_priors) {
+            safety.prepare(state);
+            preferred = safety.safeActions(state.getPlayerId() - Types.TILETYPE.AGENT0.getKey())
+                    & ~arena.expanded[node];
+        }
 
         int bestAction = 0;
         double bestValue = -1;
 
-        for (int i = 0; i < children.length; i++) {
+        for (int i = 0; i < num_actions; i++) {
             double x = m_rnd.nextDouble();
-            if (x > bestValue && children[i] == null) {
+            if (x > bestValue && arena.child(node, i) == NONE && (preferred == 0 || (preferred & (1 << i)) != 0)) {
                 bestAction = i;
                 bestValue = x;
             }
         }
 
+        int child = arena.expand(node, bestAction);
+        if (child == NONE)
+            return NONE;
+
         //Roll the state
-        roll(state, actions[bestAction]);
+        roll(state, actions[bestAction], depth);
 
-        SingleTreeNode tn = new SingleTreeNode(params,this,bestAction,this.m_rnd,num_actions,
-                actions, fmCallsCount, rootStateHeuristic);
-        children[bestAction] = tn;
-        return tn;
+        arena.position[child] = pack(state.getPosition());
+        return child;
     }
 
-    private void roll(GameState gs, Types.ACTIONS act)
+    /**
+     * Rolls the state one tick, with the given action for this player and the opponent policy for the others.
+     * @param depth depth of the tick, from the root.
+     */
+    private void roll(GameState gs, Types.ACTIONS act, int depth)
     {
-        //Simple, all random first, then my position.
-        int nPlayers = 4;
-        Types.ACTIONS[] actionsAll = new Types.ACTIONS[4];
+        int nPlayers = Types.NUM_PLAYERS;
+        if (jointActions.length != nPlayers)
+            jointActions = new Types.ACTIONS[nPlayers];
         int playerId = gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
 
-        for(int i = 0; i < nPlayers; ++i)
-        {
-            if(playerId == i)
-            {
-                actionsAll[i] = act;
-            }else {
-                int actionIdx = m_rnd.nextInt(gs.nActions());
-                actionsAll[i] = Types.ACTIONS.all().get(actionIdx);
-            }
-        }
+        jointActions[playerId] = act;
+        opponentPolicy.fill(gs, depth, jointActions, playerId, m_rnd);
 
-        gs.next(actionsAll);
+        gs.next(jointActions);
 
     }
 
-    private SingleTreeNode uct(GameState state) {
-        SingleTreeNode selected = null;
+    private int uct(int node, GameState state, int depth) {
+        int selected = NONE;
         double bestValue = -Double.MAX_VALUE;
-        for (SingleTreeNode child : this.children)
+        for (int a = 0; a < num_actions; a++)
         {
-            double hvVal = child.totValue;
-            double childValue =  hvVal / (child.nVisits + params.epsilon);
-
-            childValue = Utils.normalise(childValue, bounds[0], bounds[1]);
+            int child = arena.child(node, a);
+            if (child == NONE)
+                continue;
+            double hvVal = arena.value[child];
+            double childValue =  hvVal / (arena.visits[child] + params.epsilon);
+
+            childValue = Utils.normalise(childValue, arena.boundMin[node], arena.boundMax[node]);
+
+            if (params.rave && arena.amafVisits[child] > 0) {
+                double amafValue = arena.amafValue[child] / arena.amafVisits[child];
+                amafValue = Utils.normalise(amafValue, arena.boundMin[node], arena.boundMax[node]);
+                double beta = Math.sqrt(params.rave_k / (3 * arena.visits[child] + params.rave_k));
+                childValue = (1 - beta) * childValue + beta * amafValue;
+            }
 
             double uctValue = childValue +
-                    params.K * Math.sqrt(Math.log(this.nVisits + 1) / (child.nVisits + params.epsilon));
+                    params.K * Math.sqrt(Math.log(arena.visits[node] + 1) / (arena.visits[child] + params.epsilon));
 
             uctValue = Utils.noise(uctValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
 
@@ -185,58 +313,38 @@ public class SingleTreeNode
                 bestValue = uctValue;
             }
         }
-        if (selected == null)
+        if (selected == NONE)
         {
-            throw new RuntimeException("Warning! returning null: " + bestValue + " : " + this.children.length + " " +
-                    + bounds[0] + " " + bounds[1]);
+            throw new RuntimeException("Warning! returning null: " + bestValue + " : " + num_actions + " " +
+                    + arena.boundMin[node] + " " + arena.boundMax[node]);
         }
 
         //Roll the state:
-        roll(state, actions[selected.childIdx]);
+        roll(state, actions[arena.action(selected)], depth);
 
         return selected;
     }
 
-    private double rollOut(GameState state)
+    /**
+     * Plays the actions of the rollout policy until the rollout depth or the end of the game.
+     * @param state state reached by the tree policy.
+     * @param depth depth reached by the tree policy.
+     * @return mask of the actions played by this player.
+     */
+    private int rollOut(GameState state, int depth)
     {
-        int thisDepth = this.m_depth;
+        int thisDepth = depth;
+        int playerId = state.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+        int played = 0;
 
         while (!finishRollout(state,thisDepth)) {
-            int action = safeRandomAction(state);
-            roll(state, actions[action]);
+            Types.ACTIONS action = rolloutPolicy.act(state, thisDepth, playerId, m_rnd);
+            roll(state, action, thisDepth);
+            played |= 1 << action.getKey();
             thisDepth++;
 
         }
-
-        return rootStateHeuristic.evaluateState(state);
-    }
-
-    private int safeRandomAction(GameState state)
-    {
-        Types.TILETYPE[][] board = state.getBoard();
-        ArrayList<Types.ACTIONS> actionsToTry = Types.ACTIONS.all();
-        int width = board.length;
-        int height = board[0].length;
-
-        while(actionsToTry.size() > 0) {
-
-            int nAction = m_rnd.nextInt(actionsToTry.size());
-            Types.ACTIONS act = actionsToTry.get(nAction);
-            Vector2d dir = act.getDirection().toVec();
-
-            Vector2d pos = state.getPosition();
-            int x = pos.x + dir.x;
-            int y = pos.y + dir.y;
-
-            if (x >= 0 && x < width && y >= 0 && y < height)
-                if(board[y][x] != Types.TILETYPE.FLAMES)
-                    return nAction;
-
-            actionsToTry.remove(nAction);
-        }
-
-        //Uh oh...
-        return m_rnd.nextInt(num_actions);
+        return played;
     }
 
     @SuppressWarnings("RedundantIfStatement")
@@ -251,23 +359,49 @@ public class SingleTreeNode
         return false;
     }
 
-    private void backUp(SingleTreeNode node, double result)
+    private void backUp(int node, double result)
     {
-        SingleTreeNode n = node;
-        while(n != null)
+        int n = node;
+        while(n != NONE)
         {
-            n.nVisits++;
-            n.totValue += result;
-            if (result < n.bounds[0]) {
-                n.bounds[0] = result;
+            arena.visits[n]++;
+            arena.value[n] += result;
+            if (result < arena.boundMin[n]) {
+                arena.boundMin[n] = result;
             }
-            if (result > n.bounds[1]) {
-                n.bounds[1] = result;
+            if (result > arena.boundMax[n]) {
+                arena.boundMax[n] = result;
             }
-            n = n.parent;
+            n = arena.parent[n];
         }
     }
 
+    /**
+     * Backs up the AMAF statistics of an iteration: from each node in the path to the given one, every action this
+     * player played afterwards counts for the child of that action as if it had been played first.
+     * @param node last node of the tree the iteration went through.
+     * @param played mask of the actions played by this player in the rollout from the node.
+     */
+    private void backUpAmaf(int node, double result, int played)
+    {
+        int n = node;
+        while (true)
+        {
+            int block = arena.firstChild[n];
+            if (block != NONE) {
+                for (int a = 0; a < num_actions; a++) {
+                    if ((played & (1 << a)) != 0) {
+                        arena.amafVisits[block + a]++;
+                        arena.amafValue[block + a] += result;
+                    }
+                }
+            }
+            if (arena.parent[n] == NONE)
+                break;
+            played |= 1 << arena.action(n);
+            n = arena.parent[n];
+        }
+    }
 
     int mostVisitedAction() {
         int selected = -1;
@@ -275,18 +409,19 @@ public class SingleTreeNode
         boolean allEqual = true;
         double first = -1;
 
-        for (int i=0; i<children.length; i++) {
+        for (int i=0; i<num_actions; i++) {
 
-            if(children[i] != null)
+            int child = arena.child(ROOT, i);
+            if(child != NONE)
             {
                 if(first == -1)
-                    first = children[i].nVisits;
-                else if(first != children[i].nVisits)
+                    first = arena.visits[child];
+                else if(first != arena.visits[child])
                 {
                     allEqual = false;
                 }
 
-                double childValue = children[i].nVisits;
+                double childValue = arena.visits[child];
                 childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
                 if (childValue > bestValue) {
                     bestValue = childValue;
@@ -307,15 +442,32 @@ public class SingleTreeNode
         return selected;
     }
 
+    /**
+     * @return number of visits of the child reached with the given action, 0 if it was not expanded.
+     */
+    int childVisits(int action) {
+        int child = arena.child(ROOT, action);
+        return child == NONE ? 0 : arena.visits[child];
+    }
+
+    /**
+     * @return sum of the values backed up through the child reached with the given action, 0 if it was not expanded.
+     */
+    double childValue(int action) {
+        int child = arena.child(ROOT, action);
+        return child == NONE ? 0 : arena.value[child];
+    }
+
     private int bestAction()
     {
         int selected = -1;
         double bestValue = -Double.MAX_VALUE;
 
-        for (int i=0; i<children.length; i++) {
+        for (int i=0; i<num_actions; i++) {
 
-            if(children[i] != null) {
-                double childValue = children[i].totValue / (children[i].nVisits + params.epsilon);
+            int child = arena.child(ROOT, i);
+            if(child != NONE) {
+                double childValue = arena.value[child] / (arena.visits[child] + params.epsilon);
                 childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
                 if (childValue > bestValue) {
                     bestValue = childValue;
@@ -333,14 +485,10 @@ public class SingleTreeNode
         return selected;
     }
 
-
-    private boolean notFullyExpanded() {
-        for (SingleTreeNode tn : children) {
-            if (tn == null) {
-                return true;
-            }
-        }
-
-        return false;
+    /**
+     * Packs a position as stored in NodeArena.position.
+     */
+    private static int pack(Vector2d position) {
+        return position == null ? NONE : position.x << 16 | position.y;
     }
 }
@@ -0,0 +1,77 @@
+package players.mcts;
+
+import core.Game;
+import core.GameState;
+import org.junit.jupiter.api.Test;
+import players.DoNothingPlayer;
+import players.Player;
+import utils.Types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleTreeNodeTest {
+
+    /**
+     * Pondering on an action that was never expanded records the position of the player in the root, so the
+     * pondered tree is reused when the player ends up there, instead of being thrown away.
+     */
+    @Test
+    void ponderOnUnexpandedActionIsReused() throws InterruptedException {
+        GameState gs = firstObservation(1234);
+        Types.ACTIONS[] actions = Types.ACTIONS.values();
+        MCTSParams params = new MCTSParams();
+
+        // A fresh tree has no children: the subtree of any action is just a root.
+        SingleTreeNode tree = new SingleTreeNode(params, new Random(1234), actions.length, actions);
+        tree.setRootGameState(gs);
+        SingleTreeNode pondered = tree.detachChild(Types.ACTIONS.ACTION_STOP.ordinal(), params.reuse_max_nodes);
+        assertEquals(1, pondered.size());
+        pondered.setRootGameState(gs);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        int[] iterations = new int[1];
+        Thread ponder = new Thread(() -> iterations[0] = pondered.ponderSearch(gs, Types.ACTIONS.ACTION_STOP, stop));
+        ponder.start();
+        Thread.sleep(100);
+        stop.set(true);
+        ponder.join();
+        assertTrue(iterations[0] > 0);
+        assertTrue(pondered.size() > 1);
+
+        // Standing still leaves the player where the search saw it.
+        GameState next = gs.copy();
+        Types.ACTIONS[] stand = new Types.ACTIONS[Types.NUM_PLAYERS];
+        Arrays.fill(stand, Types.ACTIONS.ACTION_STOP);
+        next.next(stand);
+        assertTrue(pondered.matches(next));
+    }
+
+    /**
+     * @return the observation of the first player on the first tick of a game.
+     */
+    private static GameState firstObservation(long seed) {
+        GameState[] observation = new GameState[1];
+        ArrayList<Player> players = new ArrayList<>();
+        players.add(new DoNothingPlayer(Types.TILETYPE.AGENT0.getKey()) {
+            @Override
+            public Types.ACTIONS act(GameState gs) {
+                if (observation[0] == null)
+                    observation[0] = gs.copy();
+                return super.act(gs);
+            }
+        });
+        for (int i = 1; i < Types.NUM_PLAYERS; i++) {
+            players.add(new DoNothingPlayer(Types.TILETYPE.AGENT0.getKey() + i));
+        }
+
+        Game game = new Game(seed, Types.BOARD_SIZE, Types.GAME_MODE.FFA, "");
+        game.setPlayers(players);
+        game.run(false);
+        return observation[0];
+    }
+}
@@ -0,0 +1,336 @@
+package players.mcts;
+
+import core.GameState;
+import core.GameStatePool;
+import players.heuristics.AdvancedHeuristic;
+import players.heuristics.CustomHeuristic;
+import players.heuristics.StateHeuristic;
+import players.optimisers.ParameterizedPlayer;
+import players.Player;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
+import utils.Types;
+import utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * MCTS player that searches a graph of states instead of a tree (MCTS-DAG). Nodes are stored in a transposition
+ * table keyed by the hash of their game state, so a state reached through different action orders (i.e. moves
+ * performed in a different order, or agents going back and forth) is searched once and all paths share its
+ * statistics. Uses the same parameters and budget types as MCTSPlayer.
+ */
+public class TranspositionMCTSPlayer extends ParameterizedPlayer {
+
+    /**
+     * Random generator.
+     */
+    private Random m_rnd;
+
+    /**
+     * All actions available.
+     */
+    public Types.ACTIONS[] actions;
+
+    /**
+     * Params for this MCTS
+     */
+    public MCTSParams params;
+
+    /**
+     * Nodes of the search, keyed by state hash.
+     */
+    private TranspositionTable table;
+
+    // Policies choosing the actions of this player in rollouts, and of the other players on every simulated tick.
+    private PolicySchedule rolloutPolicy;
+    private PolicySchedule opponentPolicy;
+
+    // State of the current search.
+    private GameState rootState;
+    private StateHeuristic rootStateHeuristic;
+    private double[] bounds = new double[]{Double.MAX_VALUE, -Double.MAX_VALUE};
+
+    // Nodes and actions visited during an iteration, reused between iterations.
+    private TranspositionNode[] pathNodes;
+    private int[] pathActions;
+    private Types.ACTIONS[] jointActions = new Types.ACTIONS[0];
+
+    public TranspositionMCTSPlayer(long seed, int id) {
+        this(seed, id, new MCTSParams());
+    }
+
+    public TranspositionMCTSPlayer(long seed, int id, MCTSParams params) {
+        super(seed, id, params);
+        reset(seed, id);
+
+        ArrayList<Types.ACTIONS> actionsList = Types.ACTIONS.all();
+        actions = new Types.ACTIONS[actionsList.size()];
+        int i = 0;
+        for (Types.ACTIONS act : actionsList) {
+            actions[i++] = act;
+        }
+    }
+
+    @Override
+    public void reset(long seed, int playerID) {
+        super.reset(seed, playerID);
+        m_rnd = new Random(seed);
+
+        this.params = (MCTSParams) getParameters();
+        if (this.params == null) {
+            this.params = new MCTSParams();
+            super.setParameters(this.params);
+        }
+        table = new TranspositionTable(params.tt_size);
+        rolloutPolicy = new PolicySchedule(params.rollout_policy_near, params.rollout_policy,
+                params.policy_near_depth, m_rnd);
+        opponentPolicy = new PolicySchedule(params.opponent_policy_near, params.opponent_policy,
+                params.policy_near_depth, m_rnd);
+    }
+
+    @Override
+    public Types.ACTIONS act(GameState gs) {
+
+        BudgetController budget = params.newBudget();
+
+        // Values are relative to the heuristic of the current root, so nodes from previous searches are not valid.
+        table.clear();
+        rootState = gs;
+        if (params.heuristic_method == params.CUSTOM_HEURISTIC)
+            rootStateHeuristic = new CustomHeuristic(gs);
+        else if (params.heuristic_method == params.ADVANCED_HEURISTIC)
+            rootStateHeuristic = new AdvancedHeuristic(gs, m_rnd);
+        bounds[0] = Double.MAX_VALUE;
+        bounds[1] = -Double.MAX_VALUE;
+
+        TranspositionNode root = new TranspositionNode(gs.hash64(), actions.length);
+        table.put(root);
+
+        //Determine the action using MCTS...
+        mctsSearch(root, budget);
+
+        //... and return it.
+        return actions[mostVisitedAction(root)];
+    }
+
+    /**
+     * @return the transposition table used by this player, to query its metrics.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    private void mctsSearch(TranspositionNode root, BudgetController budget) {
+
+        int numIters = 0;
+
+        if (pathNodes == null || pathNodes.length < params.rollout_depth) {
+            pathNodes = new TranspositionNode[params.rollout_depth];
+            pathActions = new int[params.rollout_depth];
+        }
+
+        // The same state is reused for all iterations, copying the root state into it every time.
+        GameState state = GameStatePool.acquire(rootState);
+
+        while(params.hasBudget(budget, numIters) || numIters == 0){
+
+            rootState.copyInto(state);
+            int pathLength = treePolicy(root, state);
+            double delta = rollOut(state, pathLength);
+            backUp(pathLength, delta);
+            numIters++;
+        }
+        GameStatePool.release(state);
+    }
+
+    /**
+     * Descends from the root, rolling the state, until a state not in the table is reached (and added to it), the
+     * game ends or the maximum depth is reached. Visited nodes and chosen actions are recorded in the path arrays.
+     * @return number of actions taken.
+     */
+    private int treePolicy(TranspositionNode root, GameState state) {
+
+        TranspositionNode cur = root;
+        int depth = 0;
+
+        while (!state.isTerminal() && depth < params.rollout_depth)
+        {
+            int action = cur.notFullyExpanded() ? untriedAction(cur) : uct(cur);
+            pathNodes[depth] = cur;
+            pathActions[depth] = action;
+            roll(state, actions[action], depth);
+            depth++;
+
+            long hash = state.hash64();
+            TranspositionNode next = table.get(hash);
+            if (next == null) {
+                // New state: add it and stop descending. It is not part of the path, its edges are still untried.
+                table.put(new TranspositionNode(hash, actions.length));
+                break;
+            }
+            cur = next;
+        }
+
+        return depth;
+    }
+
+    private int untriedAction(TranspositionNode node) {
+        int bestAction = 0;
+        double bestValue = -1;
+
+        for (int i = 0; i < node.edgeVisits.length; i++) {
+            double x = m_rnd.nextDouble();
+            if (x > bestValue && node.edgeVisits[i] == 0) {
+                bestAction = i;
+                bestValue = x;
+            }
+        }
+        return bestAction;
+    }
+
+    private int uct(TranspositionNode node) {
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+        for (int i = 0; i < node.edgeVisits.length; i++)
+        {
+            double childValue = node.edgeValue[i] / (node.edgeVisits[i] + params.epsilon);
+
+            childValue = Utils.normalise(childValue, bounds[0], bounds[1]);
+
+            double uctValue = childValue +
+                    params.K * Math.sqrt(Math.log(node.nVisits + 1) / (node.edgeVisits[i] + params.epsilon));
+
+            uctValue = Utils.noise(uctValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+
+            if (uctValue > bestValue) {
+                selected = i;
+                bestValue = uctValue;
+            }
+        }
+        if (selected == -1)
+        {
+            throw new RuntimeException("Warning! returning null: " + bestValue + " : " + node.edgeVisits.length + " " +
+                    + bounds[0] + " " + bounds[1]);
+        }
+        return selected;
+    }
+
+    /**
+     * Rolls the state one tick, with the given action for this player and the opponent policy for the others.
+     * @param depth depth of the tick, from the root.
+     */
+    private void roll(GameState gs, Types.ACTIONS act, int depth)
+    {
+        if (jointActions.length != Types.NUM_PLAYERS)
+            jointActions = new Types.ACTIONS[Types.NUM_PLAYERS];
+        int playerId = gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+        jointActions[playerId] = act;
+        opponentPolicy.fill(gs, depth, jointActions, playerId, m_rnd);
+        gs.next(jointActions);
+    }
+
+    private double rollOut(GameState state, int depth)
+    {
+        int playerId = state.getPlayerId() - Types.TILETYPE.AGENT0.getKey();
+        while (depth < params.rollout_depth && !state.isTerminal()) {
+            roll(state, rolloutPolicy.act(state, depth, playerId, m_rnd), depth);
+            depth++;
+        }
+
+        return rootStateHeuristic.evaluateState(state);
+    }
+
+    /**
+     * Adds the result of an iteration to every node and edge of the path. Nodes evicted from the table during the
+     * iteration are still updated, but their statistics are lost.
+     */
+    private void backUp(int pathLength, double result)
+    {
+        for (int i = 0; i < pathLength; i++) {
+            TranspositionNode n = pathNodes[i];
+            n.nVisits++;
+            n.edgeVisits[pathActions[i]]++;
+            n.edgeValue[pathActions[i]] += result;
+            pathNodes[i] = null;
+        }
+        if (result < bounds[0]) {
+            bounds[0] = result;
+        }
+        if (result > bounds[1]) {
+            bounds[1] = result;
+        }
+    }
+
+    private int mostVisitedAction(TranspositionNode root) {
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+        boolean allEqual = true;
+        double first = -1;
+
+        for (int i = 0; i < root.edgeVisits.length; i++) {
+
+            if(root.edgeVisits[i] > 0)
+            {
+                if(first == -1)
+                    first = root.edgeVisits[i];
+                else if(first != root.edgeVisits[i])
+                {
+                    allEqual = false;
+                }
+
+                double childValue = root.edgeVisits[i];
+                childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = i;
+                }
+            }
+        }
+
+        if (selected == -1)
+        {
+            selected = 0;
+        }else if(allEqual)
+        {
+            //If all are equal, we opt to choose for the one with the best Q.
+            selected = bestAction(root);
+        }
+
+        return selected;
+    }
+
+    private int bestAction(TranspositionNode root)
+    {
+        int selected = 0;
+        double bestValue = -Double.MAX_VALUE;
+
+        for (int i = 0; i < root.edgeVisits.length; i++) {
+
+            if(root.edgeVisits[i] > 0) {
+                double childValue = root.edgeValue[i] / (root.edgeVisits[i] + params.epsilon);
+                childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = i;
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    @Override
+    public int[] getMessage() {
+        // default message
+        int[] message = new int[Types.MESSAGE_LENGTH];
+        message[0] = 1;
+        return message;
+    }
+
+    @Override
+    public Player copy() {
+        return new TranspositionMCTSPlayer(seed, playerID, params);
+    }
+}
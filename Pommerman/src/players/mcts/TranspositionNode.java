@@ -0,0 +1,37 @@
+package players.mcts;
+
+/**
+ * Node of a transposition-aware MCTS search. There is one node per distinct game state (identified by its hash), no
+ * matter how many action sequences lead to it, and statistics are kept on the edges (actions) leaving the node, so
+ * all paths going through a state share what has been learnt about its actions.
+ */
+class TranspositionNode
+{
+    // Hash of the game state this node represents.
+    final long hash;
+
+    // Number of times this node has been visited, through any path.
+    int nVisits;
+
+    // Statistics of the actions taken from this node: times each one was chosen and sum of values obtained.
+    final int[] edgeVisits;
+    final double[] edgeValue;
+
+    TranspositionNode(long hash, int num_actions) {
+        this.hash = hash;
+        this.edgeVisits = new int[num_actions];
+        this.edgeValue = new double[num_actions];
+    }
+
+    /**
+     * @return true if some action of this node has not been tried yet.
+     */
+    boolean notFullyExpanded() {
+        for (int v : edgeVisits) {
+            if (v == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
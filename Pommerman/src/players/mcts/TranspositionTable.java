@@ -0,0 +1,94 @@
+package players.mcts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded table of transposition nodes, keyed by game state hash. When the table is full, the least recently used
+ * node is evicted. Keeps track of lookups, hits and evictions, so the effectiveness of the table can be measured.
+ */
+public class TranspositionTable
+{
+    private final int maxSize;
+    private final LinkedHashMap<Long, TranspositionNode> nodes;
+
+    // Metrics
+    private long lookups;
+    private long hits;
+    private long evictions;
+
+    /**
+     * Creates a table.
+     * @param maxSize maximum number of nodes held by the table.
+     */
+    public TranspositionTable(int maxSize) {
+        this.maxSize = maxSize;
+        // Access order, so that iteration order goes from least to most recently used.
+        this.nodes = new LinkedHashMap<Long, TranspositionNode>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TranspositionNode> eldest) {
+                if (size() > TranspositionTable.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Finds the node of a state, counting the lookup.
+     * @param hash hash of the state.
+     * @return the node, or null if the state is not in the table.
+     */
+    TranspositionNode get(long hash) {
+        lookups++;
+        TranspositionNode node = nodes.get(hash);
+        if (node != null) {
+            hits++;
+        }
+        return node;
+    }
+
+    /**
+     * Adds a node to the table, evicting the least recently used one if the table is full.
+     */
+    void put(TranspositionNode node) {
+        nodes.put(node.hash, node);
+    }
+
+    /**
+     * Removes all nodes from the table. Metrics are kept.
+     */
+    public void clear() {
+        nodes.clear();
+    }
+
+    /**
+     * Resets lookup, hit and eviction counts.
+     */
+    public void resetMetrics() {
+        lookups = 0;
+        hits = 0;
+        evictions = 0;
+    }
+
+    public int size() { return nodes.size(); }
+    public int getMaxSize() { return maxSize; }
+    public long getLookups() { return lookups; }
+    public long getHits() { return hits; }
+    public long getEvictions() { return evictions; }
+
+    /**
+     * @return fraction of lookups that found a node already in the table (transpositions), 0 if no lookups yet.
+     */
+    public double getHitRate() {
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TT size %d/%d, lookups %d, hit rate %.3f, evictions %d",
+                size(), maxSize, lookups, getHitRate(), evictions);
+    }
+}
@@ -1,6 +1,7 @@
 package players.rhea;
 
 import core.GameState;
+import core.GameStateBatch;
 import gnu.trove.set.hash.TIntHashSet;
 import players.heuristics.*;
 import players.rhea.evo.Individual;
@@ -9,7 +10,8 @@ import players.rhea.hybrids.MCTSNode;
 import players.rhea.utils.FMBudget;
 import players.rhea.utils.RHEAParams;
 import players.rhea.utils.Utilities;
-import utils.ElapsedCpuTimer;
+import players.rollouts.PolicySchedule;
+import utils.BudgetController;
 import utils.Types;
 import utils.Utils;
 
@@ -30,9 +32,23 @@ public class GameInterface {
     private int playerID;
     private Random random;
 
-    private ElapsedCpuTimer elapsedTimer;
+    private BudgetController timeBudget;
     private HashMap<Integer, Types.ACTIONS> action_mapping;
 
+    // Action played from the root state when pondering, applied before the actions of the individuals.
+    private Types.ACTIONS ponderAction;
+
+    // Policy playing the moves of the other players, and the joint actions it fills, reused for every tick.
+    private PolicySchedule opponentPolicy;
+    private Types.ACTIONS[] jointActions = new Types.ACTIONS[0];
+
+    // States and action matrix for the MC rollouts, and values and steps of each rollout, kept across evaluations
+    // to be reused.
+    private GameStateBatch rolloutBatch;
+    private int[] rolloutActions;
+    private double[][] rolloutStateValues = new double[0][0];
+    private int[] rolloutSteps = new int[0];
+
     private static double[] bounds = new double[]{-1, 1};
 
     GameInterface(RHEAParams params, Random random, int playerID) {
@@ -40,11 +56,14 @@ public class GameInterface {
         this.random = random;
         fmBudget = new FMBudget(params.fm_budget);
         this.playerID = playerID;
+        opponentPolicy = new PolicySchedule(params.opponent_policy_near, params.opponent_policy,
+                params.policy_near_depth, random);
     }
 
-    void initTick(GameState stateObs, ElapsedCpuTimer elapsedTimer) {
+    void initTick(GameState stateObs, BudgetController timeBudget) {
         rootState = stateObs;
-        this.elapsedTimer = elapsedTimer;
+        this.timeBudget = timeBudget;
+        ponderAction = null;
         fmBudget.reset();
         initStateInfo();
         switch (params.heurisic_type) {
@@ -57,6 +76,17 @@ public class GameInterface {
 
     }
 
+    /**
+     * Sets up the evaluation of individuals for pondering: they are played after the given action, from the state
+     * it was played on.
+     * @param stateObs - state the action was played on.
+     * @param action - action played.
+     */
+    void initPonder(GameState stateObs, Types.ACTIONS action) {
+        initTick(stateObs, null);
+        ponderAction = action;
+    }
+
     /**
      * Seed individual using given seeding type.
      * @param ind - individual to change actions of.
@@ -83,7 +113,7 @@ public class GameInterface {
         int max_actions = rootState.nActions();
         double[][] distribution = new double[params.individual_length][max_actions];
 
-        GameState so = rootState.copy();
+        GameState so = rootState.copyOnWrite();
         Types.ACTIONS bestAction;
         int bestActionIdx;
         double maxQ;
@@ -98,8 +128,8 @@ public class GameInterface {
                 int nActions = actions.size();
                 for (int j = 0; j < nActions; j++) {
                     Types.ACTIONS action = actions.get(j);
-                    GameState stCopy = so.copy();
-                    advanceState(stCopy, action);
+                    GameState stCopy = so.copyOnWrite();
+                    advanceState(stCopy, action, k);
                     double Q = evaluateState(stCopy);
                     Q = Utils.noise(Q, epsilon, random.nextDouble());
 
@@ -112,7 +142,7 @@ public class GameInterface {
                 }
 
                 distribution[k][bestActionIdx] = 1;
-                advanceState(so, bestAction);
+                advanceState(so, bestAction, k);
             }
         }
 
@@ -133,7 +163,7 @@ public class GameInterface {
         MCTSNode.rootState = rootState;
 
         // Do the search within the available budget.
-        m_root.mctsSearch(elapsedTimer, params.mcts_fm_budget, params.mcts_iteration_budget, params.mcts_depth);
+        m_root.mctsSearch(timeBudget, params.mcts_fm_budget, params.mcts_iteration_budget, params.mcts_depth);
 
         // Compress the tree into action probabilities at each level
         double[][] distribution = m_root.compressTree(params.individual_length, nActions);
@@ -152,7 +182,11 @@ public class GameInterface {
     @SuppressWarnings("UnusedReturnValue")
     public double evaluate(Individual individual, Mutation mutation, int evaluation_update) {
         double[] values = new double[individual.get_length() + 1];
-        GameState stateObsCopy = rootState.copy();
+        GameState stateObsCopy = rootState.copyOnWrite();
+        int depth = 0;
+        if (ponderAction != null) {
+            advanceState(stateObsCopy, ponderAction, depth++);
+        }
         if (params.evaluate_act == EVALUATE_ACT_LAST) {  // This doesn't need first state value
             values[0] = 0;
         } else {
@@ -160,7 +194,7 @@ public class GameInterface {
         }
 
         // Evaluate subsequent states obtained by rolling through the actions
-        int lastIdx = evaluateRollout(values, stateObsCopy, individual.get_length(), individual, mutation);
+        int lastIdx = evaluateRollout(values, stateObsCopy, depth, individual.get_length(), individual, mutation);
 
         if (lastIdx < values.length - 1) {
             // We stopped early, trim the values array to remove trailing 0s
@@ -172,7 +206,7 @@ public class GameInterface {
 
         // We may need to do extra rollouts from the end of the state reached previously, if not terminal.
         if (params.mc_rollouts && !stateObsCopy.isTerminal()) {
-            state_value = MCrollouts(stateObsCopy, values);
+            state_value = MCrollouts(stateObsCopy, depth + individual.get_length(), values);
         }
 
         // Update value according to update rule
@@ -196,6 +230,7 @@ public class GameInterface {
      * Evaluates an individual by rolling the state forward through the actions
      * @param values - array in which we'll save state values for every action we pass through
      * @param copy - copy of root game state
+     * @param depth - number of ticks the copy is ahead of the root state
      * @param length - length of this rollout
      * @param individual - individual that should be used for the rollout. If null, we're doing random rollout.
      * @param mutation - mutation class containing information about genes which should be mutated for this individual,
@@ -203,7 +238,7 @@ public class GameInterface {
      * @return index of last action reached. may terminate early if a terminal state is reached before the end
      * of the rollout length.
      */
-    private int evaluateRollout(double[] values, GameState copy, int length, Individual individual,
+    private int evaluateRollout(double[] values, GameState copy, int depth, int length, Individual individual,
                                 Mutation mutation) {
         // Keep track of where the rollout stopped (in case of early terminal state).
         int lastIdx = 0;
@@ -224,7 +259,7 @@ public class GameInterface {
                         mutation.mutateGeneToNewValue(individual, i);
                     }
                     // Advance the state with the action in the individual
-                    advanceState(copy, action_mapping.get(individual.get_action(i)));
+                    advanceState(copy, action_mapping.get(individual.get_action(i)), depth + i);
 
                 } else {  // No individual passed, doing random rollout
                     ArrayList<Types.ACTIONS> acts = Types.ACTIONS.all();
@@ -233,7 +268,7 @@ public class GameInterface {
                     if (bound > 0) {
                         action = acts.get(random.nextInt(bound));
                     }
-                    advanceState(copy, action);
+                    advanceState(copy, action, depth + i);
                 }
 
                 // Signal we used 1 FM call
@@ -298,40 +333,100 @@ public class GameInterface {
     }
 
     /**
-     * Performs monte carlo rollouts from the given state.
+     * Performs monte carlo rollouts from the given state. All repetitions are advanced together, one tick at a time,
+     * in a batch of states reused across evaluations.
      * @param start - root state for MC rollouts
+     * @param depth - number of ticks the start state is ahead of the root state
      * @param ind_values - array of values from individual we just evaluated.
      * @return value of individual at the end of the MC rollouts.
      */
-    private double MCrollouts(GameState start, double[] ind_values) {
-        double reward = 0;
+    private double MCrollouts(GameState start, int depth, double[] ind_values) {
+        int repeats = params.mc_rollouts_repeat;
+        int length = params.mc_rollouts_length;
+        int nPlayers = Types.NUM_PLAYERS;
 
-        // We may average over multiple repetitions of rollouts
-        for (int k = 0; k < params.mc_rollouts_repeat; k++) {
-            GameState first = start.copy();
+        if (jointActions.length != nPlayers) {
+            jointActions = new Types.ACTIONS[nPlayers];
+        }
+        if (rolloutBatch == null || rolloutBatch.capacity() < repeats) {
+            rolloutBatch = new GameStateBatch(repeats);
+            rolloutActions = new int[repeats * nPlayers];
+        }
+        rolloutBatch.reset(start, repeats);
 
-            // Save values of states we pass through in values array
-            double[] values = new double[params.mc_rollouts_length + 1];
-            if (params.evaluate_act != EVALUATE_ACT_LAST) {  // This doesn't need first state value
-                values[0] = evaluateState(first);  // Evaluate current state
+        // Save values of states each rollout passes through, and how many ticks it was advanced
+        if (rolloutStateValues.length != repeats || repeats > 0 && rolloutStateValues[0].length != length + 1) {
+            rolloutStateValues = new double[repeats][length + 1];
+            rolloutSteps = new int[repeats];
+        } else {
+            for (double[] v : rolloutStateValues) {
+                Arrays.fill(v, 0);
             }
+            Arrays.fill(rolloutSteps, 0);
+        }
+        double[][] values = rolloutStateValues;
+        int[] steps = rolloutSteps;
+        if (params.evaluate_act != EVALUATE_ACT_LAST) {  // This doesn't need first state value
+            for (int k = 0; k < repeats; k++) {
+                values[k][0] = evaluateState(rolloutBatch.get(k));  // Evaluate current state
+            }
+        }
+
+        // Random rollouts, stopping each of them early if a terminal state is reached
+        for (int i = 0; i < length && rolloutBatch.active() > 0; i++) {
+            for (int k = 0; k < repeats; k++) {
+                if (!rolloutBatch.isTerminal(k)) {
+                    GameState gs = rolloutBatch.get(k);
+                    int bound = rootState.nActions();
+                    int action = Types.ACTIONS.ACTION_STOP.ordinal();
+                    if (bound > 0) {
+                        action = random.nextInt(bound);
+                    }
+                    opponentPolicy.fill(gs, depth + i, jointActions, playerID, random);
+                    for (int p = 0; p < nPlayers; p++) {
+                        rolloutActions[k * nPlayers + p] = p == playerID ? action : jointActions[p].ordinal();
+                    }
+                }
+            }
+            for (int k = 0; k < repeats; k++) {
+                if (!rolloutBatch.isTerminal(k)) {
+                    steps[k]++;
+                }
+            }
+
+            rolloutBatch.next(rolloutActions);
 
-            // Passing null as individual and mutation to perform random rollout
-            int lastIdx = evaluateRollout(values, first, params.mc_rollouts_length, null, null);
+            for (int k = 0; k < repeats; k++) {
+                if (steps[k] == i + 1) {
+                    // Signal we used 1 FM call
+                    fmBudget.use();
 
-            if (lastIdx < values.length - 1) {
-                // We may have terminated the rollout earlier due to reaching terminal state
-                values = Arrays.copyOfRange(values, 0, lastIdx + 1);
+                    if ((params.evaluate_act == EVALUATE_ACT_DELTA || params.evaluate_act == EVALUATE_ACT_LAST)
+                            && (i != length - 1)) {  // This only needs last state evaluated, speed up execution
+                        values[k][i + 1] = 0;
+                    } else {  // In all other cases we need all intermediate state values.
+                        values[k][i + 1] = evaluateState(rolloutBatch.get(k));
+                    }
+                }
             }
+        }
 
-            // Use both individual values and rollout values to determine reward
-            double thisReward = combineAndNormalize(ind_values, values);
+        double reward = 0;
+        for (int k = 0; k < repeats; k++) {
+            int lastIdx = Math.max(steps[k] - 1, 0);
+            double[] rolloutValues = values[k];
+            if (lastIdx < length - 1) {
+                // Terminated the rollout earlier due to reaching terminal state
+                rolloutValues[lastIdx + 1] = evaluateState(rolloutBatch.get(k));
+                rolloutValues = Arrays.copyOfRange(rolloutValues, 0, lastIdx + 2);
+            }
 
-            reward += thisReward;
+            // Use both individual values and rollout values to determine reward
+            reward += combineAndNormalize(ind_values, rolloutValues);
         }
 
         // Returned value is average over all rollout repetitions
-        reward /= params.mc_rollouts_repeat;
+        reward /= repeats;
 
         return reward;
     }
@@ -361,15 +456,15 @@ public class GameInterface {
 
     /**
      * Checks if enough budget is remaining for another iteration.
-     * @param elapsedCpuTimer - timer, if time budget
+     * @param timeBudget - time budget, if time budget; counts the iteration if there is budget for it
      * @param iterationsRemaining - number of iterations remaining, if iteration budget
      * @param fmBudget - FM budget tracker, if FM budget
      * @return true if enough budget, false otherwise
      */
-    public boolean budget(ElapsedCpuTimer elapsedCpuTimer, int iterationsRemaining, FMBudget fmBudget) {
+    public boolean budget(BudgetController timeBudget, int iterationsRemaining, FMBudget fmBudget) {
         boolean gotBudget = true;
         if (params.budget_type == TIME_BUDGET) {
-            gotBudget = elapsedCpuTimer.enoughBudgetIteration(break_ms);
+            gotBudget = timeBudget.hasBudget();
         } else if (params.budget_type == ITERATION_BUDGET) {
             gotBudget = iterationsRemaining > 0;
         } else if (params.budget_type == FM_BUDGET) {
@@ -382,10 +477,8 @@ public class GameInterface {
         return gotBudget;
     }
 
-    public void endIteration(ElapsedCpuTimer elapsedCpuTimer, FMBudget fmBudget) {
-        if (params.budget_type == TIME_BUDGET) {
-            elapsedCpuTimer.endIteration();
-        } else if (params.budget_type == FM_BUDGET) {
+    public void endIteration(BudgetController timeBudget, FMBudget fmBudget) {
+        if (params.budget_type == FM_BUDGET) {
             if (fmBudget != null) {
                 fmBudget.endIteration();
             } else {
@@ -409,53 +502,20 @@ public class GameInterface {
 
 
     /**
-     * Advances the state with given action and chosen opponent model
+     * Advances the state with given action and the opponent policy for the other players.
      * @param gs - current game state
      * @param action - action for this player
+     * @param depth - number of ticks the state is ahead of the root state
      */
-    public void advanceState(GameState gs, Types.ACTIONS action) {
-        int nPlayers = 4;
-        Types.ACTIONS[] actionsAll = new Types.ACTIONS[nPlayers];
-
-        for (int i = 0; i < nPlayers; ++i) {
-            if (playerID == i) {
-                actionsAll[i] = action;
-            } else {
-                actionsAll[i] = opponentModel(gs);
-            }
+    public void advanceState(GameState gs, Types.ACTIONS action, int depth) {
+        int nPlayers = Types.NUM_PLAYERS;
+        if (jointActions.length != nPlayers) {
+            jointActions = new Types.ACTIONS[nPlayers];
         }
+        jointActions[playerID] = action;
+        opponentPolicy.fill(gs, depth, jointActions, playerID, random);
 
-        gs.next(actionsAll);
-    }
-
-    /**
-     * Retrieves the action of an opponent.
-     * @param gs - current game state.
-     * @return action for opponent.
-     */
-    private Types.ACTIONS opponentModel(GameState gs) {
-        return _random_model(gs.nActions());
-//        return _stop_model();
-    }
-
-    /**
-     * Random opponent model, returns random action within limits.
-     * @param nActions - number of available actions.
-     * @return - random action.
-     */
-    @SuppressWarnings("unused")
-    private Types.ACTIONS _random_model(int nActions) {
-        int actionIdx = random.nextInt(nActions);
-        return Types.ACTIONS.all().get(actionIdx);
-    }
-
-    /**
-     * Do nothing opponent model.
-     * @return - ACTION_STOP always.
-     */
-    @SuppressWarnings("unused")
-    private Types.ACTIONS _stop_model() {
-        return Types.ACTIONS.ACTION_STOP;
+        gs.next(jointActions);
     }
 
     /**
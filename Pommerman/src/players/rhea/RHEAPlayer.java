@@ -4,10 +4,16 @@ import core.GameState;
 import players.optimisers.ParameterizedPlayer;
 import players.Player;
 import players.rhea.utils.RHEAParams;
-import utils.ElapsedCpuTimer;
+import utils.BudgetController;
 import utils.Types;
 
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static players.rhea.utils.Constants.TIME_BUDGET;
 
 public class
@@ -16,6 +22,15 @@ RHEAPlayer extends ParameterizedPlayer {
     private GameInterface gInterface;
     private RHEAParams params;
 
+    // Pondering (params.ponder): the action played last, and the background search evolving the shifted population.
+    private Types.ACTIONS lastAction;
+    private ExecutorService ponderExecutor;
+    private Future<Integer> ponderTask;
+    private AtomicBoolean ponderStop;
+
+    // Estimated probability that the last decision went over its time budget.
+    private double lastOvertimeProbability;
+
     public RHEAPlayer(long seed, int playerID) {
         this(seed, playerID, new RHEAParams());
     }
@@ -44,17 +59,78 @@ RHEAPlayer extends ParameterizedPlayer {
 
         // Set up player
         player = new RollingHorizonPlayer(randomGenerator, this.params, gInterface);
+        lastAction = null;
     }
 
     @Override
     public Types.ACTIONS act(GameState gs) {
-        ElapsedCpuTimer elapsedTimer = null;
-        if (params.budget_type == TIME_BUDGET) {
-            elapsedTimer = new ElapsedCpuTimer();
-            elapsedTimer.setMaxTimeMillis(params.time_budget);
+        // Normally stopped by the game already, but players may be used without one.
+        stopPondering();
+
+        BudgetController timeBudget = params.budget_type == TIME_BUDGET ? params.newBudget() : null;
+        setup(gs, timeBudget);
+        lastAction = gInterface.translate(player.getAction(timeBudget, gs.nActions()));
+        lastOvertimeProbability = timeBudget == null ? 0 : timeBudget.overtimeProbability();
+        return lastAction;
+    }
+
+    /**
+     * @return estimated probability that the last call to act() went over its time budget (0 unless evolving with
+     * a time budget, see BudgetController.overtimeProbability()).
+     */
+    public double getLastOvertimeProbability() {
+        return lastOvertimeProbability;
+    }
+
+    /**
+     * Starts evolving the shifted population in the background, if pondering is enabled.
+     */
+    @Override
+    public synchronized void ponder(GameState gs) {
+        if (!params.ponder || !params.shift_buffer || lastAction == null || ponderTask != null)
+            return;
+
+        if (ponderExecutor == null) {
+            ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "RHEA-ponder-" + playerID);
+                thread.setDaemon(true);
+                return thread;
+            });
+            ponderStop = new AtomicBoolean();
+        }
+        ponderStop.set(false);
+        gInterface.initPonder(gs, lastAction);
+        RollingHorizonPlayer rhPlayer = player;
+        ponderTask = ponderExecutor.submit(() -> rhPlayer.ponder(gs.nActions(), ponderStop));
+    }
+
+    @Override
+    public synchronized void stopPondering() {
+        if (ponderTask == null)
+            return;
+        ponderStop.set(true);
+        try {
+            ponderTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            ponderTask = null;
+        }
+    }
+
+    /**
+     * Stops the pondering thread at the end of the game, so that players created for one game only (e.g. with
+     * copy()) do not leave it behind. It is created again if the player is used for another game.
+     */
+    @Override
+    public synchronized void result(double reward) {
+        stopPondering();
+        if (ponderExecutor != null) {
+            ponderExecutor.shutdown();
+            ponderExecutor = null;
         }
-        setup(gs, elapsedTimer);
-        return gInterface.translate(player.getAction(elapsedTimer, gs.nActions()));
     }
 
     @Override
@@ -63,8 +139,8 @@ RHEAPlayer extends ParameterizedPlayer {
         return new int[Types.MESSAGE_LENGTH];
     }
 
-    private void setup(GameState rootState, ElapsedCpuTimer elapsedTimer) {
-        gInterface.initTick(rootState, elapsedTimer);
+    private void setup(GameState rootState, BudgetController timeBudget) {
+        gInterface.initTick(rootState, timeBudget);
     }
 
     @Override
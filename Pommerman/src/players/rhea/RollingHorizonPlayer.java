@@ -2,9 +2,10 @@ package players.rhea;
 
 import players.rhea.evo.Evolution;
 import players.rhea.utils.RHEAParams;
-import utils.ElapsedCpuTimer;
+import utils.BudgetController;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static players.rhea.utils.Constants.*;
 
@@ -16,6 +17,9 @@ class RollingHorizonPlayer {
     private int[] actionBuffer;
     private boolean newBuffer;
 
+    // Whether the population was shifted and evolved by ponder() since the last action.
+    private boolean pondered;
+
     private Evolution ea;
 
 
@@ -29,19 +33,24 @@ class RollingHorizonPlayer {
         ea = new Evolution(params, randomGenerator, gameInterface);
     }
 
-    int getAction(ElapsedCpuTimer elapsedTimer, int max_actions) {
+    int getAction(BudgetController timeBudget, int max_actions) {
         // Init if we ran out of actions in the buffer
         if (newBuffer) {
-            ea.init(max_actions);
+            if (pondered) {
+                ea.reevaluate();
+            } else {
+                ea.init(max_actions);
+            }
         }
+        pondered = false;
 
 //        System.out.println();
         // Find best next action within the allowed budget
         int action = max_actions;
-        while (gameInterface.budget(elapsedTimer, params.iteration_budget - ea.getNIterations(),
+        while (gameInterface.budget(timeBudget, params.iteration_budget - ea.getNIterations(),
                 null)) {
             action = ea.iteration();
-            gameInterface.endIteration(elapsedTimer, null);
+            gameInterface.endIteration(timeBudget, null);
         }
 //        System.out.println(Arrays.toString(ea.population));
 
@@ -73,6 +82,27 @@ class RollingHorizonPlayer {
         return action;
     }
 
+    /**
+     * Shifts the population as the next call to getAction() would, and evolves it until told to stop. Does nothing
+     * if the next action comes from the action buffer.
+     * @param max_actions - number of actions available.
+     * @param stop - set to stop evolving.
+     * @return number of iterations performed.
+     */
+    int ponder(int max_actions, AtomicBoolean stop) {
+        if (!newBuffer) {
+            return 0;
+        }
+        ea.init(max_actions);
+        pondered = true;
+        int iterations = 0;
+        while (!stop.get()) {
+            ea.iteration();
+            iterations++;
+        }
+        return iterations;
+    }
+
     private int getBestAction(int idx) {
         return ea.getBestAction(idx);
     }
@@ -44,6 +44,17 @@ public class Evolution {
         }
     }
 
+    /**
+     * Starts a new search from the current population, re-evaluating all individuals on the current root state. Used
+     * after pondering, instead of init(), as the population was already shifted.
+     */
+    public void reevaluate() {
+        nIterations = 0;
+        for (Individual individual : population) {
+            gInterface.evaluate(individual, null, EVALUATE_UPDATE_AVERAGE);
+        }
+    }
+
     /**
      * Performs 1 iteration of EA.
      * @return - best action after 1 iteration.
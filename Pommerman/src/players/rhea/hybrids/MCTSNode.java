@@ -4,7 +4,7 @@ import core.GameState;
 import players.rhea.GameInterface;
 import players.rhea.utils.FMBudget;
 import players.heuristics.StateHeuristic;
-import utils.ElapsedCpuTimer;
+import utils.BudgetController;
 import utils.Types;
 import utils.Utils;
 
@@ -57,7 +57,7 @@ public class MCTSNode
             m_depth = 0;
     }
 
-    public void mctsSearch(ElapsedCpuTimer elapsedTimer, int fm_budget, int iteration_budget, int depth) {
+    public void mctsSearch(BudgetController timeBudget, int fm_budget, int iteration_budget, int depth) {
         allNodes = new ArrayList<>();
 
         fmBudget = new FMBudget(fm_budget);
@@ -65,15 +65,15 @@ public class MCTSNode
 
         ROLLOUT_DEPTH = depth;
 
-        while(gameInterface.budget(elapsedTimer, numIters, fmBudget)){
-            GameState state = rootState.copy();
+        while(gameInterface.budget(timeBudget, numIters, fmBudget)){
+            GameState state = rootState.copyOnWrite();
 
             MCTSNode selected = treePolicy(state);
             double delta = selected.rollOut(state, fm_budget);
             backUp(selected, delta);
 
             numIters--;
-            gameInterface.endIteration(elapsedTimer, fmBudget);
+            gameInterface.endIteration(timeBudget, fmBudget);
         }
     }
 
@@ -109,7 +109,7 @@ public class MCTSNode
         }
 
         //Roll the state
-        gameInterface.advanceState(state, actions[bestAction]);
+        gameInterface.advanceState(state, actions[bestAction], m_depth);
         fmBudget.use();
 
         MCTSNode tn = new MCTSNode(this, bestAction, this.m_rnd, num_actions, actions, stateHeuristic,
@@ -148,7 +148,7 @@ public class MCTSNode
         }
 
         //Roll the state:
-        gameInterface.advanceState(state, actions[selected.childIdx]);
+        gameInterface.advanceState(state, actions[selected.childIdx], m_depth);
         fmBudget.use();
 
         return selected;
@@ -162,7 +162,7 @@ public class MCTSNode
         while (!finishRollout(state, thisDepth, numCalls)) {
 
             int action = m_rnd.nextInt(num_actions);
-            gameInterface.advanceState(state, actions[action]);
+            gameInterface.advanceState(state, actions[action], thisDepth);
             fmBudget.use();
             thisDepth++;
         }
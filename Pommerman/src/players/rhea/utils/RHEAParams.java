@@ -1,11 +1,13 @@
 package players.rhea.utils;
 
 import players.optimisers.ParameterSet;
+import utils.BudgetController;
 import utils.Pair;
 
 import java.util.*;
 
 import static players.rhea.utils.Constants.*;
+import static players.rollouts.RolloutPolicies.*;
 
 public class RHEAParams implements ParameterSet {
 
@@ -41,10 +43,20 @@ public class RHEAParams implements ParameterSet {
     public int heurisic_type = CUSTOM_HEURISTIC;
     public boolean reevaluate_pop = true;
 
+    // Opponent model: policy playing the moves of the other players (see players.rollouts.RolloutPolicies), replaced
+    // by opponent_policy_near on the ticks less than policy_near_depth ticks away from the root.
+    public int opponent_policy = RANDOM;
+    public int opponent_policy_near = RANDOM;
+    public int policy_near_depth = 0;
+
     // Shift settings
     public boolean shift_buffer = true;
 //    public double shift_discount = 0.99;
 
+    // Pondering: with shift_buffer, shift the population after acting and keep evolving it in a background thread
+    // while the game advances, evaluating individuals after the action played.
+    public boolean ponder = false;
+
     // MC Rollouts settings
     public boolean mc_rollouts = false;
     private double mc_rollouts_length_perc = 0.5;
@@ -56,12 +68,28 @@ public class RHEAParams implements ParameterSet {
     public int fm_budget = 2000;
     public int time_budget = 40;
 
+    // Time budget control (TIME_BUDGET, see utils.BudgetController): the clock is read at most every
+    // time_check_interval iterations, and evolution stops when one more iteration, taken to cost its mean plus
+    // time_sigmas standard deviations, may not end time_margin ms before the end of time_budget. A negative
+    // time_margin stands for Constants.break_ms, read when the budget is created.
+    public int time_check_interval = 16;
+    public double time_margin = -1;
+    public double time_sigmas = 2;
+
     // Don't change these directly. Use updateDependentVariables method instead.
     public int mcts_fm_budget = (int) (fm_budget * mcts_budget_perc);
     public int mcts_iteration_budget = (int) (iteration_budget * mcts_budget_perc);
     public int tournament_size = (int) Math.min(2, population_size * tournament_size_perc);
     public int mc_rollouts_length = (int) (individual_length * mc_rollouts_length_perc);
 
+    /**
+     * @return a time budget of time_budget ms for a decision, started now.
+     */
+    public BudgetController newBudget() {
+        return new BudgetController(time_budget, time_check_interval, time_margin < 0 ? break_ms : time_margin,
+                time_sigmas);
+    }
+
     public Map<String, Object[]> getParameterValues() {
         HashMap<String, Object[]> parameterValues = new HashMap<>();
         parameterValues.put("genetic_operator", new Integer[]{MUTATION_AND_CROSSOVER, MUTATION_ONLY, CROSSOVER_ONLY});
@@ -97,6 +125,7 @@ public class RHEAParams implements ParameterSet {
         parameterValues.put("evaluate_discount", new Double[]{0.9, 0.95, 0.99, 1.0});
         parameterValues.put("heuristic_type", new Integer[]{WIN_SCORE_HEURISTIC, PLAYER_COUNT_HEURISTIC,
                 CUSTOM_HEURISTIC, ADVANCED_HEURISTIC});
+        parameterValues.put("opponent_policy", new Integer[]{STOP, RANDOM, SAFE_RANDOM, AVOID_BLAST});
 
         parameterValues.put("shift_buffer", new Boolean[]{false, true});
 //        parameterValues.put("shift_discount", new Double[]{0.9, 0.95, 0.99, 1.0});
@@ -298,6 +327,7 @@ public class RHEAParams implements ParameterSet {
 //            case "evaluate_update": evaluate_update = (int) value; break;
             case "evaluate_discount": evaluate_discount = (double) value; break;
             case "heuristic_type": heurisic_type = (int) value; break;
+            case "opponent_policy": opponent_policy = (int) value; break;
 
             case "shift_buffer": shift_buffer = (boolean) value; break;
 //            case "shift_discount": shift_discount = (double) value; break;
@@ -342,6 +372,7 @@ public class RHEAParams implements ParameterSet {
 //            case "evaluate_update": return evaluate_update;
             case "evaluate_discount": return evaluate_discount;
             case "heuristic_type": return heurisic_type;
+            case "opponent_policy": return opponent_policy;
 
             case "shift_buffer": return shift_buffer;
 //            case "shift_discount": return shift_discount;
@@ -423,6 +454,7 @@ public class RHEAParams implements ParameterSet {
         names.put("frame_skip_type", new String[]{"SKIP_REPEAT", "SKIP_NULL", "SKIP_RANDOM", "SKIP_SEQUENCE"});
         names.put("heuristic_type", new String[]{"WIN_SCORE_HEURISTIC", "PLAYER_COUNT_HEURISTIC", "CUSTOM_HEURISTIC",
                 "ADVANCED_HEURISTIC"});
+        names.put("opponent_policy", names());
 //        names.put("draw_code", new String[]{"DRAW_EXPLORATION", "DRAW_THINKING", "DRAW_ALL"});
         return names;
     }
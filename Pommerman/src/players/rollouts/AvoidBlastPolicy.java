@@ -0,0 +1,143 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random actions that keep the player out of danger: the cells in flames, or in the blast of a bomb about to
+ * explode, are marked once per state in a bit mask over the board cells. Players pick uniformly among the actions
+ * that leave them on a cell out of danger, ignoring moves into walls and bombs; among all of those if every cell
+ * reachable is in danger.
+ */
+public class AvoidBlastPolicy extends BoardPolicy {
+
+    // Bombs with at most this many ticks of life left are about to explode.
+    private static final int DANGER_LIFE = 3;
+
+    private static final Types.DIRECTIONS[] BLAST_DIRECTIONS = {Types.DIRECTIONS.LEFT, Types.DIRECTIONS.RIGHT,
+            Types.DIRECTIONS.UP, Types.DIRECTIONS.DOWN};
+
+    // Cells in danger, one bit per cell. Only valid if marked.
+    private long[] danger = new long[0];
+    private boolean marked;
+
+    @Override
+    public void prepare(GameState gs) {
+        super.prepare(gs);
+        marked = false;
+    }
+
+    @Override
+    public Types.ACTIONS act(GameState gs, int playerIdx, Random rnd) {
+        int cell = cell(playerIdx);
+        if (cell == NONE) {
+            return ACTIONS[rnd.nextInt(gs.nActions())];
+        }
+        int open = openActions(cell);
+        int safe = safeActions(cell, open);
+        return ACTIONS[pick(safe != 0 ? safe : open, rnd)];
+    }
+
+    /**
+     * Cheap safety check of the actions of a player, on the state given to prepare().
+     * @param playerIdx index of the player.
+     * @return mask of the actions that leave the player out of danger, ignoring moves into walls and bombs; all the
+     * actions if the player can't be found.
+     */
+    public int safeActions(int playerIdx) {
+        int cell = cell(playerIdx);
+        if (cell == NONE) {
+            return (1 << ACTIONS.length) - 1;
+        }
+        return safeActions(cell, openActions(cell));
+    }
+
+    /**
+     * @return mask of the actions from the cell that stay on the board and don't move into walls or bombs.
+     */
+    private int openActions(int cell) {
+        int legal = moves[cell];
+        int open = 0;
+        for (int a = 0; a < ACTIONS.length; a++) {
+            if ((legal & (1 << a)) == 0) {
+                continue;
+            }
+            int target = target(cell, a);
+            if (target != cell) {
+                Types.TILETYPE tile = tile(target);
+                if (Types.TILETYPE.isWall(tile) || tile == Types.TILETYPE.BOMB) {
+                    continue;
+                }
+            }
+            open |= 1 << a;
+        }
+        return open;
+    }
+
+    /**
+     * @return mask of the actions among the open ones that reach a cell out of danger.
+     */
+    private int safeActions(int cell, int open) {
+        if (!marked) {
+            markDanger();
+        }
+        int safe = 0;
+        for (int a = 0; a < ACTIONS.length; a++) {
+            int target = target(cell, a);
+            if ((open & (1 << a)) != 0 && (danger[target >>> 6] & (1L << target)) == 0) {
+                safe |= 1 << a;
+            }
+        }
+        return safe;
+    }
+
+    private void markDanger() {
+        int words = (size * size + 63) >>> 6;
+        if (danger.length != words) {
+            danger = new long[words];
+        } else {
+            Arrays.fill(danger, 0);
+        }
+
+        int[][] blastStrength = state.getBombBlastStrength();
+        int[][] life = state.getBombLife();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (board[y][x] == Types.TILETYPE.FLAMES) {
+                    mark(y * size + x);
+                }
+                if (blastStrength[y][x] > 0 && life[y][x] <= DANGER_LIFE) {
+                    markBlast(x, y, blastStrength[y][x]);
+                }
+            }
+        }
+        marked = true;
+    }
+
+    /**
+     * Marks the cells the blast of a bomb reaches, as in Bomb.explode(): it stops at rigid walls and after wood.
+     */
+    private void markBlast(int x, int y, int strength) {
+        mark(y * size + x);
+        for (Types.DIRECTIONS dir : BLAST_DIRECTIONS) {
+            for (int i = 1; i < strength; i++) {
+                int bx = x + dir.x() * i;
+                int by = y + dir.y() * i;
+                if (bx < 0 || by < 0 || bx >= size || by >= size || board[by][bx] == Types.TILETYPE.RIGID) {
+                    break;
+                }
+                mark(by * size + bx);
+                if (board[by][bx] == Types.TILETYPE.WOOD) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void mark(int cell) {
+        danger[cell >>> 6] |= 1L << cell;
+    }
+}
@@ -0,0 +1,124 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Base of the policies that look at the board around the player. Cells are indexed as (y * size + x), and sets of
+ * actions are bit masks over the action keys. The actions that stay on the board from each cell are precomputed per
+ * board size, and the agents are found on the board once per state, on the first call that needs them.
+ */
+abstract class BoardPolicy extends RolloutPolicy {
+
+    static final Types.ACTIONS[] ACTIONS = Types.ACTIONS.values();
+    static final int NONE = -1;
+
+    // Masks of the actions that stay on the board, indexed by board size and cell.
+    private static volatile int[][] moveMasks = new int[0][];
+
+    // State being acted on, and its board.
+    GameState state;
+    Types.TILETYPE[][] board;
+    int size;
+
+    // Masks of the actions that stay on the board from each cell, for the size of the board.
+    int[] moves;
+
+    // Cell of each player, NONE if not found on the board. Only valid if located.
+    private int[] cells = new int[0];
+    private boolean located;
+
+    @Override
+    public void prepare(GameState gs) {
+        state = gs;
+        board = gs.getBoard();
+        if (board.length != size || moves == null) {
+            size = board.length;
+            moves = moveMasks(size);
+        }
+        located = false;
+    }
+
+    /**
+     * @return cell of the player in the state, NONE if it is not on the board (dead, or hidden by fog).
+     */
+    int cell(int playerIdx) {
+        if (playerIdx == state.getPlayerId() - Types.TILETYPE.AGENT0.getKey()) {
+            return state.getPosition().y * size + state.getPosition().x;
+        }
+        if (!located) {
+            locate();
+        }
+        return playerIdx < cells.length ? cells[playerIdx] : NONE;
+    }
+
+    /**
+     * @return cell reached from the given one with the action, which must stay on the board.
+     */
+    int target(int cell, int action) {
+        Types.DIRECTIONS dir = ACTIONS[action].getDirection();
+        return cell + dir.y() * size + dir.x();
+    }
+
+    Types.TILETYPE tile(int cell) {
+        return board[cell / size][cell % size];
+    }
+
+    /**
+     * @return key of an action picked uniformly at random from the ones in the mask, which must not be empty.
+     */
+    static int pick(int mask, Random rnd) {
+        int k = rnd.nextInt(Integer.bitCount(mask));
+        while (k-- > 0) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    private void locate() {
+        if (cells.length != Types.NUM_PLAYERS) {
+            cells = new int[Types.NUM_PLAYERS];
+        }
+        Arrays.fill(cells, NONE);
+        int agent0 = Types.TILETYPE.AGENT0.getKey();
+        for (int y = 0; y < size; y++) {
+            Types.TILETYPE[] row = board[y];
+            for (int x = 0; x < size; x++) {
+                if (Types.TILETYPE.isAgent(row[x])) {
+                    int idx = row[x].getKey() - agent0;
+                    if (idx < cells.length) {
+                        cells[idx] = y * size + x;
+                    }
+                }
+            }
+        }
+        located = true;
+    }
+
+    private static int[] moveMasks(int size) {
+        int[][] masks = moveMasks;
+        if (size < masks.length && masks[size] != null) {
+            return masks[size];
+        }
+        int[] sizeMasks = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                for (Types.ACTIONS a : ACTIONS) {
+                    int tx = x + a.getDirection().x();
+                    int ty = y + a.getDirection().y();
+                    if (tx >= 0 && tx < size && ty >= 0 && ty < size) {
+                        sizeMasks[y * size + x] |= 1 << a.getKey();
+                    }
+                }
+            }
+        }
+        // Other threads may add sizes concurrently; losing one only means computing it again.
+        int[][] grown = Arrays.copyOf(masks, Math.max(masks.length, size + 1));
+        grown[size] = sizeMasks;
+        moveMasks = grown;
+        return sizeMasks;
+    }
+}
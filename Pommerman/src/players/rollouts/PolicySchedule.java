@@ -0,0 +1,107 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Random;
+
+/**
+ * Rollout policies by depth of the simulated tick: one policy for the ticks near the root, at depths below
+ * nearDepth, and another one for the deeper ticks. Lets a search spend more time on the ticks that matter most,
+ * e.g. with a heavy policy near the root and a cheap one deeper. If RolloutPolicies.RECORD_COSTS is set when the
+ * schedule is created, the time taken by the policies is counted by the schedule and added to RolloutPolicies every
+ * FLUSH_STEPS actions. Not thread-safe, as the policies are not.
+ */
+public final class PolicySchedule {
+
+    // Number of actions counted by a schedule before adding its costs to RolloutPolicies.
+    static final int FLUSH_STEPS = 4096;
+
+    private final int nearType, farType;
+    private final RolloutPolicy near, far;
+    private final int nearDepth;
+
+    // Costs not added to RolloutPolicies yet, for the near and far policies.
+    private final boolean recordCosts;
+    private long nearNanos, farNanos;
+    private int nearSteps, farSteps;
+
+    /**
+     * @param nearType type of policy for the ticks below nearDepth (see RolloutPolicies).
+     * @param farType type of policy for the other ticks.
+     * @param nearDepth depth of the first tick played by farType.
+     * @param rnd random generator to seed the policies with.
+     */
+    public PolicySchedule(int nearType, int farType, int nearDepth, Random rnd) {
+        this.nearType = nearType;
+        this.farType = farType;
+        this.nearDepth = nearDepth;
+        this.far = RolloutPolicies.create(farType, rnd);
+        this.near = nearDepth > 0 && nearType != farType ? RolloutPolicies.create(nearType, rnd) : far;
+        this.recordCosts = RolloutPolicies.RECORD_COSTS;
+    }
+
+    /**
+     * Chooses the action of one player for a tick.
+     * @param gs state of the tick.
+     * @param depth depth of the tick, 0 for the ticks played from the root.
+     * @param playerIdx index of the player.
+     * @param rnd random generator of the search.
+     * @return the action of the player.
+     */
+    public Types.ACTIONS act(GameState gs, int depth, int playerIdx, Random rnd) {
+        boolean isNear = depth < nearDepth;
+        RolloutPolicy policy = isNear ? near : far;
+        long start = recordCosts ? System.nanoTime() : 0;
+        policy.prepare(gs);
+        Types.ACTIONS action = policy.act(gs, playerIdx, rnd);
+        if (recordCosts)
+            record(isNear, System.nanoTime() - start, 1);
+        return action;
+    }
+
+    /**
+     * Fills the actions of all the players but one for a tick.
+     * @param gs state of the tick.
+     * @param depth depth of the tick, 0 for the ticks played from the root.
+     * @param actions actions of all players, indexed by player; the one of the given player is left as it is.
+     * @param playerIdx index of the player not to act for.
+     * @param rnd random generator of the search.
+     */
+    public void fill(GameState gs, int depth, Types.ACTIONS[] actions, int playerIdx, Random rnd) {
+        boolean isNear = depth < nearDepth;
+        RolloutPolicy policy = isNear ? near : far;
+        long start = recordCosts ? System.nanoTime() : 0;
+        policy.prepare(gs);
+        for (int i = 0; i < actions.length; i++) {
+            if (i != playerIdx) {
+                actions[i] = policy.act(gs, i, rnd);
+            }
+        }
+        if (recordCosts)
+            record(isNear, System.nanoTime() - start, actions.length - 1);
+    }
+
+    /**
+     * Counts time spent by the near or far policy, adding the counts to RolloutPolicies every FLUSH_STEPS actions.
+     */
+    private void record(boolean isNear, long elapsed, int actions) {
+        if (isNear) {
+            nearNanos += elapsed;
+            nearSteps += actions;
+            if (nearSteps >= FLUSH_STEPS) {
+                RolloutPolicies.record(nearType, nearNanos, nearSteps);
+                nearNanos = 0;
+                nearSteps = 0;
+            }
+        } else {
+            farNanos += elapsed;
+            farSteps += actions;
+            if (farSteps >= FLUSH_STEPS) {
+                RolloutPolicies.record(farType, farNanos, farSteps);
+                farNanos = 0;
+                farSteps = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Random;
+
+/**
+ * Uniformly random actions.
+ */
+public class RandomPolicy extends RolloutPolicy {
+
+    @Override
+    public Types.ACTIONS act(GameState gs, int playerIdx, Random rnd) {
+        return BoardPolicy.ACTIONS[rnd.nextInt(gs.nActions())];
+    }
+}
@@ -0,0 +1,115 @@
+package players.rollouts;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the rollout policies, by type, from the cheapest to the most expensive. The parameters of the agents
+ * select policies by type (see PolicySchedule). When RECORD_COSTS is set, the time spent by each type is recorded
+ * here, across all searches, to compare the cost of the policies against the quality of their rollouts: see
+ * nanosPerStep().
+ */
+public final class RolloutPolicies {
+
+    public static final int STOP = 0;
+    public static final int RANDOM = 1;
+    public static final int SAFE_RANDOM = 2;
+    public static final int AVOID_BLAST = 3;
+    public static final int SIMPLE = 4;
+
+    private static final String[] NAMES = {"STOP", "RANDOM", "SAFE_RANDOM", "AVOID_BLAST", "SIMPLE"};
+
+    /**
+     * Whether schedules record the time taken by their policies. Off by default, as it costs two System.nanoTime()
+     * calls per simulated tick. Checked when a PolicySchedule is created.
+     */
+    public static boolean RECORD_COSTS = false;
+
+    // Time spent and actions chosen by each type of policy, as flushed by the schedules (see record()).
+    private static final LongAdder[] nanos = new LongAdder[NAMES.length];
+    private static final LongAdder[] steps = new LongAdder[NAMES.length];
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            nanos[i] = new LongAdder();
+            steps[i] = new LongAdder();
+        }
+    }
+
+    private RolloutPolicies() { }
+
+    /**
+     * Creates a policy.
+     * @param type type of policy, one of the constants of this class.
+     * @param rnd random generator to seed the policy with, if it keeps one of its own.
+     * @return a new policy of the type.
+     */
+    public static RolloutPolicy create(int type, Random rnd) {
+        switch (type) {
+            case STOP: return new StopPolicy();
+            case RANDOM: return new RandomPolicy();
+            case SAFE_RANDOM: return new SafeRandomPolicy();
+            case AVOID_BLAST: return new AvoidBlastPolicy();
+            case SIMPLE: return new SimplePolicy(rnd.nextLong());
+            default: throw new IllegalArgumentException("Unknown rollout policy: " + type);
+        }
+    }
+
+    /**
+     * @return names of the types of policy, indexed by type.
+     */
+    public static String[] names() {
+        return NAMES.clone();
+    }
+
+    /**
+     * Adds time spent by a type of policy. Schedules keep their own counts and only add them here every so often,
+     * so that searches running in parallel do not contend on every tick.
+     * @param type type of policy.
+     * @param elapsed nanoseconds spent.
+     * @param actions number of actions chosen in that time.
+     */
+    static void record(int type, long elapsed, int actions) {
+        nanos[type].add(elapsed);
+        steps[type].add(actions);
+    }
+
+    /**
+     * @return average nanoseconds a type of policy took to choose an action, 0 if it was never used or costs were
+     * not recorded. The last actions of each schedule may not be counted yet (see PolicySchedule.FLUSH_STEPS).
+     */
+    public static double nanosPerStep(int type) {
+        long n = steps[type].sum();
+        return n == 0 ? 0 : (double) nanos[type].sum() / n;
+    }
+
+    /**
+     * @return number of actions chosen by a type of policy.
+     */
+    public static long steps(int type) {
+        return steps[type].sum();
+    }
+
+    /**
+     * Forgets the time recorded for all types of policy.
+     */
+    public static void resetCosts() {
+        for (int i = 0; i < NAMES.length; i++) {
+            nanos[i].reset();
+            steps[i].reset();
+        }
+    }
+
+    /**
+     * @return one line per type of policy used, with its number of steps and nanoseconds per step.
+     */
+    public static String costReport() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (steps(i) > 0) {
+                sb.append(String.format("%-12s %12d steps %10.1f ns/step%n", NAMES[i], steps(i), nanosPerStep(i)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Random;
+
+/**
+ * Policy playing the moves of a player in simulated ticks: this player's moves in rollouts, or the moves of the other
+ * players (the opponent model) on every simulated tick. Policies run once per player and simulated tick, so they
+ * should not allocate. They may keep state between calls and are not thread-safe: each search creates its own
+ * instances, through RolloutPolicies.
+ */
+public abstract class RolloutPolicy {
+
+    /**
+     * Prepares the policy for a new state, before act() is called for any player on it. Work shared by all the
+     * players of the state is done here, or on the first call to act() after it.
+     * @param gs state the policy will act on.
+     */
+    public void prepare(GameState gs) { }
+
+    /**
+     * @param gs state to act on, prepared with prepare().
+     * @param playerIdx index of the player to act for (0 for AGENT0).
+     * @param rnd random generator of the search.
+     * @return the action of the player.
+     */
+    public abstract Types.ACTIONS act(GameState gs, int playerIdx, Random rnd);
+}
@@ -0,0 +1,33 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Random;
+
+/**
+ * Random actions that do not move the player into flames or off the board, uniformly among the ones that don't;
+ * uniformly random if there are none, or the player can't be found.
+ */
+public class SafeRandomPolicy extends BoardPolicy {
+
+    @Override
+    public Types.ACTIONS act(GameState gs, int playerIdx, Random rnd) {
+        int cell = cell(playerIdx);
+        if (cell == NONE) {
+            return ACTIONS[rnd.nextInt(gs.nActions())];
+        }
+
+        int legal = moves[cell];
+        int safe = 0;
+        for (int a = 0; a < ACTIONS.length; a++) {
+            if ((legal & (1 << a)) != 0 && tile(target(cell, a)) != Types.TILETYPE.FLAMES) {
+                safe |= 1 << a;
+            }
+        }
+        if (safe == 0) {
+            return ACTIONS[rnd.nextInt(gs.nActions())];
+        }
+        return ACTIONS[pick(safe, rnd)];
+    }
+}
@@ -0,0 +1,38 @@
+package players.rollouts;
+
+import core.GameState;
+import players.SimplePlayer;
+import utils.Types;
+
+import java.util.Random;
+
+/**
+ * Heavy policy: the player the state is observed by plays as SimplePlayer, which searches the board for bombs,
+ * enemies and items on every call. SimplePlayer can only act for the player of the state, so the other players
+ * play as AvoidBlastPolicy.
+ */
+public class SimplePolicy extends RolloutPolicy {
+
+    private final SimplePlayer player;
+    private final AvoidBlastPolicy others = new AvoidBlastPolicy();
+
+    /**
+     * @param seed seed of the random moves of SimplePlayer.
+     */
+    public SimplePolicy(long seed) {
+        player = new SimplePlayer(seed, Types.TILETYPE.AGENT0.getKey());
+    }
+
+    @Override
+    public void prepare(GameState gs) {
+        others.prepare(gs);
+    }
+
+    @Override
+    public Types.ACTIONS act(GameState gs, int playerIdx, Random rnd) {
+        if (playerIdx == gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey()) {
+            return player.act(gs);
+        }
+        return others.act(gs, playerIdx, rnd);
+    }
+}
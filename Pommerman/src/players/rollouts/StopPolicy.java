@@ -0,0 +1,17 @@
+package players.rollouts;
+
+import core.GameState;
+import utils.Types;
+
+import java.util.Random;
+
+/**
+ * Does nothing: ACTION_STOP always.
+ */
+public class StopPolicy extends RolloutPolicy {
+
+    @Override
+    public Types.ACTIONS act(GameState gs, int playerIdx, Random rnd) {
+        return Types.ACTIONS.ACTION_STOP;
+    }
+}
@@ -0,0 +1,180 @@
+package utils;
+
+/**
+ * Time budget of one decision of a search (MCTS, RHEA, EMCTS): tells the search whether there is time for another
+ * iteration. Time is wall time from System.nanoTime(), much cheaper to read than the thread CPU time of
+ * ElapsedCpuTimer, and never less than it, so staying within the budget in wall time keeps the agent within the
+ * decision time of the game whichever clock the game checks.
+ *
+ * The clock is read at most every checkInterval iterations. Each read gives the average cost of the iterations run
+ * since the previous one, from which the mean and variance of the cost of an iteration are estimated online. The
+ * search gets as many more iterations as fit before the end of the budget minus a safety margin, with the cost of
+ * each one taken as its mean plus a number of standard deviations, and stops when not even one does.
+ */
+public class BudgetController {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final long start;
+    private final long deadline;
+    private final long margin;
+    private final int checkInterval;
+    private final double sigmas;
+
+    // Iterations started, and number of them at which the clock is read next.
+    private int iterations;
+    private int nextCheck;
+
+    // Last reading of the clock, and iterations started by then.
+    private long lastCheck;
+    private int lastCheckIterations;
+
+    // Online estimate (Welford's algorithm) of the average cost of the iterations between two readings, and average
+    // number of iterations between readings.
+    private int samples;
+    private double mean;
+    private double m2;
+    private double meanBlock;
+
+    // Highest probability of going over the budget among the blocks of iterations started, and time of the reading
+    // that stopped the search (0 while running).
+    private double overtimeProbability;
+    private long stopped;
+
+    /**
+     * Starts the budget.
+     * @param budgetMillis time budget, in milliseconds.
+     * @param checkInterval maximum number of iterations between readings of the clock.
+     * @param marginMillis time to leave unused at the end of the budget, in milliseconds.
+     * @param sigmas standard deviations added to the mean cost of an iteration when checking that it fits.
+     */
+    public BudgetController(double budgetMillis, int checkInterval, double marginMillis, double sigmas) {
+        this.start = System.nanoTime();
+        this.deadline = start + (long) (budgetMillis * NANOS_PER_MILLI);
+        this.margin = (long) (marginMillis * NANOS_PER_MILLI);
+        this.checkInterval = Math.max(1, checkInterval);
+        this.sigmas = sigmas;
+        this.lastCheck = start;
+    }
+
+    /**
+     * Called before every iteration of the search, which runs it only if this returns true. Once it returns false
+     * the search is over and it keeps returning false.
+     * @return true if there is time for another iteration.
+     */
+    public boolean hasBudget() {
+        if (stopped != 0)
+            return false;
+        if (iterations < nextCheck) {
+            iterations++;
+            return true;
+        }
+
+        long now = System.nanoTime();
+        int ran = iterations - lastCheckIterations;
+        if (ran > 0)
+            addSample((double) (now - lastCheck) / ran, ran);
+        lastCheck = now;
+        lastCheckIterations = iterations;
+
+        long available = deadline - margin - now;
+        int block;
+        if (samples == 0) {
+            block = available > 0 ? 1 : 0;
+        } else {
+            double cost = mean + sigmas * iterationStdNanos();
+            block = cost <= 0 ? checkInterval : (int) Math.min(checkInterval, available / cost);
+        }
+        if (block <= 0) {
+            stopped = now;
+            return false;
+        }
+
+        overtimeProbability = Math.max(overtimeProbability, overtimeProbability(block, deadline - now));
+        nextCheck = iterations + block;
+        iterations++;
+        return true;
+    }
+
+    /**
+     * @return number of iterations the search was given.
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    public double elapsedMillis() {
+        return (System.nanoTime() - start) / NANOS_PER_MILLI;
+    }
+
+    public double remainingMillis() {
+        return (deadline - System.nanoTime()) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return true if the budget is over.
+     */
+    public boolean exceeded() {
+        return System.nanoTime() > deadline;
+    }
+
+    /**
+     * @return estimated mean cost of an iteration, in milliseconds (0 until the clock was read after one).
+     */
+    public double meanIterationMillis() {
+        return mean / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return estimated standard deviation of the cost of an iteration, in milliseconds.
+     */
+    public double iterationStdMillis() {
+        return iterationStdNanos() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Estimated probability that the search goes over the budget: the highest probability, among the blocks of
+     * iterations it was given, that the block takes longer than the time left when it started. The costs of the
+     * iterations are taken as independent and normally distributed, with the estimated mean and variance.
+     */
+    public double overtimeProbability() {
+        return overtimeProbability;
+    }
+
+    private void addSample(double perIteration, int ran) {
+        samples++;
+        double delta = perIteration - mean;
+        mean += delta / samples;
+        m2 += delta * (perIteration - mean);
+        meanBlock += (ran - meanBlock) / samples;
+    }
+
+    /**
+     * Standard deviation of the cost of one iteration. Samples are averages over meanBlock iterations, whose
+     * variance is the one of a single iteration divided by meanBlock.
+     */
+    private double iterationStdNanos() {
+        if (samples < 2)
+            return 0;
+        return Math.sqrt(m2 / (samples - 1) * meanBlock);
+    }
+
+    private double overtimeProbability(int block, long left) {
+        double std = iterationStdNanos() * Math.sqrt(block);
+        double excess = left - block * mean;
+        if (std == 0)
+            return excess < 0 ? 1 : 0;
+        return 0.5 * erfc(excess / (std * Math.sqrt(2)));
+    }
+
+    /**
+     * Complementary error function, with the approximation 7.1.26 of Abramowitz and Stegun (error below 1.5e-7).
+     */
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.3275911 * z);
+        double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        double r = poly * Math.exp(-z * z);
+        return x >= 0 ? r : 2 - r;
+    }
+}
@@ -11,12 +11,12 @@ public class EventsStatistics {
 
     public ArrayList<String> events;
 
-    // TODO: Configured for 4 agents by default
-    public int[] bombPlacementsAttempted = {0, 0, 0, 0};
-    public int[] bombsPlaced = {0, 0, 0, 0};
-    public int[] bombsTriggered = {0, 0, 0, 0};
-    public int[] woodsDestroyed = {0, 0, 0, 0}; // TODO
-    public int[] powerUpsTaken = {0, 0, 0, 0};
+    // Per player
+    public int[] bombPlacementsAttempted = new int[Types.NUM_PLAYERS];
+    public int[] bombsPlaced = new int[Types.NUM_PLAYERS];
+    public int[] bombsTriggered = new int[Types.NUM_PLAYERS];
+    public int[] woodsDestroyed = new int[Types.NUM_PLAYERS]; // TODO
+    public int[] powerUpsTaken = new int[Types.NUM_PLAYERS];
 
     public static int REP = 0;
 
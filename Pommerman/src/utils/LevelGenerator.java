@@ -57,7 +57,7 @@ public class LevelGenerator {
         int[][] items = new int[board.length][board[0].length];     //Items will be here.
 
         //All items to place.
-        Types.TILETYPE[] powerUpTypes = Types.TILETYPE.getPowerUpTypes().toArray(new Types.TILETYPE[0]);
+        Types.TILETYPE[] powerUpTypes = Types.TILETYPE.getPowerUpTypeArray();
 
         //Count how many wood boxes we have to put items in
         int numberOfWood = 0;
@@ -78,10 +78,10 @@ public class LevelGenerator {
             int row = random.nextInt(board.length);
             int col = random.nextInt(board[0].length);
             if (board[row][col] != Types.TILETYPE.WOOD.getKey()) continue;
-            if (item_positions.contains(new Vector2d(col, row))) continue;
+            if (item_positions.contains(Vector2d.of(col, row))) continue;
 
             //Here we have a position (row,col) where an item can be placed. Random power-up spawns here.
-            item_positions.add(new Vector2d(col, row));
+            item_positions.add(Vector2d.of(col, row));
             items[row][col] = powerUpTypes[random.nextInt(powerUpTypes.length)].getKey();
             num_items--;
         }
@@ -118,61 +118,36 @@ public class LevelGenerator {
         for (int i = 0; i<size ; i++){
             for (int j = 0; j < size; j++){
                 if (i != j){
-                    available_coordinates.add(new Vector2d(j, i));
+                    available_coordinates.add(Vector2d.of(j, i));
                 }
             }
         }
 
-        // Locate all the players in the board. they must respect a Types.CORNER_DISTANCE to
-        // their respective corners.
-        board[Types.CORNER_DISTANCE][Types.CORNER_DISTANCE] = Types.TILETYPE.AGENT0.getKey();
-        board[size-Types.CORNER_DISTANCE -1][Types.CORNER_DISTANCE] = Types.TILETYPE.AGENT1.getKey();
-        board[size-Types.CORNER_DISTANCE -1][size-Types.CORNER_DISTANCE -1] = Types.TILETYPE.AGENT2.getKey();
-        board[Types.CORNER_DISTANCE][size-Types.CORNER_DISTANCE -1] = Types.TILETYPE.AGENT3.getKey();
-
-        // Keep a list of the agent positions
-        ArrayList<Vector2d> agent_positions = new ArrayList<>();
-        agent_positions.add(new Vector2d(Types.CORNER_DISTANCE, Types.CORNER_DISTANCE));
-        agent_positions.add(new Vector2d(size-Types.CORNER_DISTANCE -1, Types.CORNER_DISTANCE));
-        agent_positions.add(new Vector2d(size-Types.CORNER_DISTANCE -1, size-Types.CORNER_DISTANCE -1));
-        agent_positions.add(new Vector2d(Types.CORNER_DISTANCE, size-Types.CORNER_DISTANCE -1));
+        // Locate all the players in the board. The first four must respect a Types.CORNER_DISTANCE to
+        // their respective corners, and any others go in the middle of the edges, at the same distance to them.
+        // Positions are (row, column), as the board is symmetric.
+        ArrayList<Vector2d> agent_positions = agentPositions(size, agents.length);
 
         // and mark those as not available places to put more stuff
         for (Vector2d agent_position : agent_positions) available_coordinates.remove(agent_position);
 
-
-        if (VERBOSE) {
-            System.out.println("Agents added: ");
-            for (int[] ints : board) {
-                System.out.println(Arrays.toString(ints));
+        //Some positions around the agent must be free, so those are not valid coordinates either: an L shaped
+        //section towards the centre of the board for agents in corners, and a T shaped one for agents in edges.
+        ArrayList<Vector2d> breathing_space = new ArrayList<>();
+        int centre = (size - 1) / 2;
+        for (Vector2d p : agent_positions) {
+            int dRow = Integer.signum(centre - p.x), dCol = Integer.signum(centre - p.y);
+            for (int i = 1; i <= BREATHING_SPACE; i++) {
+                if (dRow != 0) breathing_space.add(Vector2d.of(p.x + i * dRow, p.y));
+                else { breathing_space.add(Vector2d.of(p.x + i, p.y)); breathing_space.add(Vector2d.of(p.x - i, p.y)); }
+                if (dCol != 0) breathing_space.add(Vector2d.of(p.x, p.y + i * dCol));
+                else { breathing_space.add(Vector2d.of(p.x, p.y + i)); breathing_space.add(Vector2d.of(p.x, p.y - i)); }
             }
         }
-
-        //Some positions around the agent must be free, so those are not valid coordinates either.
-        int loc = Types.CORNER_DISTANCE;
-        for (int i = 1; i <= BREATHING_SPACE; i++){
-            //top left
-            int avX = loc, avY = loc; // location of the avatar in this corner
-            available_coordinates.remove(new Vector2d(avX, avY + i));
-            available_coordinates.remove(new Vector2d(avX + i, avY));
-
-            //bottom right
-            avX = size - 1 - loc; avY = size - 1 - loc;  // location of the avatar in this corner
-            available_coordinates.remove(new Vector2d(avX, avY - i));
-            available_coordinates.remove(new Vector2d(avX - i, avY));
-
-            //top right
-            avX = size - 1 - loc; avY = loc;  // location of the avatar in this corner
-            available_coordinates.remove(new Vector2d(avX, avY + i));
-            available_coordinates.remove(new Vector2d(avX - i, avY));
-
-            //bottom left
-            avX = loc; avY = size - 1 - loc;  // location of the avatar in this corner
-            available_coordinates.remove(new Vector2d(avX + i, avY));
-            available_coordinates.remove(new Vector2d(avX, avY - i));
-        }
+        available_coordinates.removeAll(breathing_space);
 
         //Create a wooden passage in the rows and columns between agents
+        int loc = Types.CORNER_DISTANCE;
         int passage_start = loc+BREATHING_SPACE+1;
         int WOOD = Types.TILETYPE.WOOD.getKey();
         int n = size - (passage_start*2);
@@ -183,20 +158,36 @@ public class LevelGenerator {
             int y0 = loc;
             board[x0][y0] = WOOD;
             board[y0][x0] = WOOD;
-            available_coordinates.remove(new Vector2d(x0, y0));
-            available_coordinates.remove(new Vector2d(y0, x0));
+            available_coordinates.remove(Vector2d.of(x0, y0));
+            available_coordinates.remove(Vector2d.of(y0, x0));
 
             //From bottom right
             int x1 = size - 1 - x0;
             int y1 = size - 1 - loc;
             board[x1][y1] = WOOD;
             board[y1][x1] = WOOD;
-            available_coordinates.remove(new Vector2d(x1, y1));
-            available_coordinates.remove(new Vector2d(y1, x1));
+            available_coordinates.remove(Vector2d.of(x1, y1));
+            available_coordinates.remove(Vector2d.of(y1, x1));
 
             numWood -= 4;
         }
 
+        // Agents in the middle of the edges sit on those passages, clear their spot and breathing space.
+        for (Vector2d p : breathing_space) {
+            if (p.x >= 0 && p.y >= 0 && p.x < size && p.y < size && board[p.x][p.y] == WOOD)
+                board[p.x][p.y] = Types.TILETYPE.PASSAGE.getKey();
+        }
+        for (int i = 0; i < agent_positions.size(); i++) {
+            Vector2d p = agent_positions.get(i);
+            board[p.x][p.y] = Types.TILETYPE.agent(i).getKey();
+        }
+
+        if (VERBOSE) {
+            System.out.println("Agents added: ");
+            for (int[] ints : board) {
+                System.out.println(Arrays.toString(ints));
+            }
+        }
 
         //Place more rigid tiles until all desired ones are placed.
         int RIGID = Types.TILETYPE.RIGID.getKey();
@@ -216,6 +207,39 @@ public class LevelGenerator {
         return board;
     }
 
+    /**
+     * Starting positions of the agents, as (row, column): first the four corners (AGENT0 top left, then
+     * counter-clockwise), then the middle of the top, right, bottom and left edges, all at Types.CORNER_DISTANCE
+     * from the edges of the board.
+     * @param size size of the board
+     * @param nAgents number of agents, up to Types.MAX_PLAYERS
+     * @return the starting positions of the agents.
+     */
+    private static ArrayList<Vector2d> agentPositions(int size, int nAgents) {
+        if (nAgents > Types.MAX_PLAYERS) {
+            throw new IllegalArgumentException("At most " + Types.MAX_PLAYERS + " agents are supported, got " + nAgents);
+        }
+        int near = Types.CORNER_DISTANCE, far = size - Types.CORNER_DISTANCE - 1, mid = (size - 1) / 2;
+        Vector2d[] slots = {
+                Vector2d.of(near, near), Vector2d.of(far, near), Vector2d.of(far, far), Vector2d.of(near, far),
+                Vector2d.of(near, mid), Vector2d.of(mid, far), Vector2d.of(far, mid), Vector2d.of(mid, near)
+        };
+        return new ArrayList<>(Arrays.asList(slots).subList(0, nAgents));
+    }
+
+    /**
+     * Scales a number of blocks or items meant for the default 11x11 board to a board of the given size, keeping
+     * their density. The result is even, as blocks are placed in pairs.
+     * @param count number of blocks or items for an 11x11 board
+     * @param size size of the board
+     * @return number of blocks or items for the board.
+     */
+    public static int scaleToBoard(int count, int size) {
+        if (size == 11)
+            return count;
+        return (int) ((long) count * size * size / (11 * 11)) & ~1;
+    }
+
     /**
      * Puts two blocks of type 'type'. A random location (x,y) is selected and
      * blocks of type 'type' is added to (x,y) and (y,x)
@@ -232,7 +256,7 @@ public class LevelGenerator {
         int x = rnd.x;
         int y = rnd.y;
         coordinates.remove(rnd);
-        coordinates.remove(new Vector2d(y, x));
+        coordinates.remove(Vector2d.of(y, x));
         board[y][x] = type;
         board[x][y] = type;
         num_left-=2;
@@ -251,7 +275,7 @@ public class LevelGenerator {
         for (int i = 0; i < size; i++){
             for(int j = 0; j < size; j++){
                 if(board[i][j] == type ){
-                    indices.add(new Vector2d(i, j));
+                    indices.add(Vector2d.of(i, j));
                 }
             }
         }
@@ -321,7 +345,7 @@ public class LevelGenerator {
                 int position_to_be_checked_x = pos.x;
                 int position_to_be_checked_y = pos.y;
 
-                Vector2d next_position = new Vector2d(rowcol_x + position_to_be_checked_x,
+                Vector2d next_position = Vector2d.of(rowcol_x + position_to_be_checked_x,
                         rowcol_y + position_to_be_checked_y);
 
                 if (seen.contains(next_position)) {
@@ -5,6 +5,7 @@ import core.gameConfig.OriginalGameConfig;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 
 public class Types {
@@ -23,6 +24,12 @@ public class Types {
     public static int COLLAPSE_STAGES = 4;
     public static int COLLAPSE_STEP = ((Types.MAX_GAME_TICKS - COLLAPSE_START) / COLLAPSE_STAGES);
 
+    // Forward model engine. If true, the board is mirrored in packed bit layers (one per tile type), kept in sync on
+    // every board write. Only flame occupancy and board collapse read the layers: movement, collisions and explosions
+    // still run on the board array. Results are the same as with the default engine, but it is not faster (next()
+    // costs about the same, copies are slower), so it is off by default and meant for experiments on the layers.
+    public static boolean BITBOARD_ENGINE = false;
+
     //Game configuration to use in the game, which determines victory conditions.
     private static IGameConfig gameConfig = new OriginalGameConfig();
 
@@ -35,6 +42,10 @@ public class Types {
     public static int CORNER_DISTANCE = 1;          //Distance to the corner, in tiles, of the starting agent position.
     public static int BREATHING_SPACE = 2;          //Breathing space, L shaped tile section free at start around agent.
 
+    //Level generation seeds used for the experiments of the AIIDE 2019 paper (Run with S = -1, benchmarks).
+    public static final long[] PAPER_SEEDS = new long[] {93988, 19067, 64416, 83884, 55636, 27599, 44350, 87872,
+            40815, 11772, 58367, 17546, 75375, 75772, 58237, 30464, 27180, 23643, 67054, 19508};
+
     // Visualization variables (used to display game for humans to see).
     public static int FRAME_DELAY = 100;
     public static int MAIN_SCREEN_SIZE = 550;
@@ -49,7 +60,10 @@ public class Types {
     public static boolean VISUALS = true;
     public static boolean LOGGING_STATISTICS = false;
 
-    public final static int NUM_PLAYERS = 4;  //Changing this is NOT going to work (Forward Model assumes 4 players).
+    // Number of players, from 2 to MAX_PLAYERS. Set it before creating games. Team modes split players in two teams
+    // by index parity (the original 2 vs 2 is {0, 2} vs {1, 3}).
+    public static int NUM_PLAYERS = 4;
+    public final static int MAX_PLAYERS = 8;  // One per agent tile type.
     public static int NUM_ACTIONS = 6;        //Changing this is NOT going to work either.
 
     // Communication
@@ -85,12 +99,60 @@ public class Types {
         AGENT0(10),
         AGENT1(11),
         AGENT2(12),
-        AGENT3(13);
+        AGENT3(13),
+        AGENT4(14),
+        AGENT5(15),
+        AGENT6(16),
+        AGENT7(17);
 
         private int key;
         TILETYPE(int numVal) {  this.key = numVal;  }
         public int getKey() {  return key; }
 
+        // Lookup tables indexed by key, so that the engine can convert and classify tile types without calling
+        // values() (which clones the array) or building sets of types on every call.
+        private static final TILETYPE[] BY_KEY = new TILETYPE[values().length];
+        private static final boolean[] AGENT = new boolean[BY_KEY.length];
+        private static final boolean[] POWER_UP = new boolean[BY_KEY.length];
+        private static final boolean[] WALL = new boolean[BY_KEY.length];
+        private static final TILETYPE[] AGENT_TYPES = {AGENT0, AGENT1, AGENT2, AGENT3, AGENT4, AGENT5, AGENT6, AGENT7};
+        private static final TILETYPE[] POWER_UP_TYPES = {EXTRABOMB, INCRRANGE, KICK};
+
+        static {
+            for (TILETYPE t : values()) BY_KEY[t.key] = t;
+            for (TILETYPE t : AGENT_TYPES) AGENT[t.key] = true;
+            for (TILETYPE t : POWER_UP_TYPES) POWER_UP[t.key] = true;
+            WALL[RIGID.key] = true;
+            WALL[WOOD.key] = true;
+        }
+
+        /**
+         * @param key key of a tile type, as in the integer boards of observations.
+         * @return the tile type with the given key.
+         */
+        public static TILETYPE fromKey(int key) { return BY_KEY[key]; }
+
+        /**
+         * @param idx index of a player, from 0 to MAX_PLAYERS - 1.
+         * @return the agent tile type of the player.
+         */
+        public static TILETYPE agent(int idx) { return AGENT_TYPES[idx]; }
+
+        /**
+         * @return true if the type is one of the agent types (null is not).
+         */
+        public static boolean isAgent(TILETYPE type) { return type != null && AGENT[type.key]; }
+
+        /**
+         * @return true if the type is one of the power-up types (null is not).
+         */
+        public static boolean isPowerUp(TILETYPE type) { return type != null && POWER_UP[type.key]; }
+
+        /**
+         * @return true if the type is a wall (rigid or wood), which objects can't move into (null is not).
+         */
+        public static boolean isWall(TILETYPE type) { return type != null && WALL[type.key]; }
+
         /**
          * Sprites (Image objects) to use in the game for the different elements.
          * @return the image to use
@@ -112,20 +174,17 @@ public class Types {
             else if (key == AGENT1.key) return ImageIO.GetInstance().getImage("img/agent1.png");
             else if (key == AGENT2.key) return ImageIO.GetInstance().getImage("img/agent2.png");
             else if (key == AGENT3.key) return ImageIO.GetInstance().getImage("img/agent3.png");
+            // There are only four agent sprites; extra agents reuse them
+            else if (AGENT[key]) return ImageIO.GetInstance().getImage("img/agent" + (key - AGENT0.key) % 4 + ".png");
             else return null;
         }
 
         /**
-         * Returns all agent types.
-         * @return all agent types.
+         * Returns the agent types of the players in the game (the first NUM_PLAYERS agent types).
+         * @return all agent types in play.
          */
         public static HashSet<TILETYPE> getAgentTypes() {
-            HashSet<TILETYPE> types = new HashSet<>();
-            types.add(AGENT0);
-            types.add(AGENT1);
-            types.add(AGENT2);
-            types.add(AGENT3);
-            return types;
+            return new HashSet<>(Arrays.asList(AGENT_TYPES).subList(0, NUM_PLAYERS));
         }
 
         /**
@@ -133,11 +192,16 @@ public class Types {
          * @return all power up types.
          */
         public static HashSet<TILETYPE> getPowerUpTypes() {
-            HashSet<TILETYPE> types = new HashSet<>();
-            types.add(EXTRABOMB);
-            types.add(INCRRANGE);
-            types.add(KICK);
-            return types;
+            return new HashSet<>(Arrays.asList(POWER_UP_TYPES));
+        }
+
+        /**
+         * Returns all power up types, always in the same order (unlike iterating getPowerUpTypes(), whose order
+         * depends on the identity hash codes of the types).
+         * @return a new array with all power up types.
+         */
+        public static TILETYPE[] getPowerUpTypeArray() {
+            return POWER_UP_TYPES.clone();
         }
 
         /**
@@ -194,7 +258,7 @@ public class Types {
         }
 
         public Vector2d toVec() {
-            return new Vector2d(x, y);
+            return Vector2d.of(x, y);
         }
 
         public int x() {return x;}
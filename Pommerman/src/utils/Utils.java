@@ -141,10 +141,7 @@ public class Utils
      * @return true if new position set successfully, false otherwise
      */
     public static boolean setDesiredCoordinate(GameObject gameObject, Vector2d pos, Types.TILETYPE[][] board) {
-        ArrayList<Types.TILETYPE> defaultCollisions = new ArrayList<>();
-        defaultCollisions.add(Types.TILETYPE.RIGID);
-        defaultCollisions.add(Types.TILETYPE.WOOD);
-        return setDesiredCoordinate(gameObject, pos, board, defaultCollisions);
+        return setDesiredCoordinate(gameObject, pos, board, null);
     }
 
     /**
@@ -152,7 +149,7 @@ public class Utils
      * @param gameObject - game object to check
      * @param pos - new position
      * @param board - board state to check legal positions on
-     * @param collisions - list of types which would make the position of a sprite illegal
+     * @param collisions - list of types which would make the position of a sprite illegal, null for walls
      * @return true if new position set successfully, false otherwise
      */
     public static boolean setDesiredCoordinate(GameObject gameObject, Vector2d pos, Types.TILETYPE[][] board,
@@ -179,7 +176,8 @@ public class Utils
     private static boolean _checkLegalPosition(Types.TILETYPE[][] board, Vector2d pos,
                                                ArrayList<Types.TILETYPE> collisions) {
         return pos != null && pos.x >= 0 && pos.y >= 0 && pos.y < board.length && pos.x < board[0].length &&
-                (board[pos.y][pos.x] == null || !collisions.contains(board[pos.y][pos.x]));
+                (collisions == null ? !Types.TILETYPE.isWall(board[pos.y][pos.x])
+                        : board[pos.y][pos.x] == null || !collisions.contains(board[pos.y][pos.x]));
     }
 
     /**
@@ -301,7 +299,7 @@ public class Utils
                 if (ob.getType() == Types.TILETYPE.FLAMES) ob.setLife(FLAME_LIFE);
                 else if (ob.getType() == Types.TILETYPE.BOMB) {
                     Bomb b = (Bomb)ob;
-                    b.setVelocity(new Vector2d());
+                    b.setVelocity(Vector2d.of(0, 0));
                     b.setPlayerIdx(-1);
                 }
                 copyList.add(ob);
@@ -396,7 +394,7 @@ public class Utils
         Types.TILETYPE tileType = board[position.y][position.x];
 
         boolean positionIsPassable = false;
-        if(Types.TILETYPE.getAgentTypes().contains(tileType) || Types.TILETYPE.getPowerUpTypes().contains(tileType) ||
+        if(Types.TILETYPE.isAgent(tileType) || Types.TILETYPE.isPowerUp(tileType) ||
                 tileType == Types.TILETYPE.PASSAGE){
 
             // Also check if position is an enemy
@@ -527,7 +525,7 @@ public class Utils
             Types.TILETYPE tiletype = board[pos.y][pos.x];
             return tiletype == Types.TILETYPE.PASSAGE ||
                     tiletype == Types.TILETYPE.BOMB ||
-                    Types.TILETYPE.getPowerUpTypes().contains(tiletype);
+                    Types.TILETYPE.isPowerUp(tiletype);
         }
         return false;
     }
@@ -542,7 +540,7 @@ public class Utils
         ArrayList<Vector2d> passableDirections = new ArrayList<>();
         for(Types.DIRECTIONS d : Types.DIRECTIONS.values())
         {
-            Vector2d newPos = new Vector2d(avatar.getPosition().x + d.x(), avatar.getPosition().y + d.y());
+            Vector2d newPos = Vector2d.of(avatar.getPosition().x + d.x(), avatar.getPosition().y + d.y());
             if(isPassable(board, newPos, avatar))
                 passableDirections.add(newPos);
         }
@@ -629,7 +627,7 @@ public class Utils
     private static boolean expandFlames(int x, int y, Types.TILETYPE[][] board, HashSet<Vector2d> upcomingFlames) {
         if (x < 0 || y < 0 || x >= board[0].length || y >= board.length || board[y][x] == Types.TILETYPE.RIGID)
             return false;
-        upcomingFlames.add(new Vector2d(x, y));
+        upcomingFlames.add(Vector2d.of(x, y));
         return (board[y][x] != Types.TILETYPE.WOOD); // Flames should stop at first wooden block
     }
 }
@@ -2,21 +2,54 @@ package utils;
 
 /**
  * This class represents a vector, or a position, in the map.
+ * Vectors are immutable: operations return a new vector instead of modifying this one, so a vector can be shared
+ * freely (game objects and their copies hold the same position objects). Vectors with small coordinates, which
+ * cover every cell of the board and the direction offsets, are interned: Vector2d.of() returns the same instance
+ * for the same coordinates without allocating, and all operations of this class go through it.
  * PTSP-Competition
  * Created by Diego Perez, University of Essex.
  * Date: 19/12/11
  */
-public class Vector2d
+public final class Vector2d
 {
+    // Range of coordinates, [CACHE_MIN, CACHE_MAX), of the interned vectors. Covers boards of up to 62x62 cells,
+    // and the positions one step off the board that moves are checked against.
+    private static final int CACHE_MIN = -2;
+    private static final int CACHE_MAX = 64;
+    private static final int CACHE_SPAN = CACHE_MAX - CACHE_MIN;
+    private static final Vector2d[] CACHE = new Vector2d[CACHE_SPAN * CACHE_SPAN];
+
+    static {
+        for (int y = CACHE_MIN; y < CACHE_MAX; y++) {
+            for (int x = CACHE_MIN; x < CACHE_MAX; x++) {
+                CACHE[(y - CACHE_MIN) * CACHE_SPAN + (x - CACHE_MIN)] = new Vector2d(x, y);
+            }
+        }
+    }
+
     /**
      * X-coordinate of the vector.
      */
-    public int x;
+    public final int x;
 
     /**
      * Y-coordinate of the vector.
      */
-    public int y;
+    public final int y;
+
+    /**
+     * Returns the vector with the given coordinates. Within the interned range this is a shared instance and
+     * nothing is allocated; outside of it a new vector is created.
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return vector (x, y)
+     */
+    public static Vector2d of(int x, int y) {
+        if (x >= CACHE_MIN && x < CACHE_MAX && y >= CACHE_MIN && y < CACHE_MAX) {
+            return CACHE[(y - CACHE_MIN) * CACHE_SPAN + (x - CACHE_MIN)];
+        }
+        return new Vector2d(x, y);
+    }
 
     /**
      * Default constructor.
@@ -32,6 +65,9 @@ public class Vector2d
      */
     @Override
     public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
         if (o instanceof Vector2d) {
             Vector2d v = (Vector2d) o;
             return x == v.x && y == v.y;
@@ -61,38 +97,11 @@ public class Vector2d
     }
 
     /**
-     * Creates a copy of this vector
-     * @return a copy of this vector
+     * Creates a copy of this vector. As vectors are immutable, this is the vector itself.
+     * @return this vector
      */
     public Vector2d copy() {
-        return new Vector2d(x,y);
-    }
-
-    /**
-     * Sets this vector's coordinates to the coordinates of another vector.
-     * @param v that other vector.
-     */
-    public void set(Vector2d v) {
-        this.x = v.x;
-        this.y = v.y;
-    }
-
-    /**
-     * Sets this vector's coordinates to the coordinates given.
-     * @param x x coordinate.
-     * @param y y coordinate.
-     */
-    public void set(int x, int y) {
-        this.x = x;
-        this.y = y;
-    }
-
-    /**
-     * Sets the vector's coordinates to (0,0)
-     */
-    public void zero() {
-        x = 0;
-        y = 0;
+        return this;
     }
 
     /**
@@ -107,94 +116,77 @@ public class Vector2d
     /**
      * Adds another vector to this.
      * @param v vector to add.
-     * @return this, after the addition.
+     * @return the sum of both vectors.
      */
     public Vector2d add(Vector2d v) {
-        Vector2d newVec = new Vector2d(this.x, this.y);
-        newVec.x += v.x;
-        newVec.y += v.y;
-        return newVec;
+        return of(x + v.x, y + v.y);
     }
 
     /**
      * Adds to this vector two coordinates
      * @param x x coordinate
      * @param y y coordinate
-     * @return returns this, after the addition.
+     * @return the vector resulting from the addition.
      */
     public Vector2d add(int x, int y) {
-        this.x += x;
-        this.y += y;
-        return this;
+        return of(this.x + x, this.y + y);
     }
 
     /**
      * Adds to this vector another vector, scaled it by a factor..
      * @param v Vector to add, to be scaled by w
      * @param w Scale of v.
-     * @return this vector, after the addition.
+     * @return the vector resulting from the addition.
      */
     public Vector2d add(Vector2d v, int w) {
         // weighted addition
-        this.x += w * v.x;
-        this.y += w * v.y;
-        return this;
+        return of(x + w * v.x, y + w * v.y);
     }
 
     /**
      * Performs a wrap operation over this vector.
      * @param w width
      * @param h height
-     * @return This vector, after the wrap.
+     * @return the wrapped vector.
      */
     public Vector2d wrap(int w, int h) {
-//        w = 2 * w;
-//        h = 2 * h;
-        x = (x + w) % w;
-        y = (y + h) % h;
-        return this;
+        return of((x + w) % w, (y + h) % h);
     }
 
     /**
      * Subtracts another vector from this.
      * @param v vector to subtract.
-     * @return this, after the subtraction.
+     * @return the difference of both vectors.
      */
     public Vector2d subtract(Vector2d v) {
-        Vector2d newVec = new Vector2d(this.x, this.y);
-        newVec.x -= v.x;
-        newVec.y -= v.y;
-        return newVec;
+        return of(x - v.x, y - v.y);
     }
 
     /**
      * Subtracts two coordinates to this vector.
      * @param x x coordinate
      * @param y y coordinate
-     * @return returns this, after the subtraction.
+     * @return the vector resulting from the subtraction.
      */
     public Vector2d subtract(int x, int y) {
-        this.x -= x;
-        this.y -= y;
-        return this;
+        return of(this.x - x, this.y - y);
     }
 
     /**
      * Multiplies this vector by a factor.
      * @param fac factor to multiply this vector by.
-     * @return This vector, after the operation.
+     * @return the scaled vector.
      */
     public Vector2d mul(int fac) {
-        x *= fac;
-        y *= fac;
-        return this;
+        return of(x * fac, y * fac);
     }
 
     /**
      * Rotates the vector an angle given, in radians.
      * @param theta angle given, in radians
+     * @return the rotated vector.
      */
-    public void rotate(int theta) {
+    public Vector2d rotate(int theta) {
         // rotate this vector by the angle made to the horizontal by this line
         // theta is in radians
         double cosTheta = Math.cos(theta);
@@ -203,8 +195,7 @@ public class Vector2d
         int nx = (int)(x * cosTheta - y * sinTheta);
         int ny = (int)(x * sinTheta + y * cosTheta);
 
-        x = nx;
-        y = ny;
+        return of(nx, ny);
     }
 
     /**
@@ -280,16 +271,15 @@ public class Vector2d
 
     /**
      * Normalises this vector.
+     * @return the normalised vector.
      */
-    public void normalise() {
+    public Vector2d normalise() {
         double mag = mag();
         if(mag == 0)
         {
-            x = y = 0;
-        }else{
-            x /= mag;
-            y /= mag;
+            return of(0, 0);
         }
+        return of((int) (x / mag), (int) (y / mag));
     }
 
     /**
@@ -306,9 +296,9 @@ public class Vector2d
         double l = this.mag();
         if(l > 0)
         {
-            return new Vector2d((int)(this.x/l),(int)(this.y/l));
+            return of((int)(this.x/l),(int)(this.y/l));
         }
-        else return new Vector2d(1,0);
+        else return of(1,0);
     }
 
     @Override